@@ -32,7 +32,6 @@ public class PhoneDetailController {
 
         if (phone != null) {
             // Nếu đã có, cập nhật lượt xem
-            phone.incrementViewCount();
             phoneRepository.updateViewCount(phone);
             return phone;
         }
@@ -3,6 +3,7 @@ package com.phonerecommend.controller;
 import com.phonerecommend.model.Phone;
 import com.phonerecommend.repository.PhoneRepository;
 import com.phonerecommend.repository.RepositoryFactory;
+import com.phonerecommend.repository.catalog.TypeaheadIndex;
 import com.phonerecommend.service.filter.PhoneFilter;
 import com.phonerecommend.service.filter.impl.CompositeFilter;
 import com.phonerecommend.service.search.SearchService;
@@ -56,6 +57,44 @@ public class PhoneSearchController {
         return new ArrayList<>(currentResults);
     }
 
+    /**
+     * Tìm kiếm có xếp hạng theo mức độ liên quan với từ khóa, bộ lọc hiện tại được áp dụng trước khi xếp hạng
+     * @param keyword Từ khóa tìm kiếm
+     * @param limit Số kết quả tối đa
+     * @return Danh sách điện thoại liên quan nhất, theo mức độ giảm dần
+     */
+    public List<Phone> searchPhonesRanked(String keyword, int limit) {
+        this.currentKeyword = keyword;
+
+        // Xếp hạng bằng chỉ mục của cả danh mục, chỉ giữ các điện thoại qua bộ lọc
+        List<Phone> allPhones = phoneRepository.getAllPhones();
+        List<Phone> filtered = compositeFilter.filter(allPhones);
+        currentResults = searchService.searchRanked(allPhones, filtered, keyword, limit);
+
+        return new ArrayList<>(currentResults);
+    }
+
+    /**
+     * Gợi ý cho ô tìm kiếm khi người dùng đang gõ
+     * @param prefix Chuỗi đã gõ
+     * @param limit Số gợi ý tối đa
+     * @return Danh sách chuỗi gợi ý, xếp theo lượt xem giảm dần
+     */
+    public List<String> getSuggestions(String prefix, int limit) {
+        List<String> suggestions = new ArrayList<>();
+        for (TypeaheadIndex.Suggestion suggestion : searchService.suggest(phoneRepository.getAllPhones(), prefix, limit)) {
+            suggestions.add(suggestion.getText());
+        }
+        return suggestions;
+    }
+
+    /**
+     * Tạo trước chỉ mục gợi ý cho danh mục hiện tại (gọi ở luồng nền khi khởi động)
+     */
+    public void prepareSuggestions() {
+        searchService.prepareSuggestions(phoneRepository.getAllPhones());
+    }
+
     /**
      * Lọc điện thoại với bộ lọc chỉ định
      * @param filter Bộ lọc điện thoại
@@ -171,7 +210,6 @@ public class PhoneSearchController {
      * @param phone Điện thoại cần cập nhật
      */
     public void incrementPhoneViewCount(Phone phone) {
-        phone.incrementViewCount();
         phoneRepository.updateViewCount(phone);
     }
 }
\ No newline at end of file
@@ -0,0 +1,100 @@
+package com.phonerecommend.model;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Từ điển key thuộc tính dùng chung cho toàn bộ danh mục
+ * Mỗi key chuẩn được gán một số nguyên nhỏ, PhoneDescription lưu giá trị trong mảng theo số này
+ * thay vì mỗi điện thoại giữ một HashMap riêng với cùng ~36 key
+ *
+ * Các biến thể của cùng một key (thừa khoảng trắng, khác dạng Unicode) được quy về key chuẩn,
+ * ví dụ "Tần số quét " -> "Tần số quét"
+ */
+public final class AttributeSchema {
+    private static final AttributeSchema SHARED = new AttributeSchema();
+
+    // Key (kể cả biến thể) -> id
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    // id -> key chuẩn, chỉ thay bằng mảng mới khi thêm key (copy-on-write)
+    private volatile String[] keys = new String[0];
+
+    private AttributeSchema() {
+    }
+
+    /**
+     * Từ điển dùng chung của ứng dụng
+     */
+    public static AttributeSchema shared() {
+        return SHARED;
+    }
+
+    /**
+     * Chuẩn hóa key: dạng Unicode NFC, bỏ khoảng trắng thừa ở hai đầu và giữa các từ
+     * @param key Key gốc
+     * @return Key chuẩn
+     */
+    public static String canonicalKey(String key) {
+        String normalized = Normalizer.normalize(key, Normalizer.Form.NFC);
+        return normalized.trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Lấy id của key, đăng ký key mới nếu chưa có
+     * @param key Key (có thể là biến thể)
+     * @return Id của key chuẩn
+     */
+    public int idOf(String key) {
+        Integer id = ids.get(key);
+        return id != null ? id : register(key);
+    }
+
+    /**
+     * Lấy id của key mà không đăng ký key mới
+     * @param key Key (có thể là biến thể)
+     * @return Id, hoặc -1 nếu key chưa từng xuất hiện
+     */
+    public int lookup(String key) {
+        Integer id = ids.get(key);
+        if (id != null) {
+            return id;
+        }
+        id = ids.get(canonicalKey(key));
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Key chuẩn ứng với id
+     */
+    public String keyOf(int id) {
+        return keys[id];
+    }
+
+    /**
+     * Số key chuẩn đã đăng ký
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    private synchronized int register(String key) {
+        Integer id = ids.get(key);
+        if (id != null) {
+            return id;
+        }
+
+        String canonical = canonicalKey(key);
+        id = ids.get(canonical);
+        if (id == null) {
+            String[] grown = Arrays.copyOf(keys, keys.length + 1);
+            id = keys.length;
+            grown[id] = canonical;
+            keys = grown;
+            ids.put(canonical, id);
+        }
+        ids.put(key, id); // Ghi nhớ biến thể để lần sau không phải chuẩn hóa lại
+        return id;
+    }
+}
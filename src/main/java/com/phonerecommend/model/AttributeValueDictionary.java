@@ -0,0 +1,146 @@
+package com.phonerecommend.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Từ điển giá trị thuộc tính dùng chung cho toàn bộ danh mục
+ * Các giá trị giống hệt nhau ("Wi-Fi", "Bluetooth", "Công nghệ NFC"...) chỉ giữ một đối tượng String
+ * và được gán một mã số nguyên, PhoneDescription chỉ lưu mã số
+ *
+ * Từ điển không bao giờ xóa mục nên chỉ nhận giá trị ngắn (giá trị lặp lại giữa các máy thường ngắn,
+ * đoạn mô tả dài gần như chỉ xuất hiện một lần) và có số mục tối đa; giá trị dài hoặc đến sau khi
+ * từ điển đã đầy được PhoneDescription giữ trực tiếp, nên tải lại danh mục nhiều lần không làm từ điển phình ra
+ */
+public final class AttributeValueDictionary {
+    private static final AttributeValueDictionary SHARED = new AttributeValueDictionary();
+
+    // Mã trả về cho giá trị không được đưa vào từ điển
+    public static final int NOT_INTERNED = -1;
+    private static final int MAX_VALUE_LENGTH = 64;
+    private static final int MAX_SIZE = 1 << 16;
+
+    // Ước lượng bộ nhớ (JVM 64-bit, compressed oops)
+    private static final int STRING_OVERHEAD = 24 + 16; // Đối tượng String + header mảng byte[]
+    private static final int ENTRY_OVERHEAD = 32 + 16 + 4; // Node của ConcurrentHashMap + Integer + ô mảng
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[1024];
+    private int size;
+
+    private AttributeValueDictionary() {
+    }
+
+    /**
+     * Từ điển dùng chung của ứng dụng
+     */
+    public static AttributeValueDictionary shared() {
+        return SHARED;
+    }
+
+    /**
+     * Lấy mã của giá trị, thêm vào từ điển nếu chưa có
+     * @param value Giá trị thuộc tính
+     * @return Mã số, hoặc NOT_INTERNED nếu giá trị quá dài hay từ điển đã đầy (người gọi tự giữ giá trị)
+     */
+    public int encode(String value) {
+        if (value.length() > MAX_VALUE_LENGTH) {
+            return NOT_INTERNED;
+        }
+        Integer code = codes.get(value);
+        return code != null ? code : register(value);
+    }
+
+    /**
+     * Lấy mã của giá trị mà không thêm mới
+     * @param value Giá trị thuộc tính
+     * @return Mã số, hoặc -1 nếu chưa có trong từ điển (không điện thoại nào có giá trị này,
+     *         hoặc giá trị không được đưa vào từ điển)
+     */
+    public int codeOf(String value) {
+        Integer code = codes.get(value);
+        return code != null ? code : -1;
+    }
+
+    /**
+     * Giá trị ứng với mã số
+     */
+    public String decode(int code) {
+        return values[code];
+    }
+
+    /**
+     * Số giá trị khác nhau trong từ điển
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private synchronized int register(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (size == MAX_SIZE) {
+            return NOT_INTERNED;
+        }
+
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size] = value;
+        codes.put(value, size); // Đưa vào map sau khi đã ghi mảng để luồng khác thấy giá trị đầy đủ
+        return size++;
+    }
+
+    /**
+     * Thống kê mức tiết kiệm bộ nhớ của từ điển trên một danh mục
+     * @param phones Danh sách điện thoại
+     * @return Báo cáo (số byte là ước lượng cho JVM 64-bit)
+     */
+    public String report(Iterable<Phone> phones) {
+        int[] references = new int[size()];
+        int phoneCount = 0;
+        long totalReferences = 0;
+        long inlineValues = 0;
+        for (Phone phone : phones) {
+            PhoneDescription description = phone.getDescription();
+            if (description != null) {
+                totalReferences += description.countValueReferences(references);
+                inlineValues += description.countInlineValues();
+            }
+            phoneCount++;
+        }
+
+        long withoutDictionary = 0; // Mỗi tham chiếu giữ một String riêng
+        long withDictionary = 0; // Mỗi giá trị khác nhau giữ một String + một entry của từ điển
+        int distinct = 0;
+        for (int code = 0; code < references.length; code++) {
+            if (references[code] == 0) {
+                continue;
+            }
+            long stringBytes = estimateStringBytes(decode(code));
+            withoutDictionary += stringBytes * references[code];
+            withDictionary += stringBytes + ENTRY_OVERHEAD;
+            distinct++;
+        }
+
+        long saved = withoutDictionary - withDictionary;
+        return "Value dictionary: " + distinct + " distinct values for " + totalReferences + " attribute values"
+                + " (" + inlineValues + " long/rare values stored inline, " + size() + "/" + MAX_SIZE + " entries)\n"
+                + "Strings without dictionary: " + withoutDictionary / 1024 + " KB\n"
+                + "Strings with dictionary: " + withDictionary / 1024 + " KB\n"
+                + "Saved: " + saved / 1024 + " KB"
+                + (phoneCount > 0 ? " (" + saved / phoneCount + " bytes/phone)" : "");
+    }
+
+    private static long estimateStringBytes(String value) {
+        boolean latin1 = true;
+        for (int i = 0; i < value.length() && latin1; i++) {
+            latin1 = value.charAt(i) < 256;
+        }
+        long bytes = STRING_OVERHEAD + (latin1 ? value.length() : value.length() * 2L);
+        return (bytes + 7) / 8 * 8;
+    }
+}
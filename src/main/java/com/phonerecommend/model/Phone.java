@@ -1,15 +1,24 @@
 package com.phonerecommend.model;
 
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Supplier;
+
 /**
  * Lớp đại diện cho một điện thoại
  */
 public class Phone {
+    private static final AtomicIntegerFieldUpdater<Phone> VIEW_COUNT =
+            AtomicIntegerFieldUpdater.newUpdater(Phone.class, "viewCount");
+
     private String name;
     private String link;
     private double price;
-    private PhoneDescription description;
+    private volatile PhoneDescription description;
+    private volatile Supplier<PhoneDescription> descriptionLoader; // Nạp description khi cần (lazy)
+    private boolean retainLoadedDescription = true; // false: description do loader quản lý (cache), không giữ trên Phone
     private String imageUrl;
-    private int viewCount; // Số lượt xem
+    private volatile int viewCount; // Số lượt xem
+    private volatile PhoneSpecs specs; // Thông số đã phân tích, tính ở lần dùng đầu tiên
 
     public Phone() {
         this.description = new PhoneDescription();
@@ -61,6 +70,7 @@ public class Phone {
 
     public void setName(String name) {
         this.name = name;
+        this.specs = null;
     }
 
     public String getLink() {
@@ -86,11 +96,68 @@ public class Phone {
     }
 
     public PhoneDescription getDescription() {
-        return description;
+        PhoneDescription current = description;
+        if (current == null && descriptionLoader != null) {
+            Supplier<PhoneDescription> loader = descriptionLoader;
+            if (loader != null && !retainLoadedDescription) {
+                return loader.get();
+            }
+            synchronized (this) {
+                if (description == null && descriptionLoader != null) {
+                    description = descriptionLoader.get();
+                    descriptionLoader = null;
+                }
+                current = description;
+            }
+        }
+        return current;
     }
 
     public void setDescription(PhoneDescription description) {
-        this.description = description;
+        synchronized (this) {
+            this.descriptionLoader = null;
+            this.description = description;
+            this.specs = null;
+        }
+    }
+
+    /**
+     * Thiết lập nguồn nạp description, description chỉ được tạo ở lần gọi getDescription() đầu tiên
+     * @param descriptionLoader Hàm tạo description
+     */
+    public void setDescriptionLoader(Supplier<PhoneDescription> descriptionLoader) {
+        setDescriptionLoader(descriptionLoader, true);
+    }
+
+    /**
+     * Thiết lập nguồn nạp description
+     * @param descriptionLoader Hàm tạo description
+     * @param retain true: giữ description sau lần nạp đầu tiên,
+     *               false: mỗi lần gọi getDescription() đều hỏi loader (loader tự cache có giới hạn),
+     *               muốn sửa description thì dùng setDescription()
+     */
+    public void setDescriptionLoader(Supplier<PhoneDescription> descriptionLoader, boolean retain) {
+        synchronized (this) {
+            this.description = null;
+            this.retainLoadedDescription = retain;
+            this.descriptionLoader = descriptionLoader;
+            this.specs = null;
+        }
+    }
+
+    /**
+     * Thông số kỹ thuật dạng số, chỉ phân tích description một lần rồi giữ lại trên Phone
+     * (kể cả khi description được nạp lazy và không giữ lại)
+     * Sửa trực tiếp description đã gắn thì cần gọi lại setDescription() để tính lại
+     * @return Thông số đã phân tích
+     */
+    public PhoneSpecs getSpecs() {
+        PhoneSpecs current = specs;
+        if (current == null) {
+            current = PhoneSpecs.parse(name, getDescription());
+            specs = current;
+        }
+        return current;
     }
 
     public String getImageUrl() {
@@ -113,8 +180,11 @@ public class Phone {
         this.viewCount = viewCount;
     }
 
+    /**
+     * Tăng lượt xem, an toàn khi nhiều luồng cùng gọi
+     */
     public void incrementViewCount() {
-        this.viewCount++;
+        VIEW_COUNT.incrementAndGet(this);
     }
 
     @Override
@@ -1,37 +1,146 @@
 package com.phonerecommend.model;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 /**
  * Lớp chứa mô tả chi tiết của điện thoại - FIXED
+ * Mỗi thuộc tính được lưu bằng mã giá trị (AttributeValueDictionary) trong mảng theo id key
+ * của AttributeSchema dùng chung, các biến thể key (ví dụ "Tần số quét ") được quy về key chuẩn.
+ * Giá trị không được từ điển nhận (dài, hoặc từ điển đã đầy) được giữ trực tiếp trong inlineValues
  */
 public class PhoneDescription {
-    private Map<String, String> attributes;
+    private static final int[] EMPTY = new int[0];
+    private static final int NO_VALUE = -1;
+    private static final int INLINE = -2;
+
+    private int[] codes; // codes[id] = mã giá trị của key có id tương ứng, NO_VALUE nếu không có, INLINE nếu giữ trực tiếp
+    private String[] inlineValues; // Chỉ tạo khi có giá trị giữ trực tiếp, cùng độ dài với codes
 
     public PhoneDescription() {
-        this.attributes = new HashMap<>();
+        this.codes = EMPTY;
     }
 
     public void setAttribute(String key, String value) {
-        if (attributes == null) {
-            attributes = new HashMap<>();
+        int id = AttributeSchema.shared().idOf(key);
+        if (id >= codes.length) {
+            if (value == null) {
+                return;
+            }
+            int oldLength = codes.length;
+            codes = Arrays.copyOf(codes, AttributeSchema.shared().size());
+            Arrays.fill(codes, oldLength, codes.length, NO_VALUE);
+            if (inlineValues != null) {
+                inlineValues = Arrays.copyOf(inlineValues, codes.length);
+            }
+        }
+
+        int code = value == null ? NO_VALUE : AttributeValueDictionary.shared().encode(value);
+        if (code == AttributeValueDictionary.NOT_INTERNED && value != null) {
+            if (inlineValues == null) {
+                inlineValues = new String[codes.length];
+            }
+            inlineValues[id] = value;
+            codes[id] = INLINE;
+            return;
+        }
+        codes[id] = code;
+        if (inlineValues != null) {
+            inlineValues[id] = null;
         }
-        attributes.put(key, value);
     }
 
     public String getAttribute(String key) {
-        if (attributes == null) {
+        int id = AttributeSchema.shared().lookup(key);
+        if (id < 0 || id >= codes.length) {
             return "";
         }
-        return attributes.getOrDefault(key, "");
+        return valueAt(id);
+    }
+
+    private String valueAt(int id) {
+        int code = codes[id];
+        if (code == INLINE) {
+            return inlineValues[id];
+        }
+        return code == NO_VALUE ? "" : AttributeValueDictionary.shared().decode(code);
+    }
+
+    /**
+     * Lấy mã giá trị của thuộc tính, dùng để so sánh bằng số thay vì so sánh chuỗi
+     * (lấy mã của giá trị cần so bằng AttributeValueDictionary.shared().codeOf)
+     * @param key Tên thuộc tính
+     * @return Mã giá trị, hoặc -1 nếu không có hoặc giá trị được giữ trực tiếp (không có mã)
+     */
+    public int getAttributeCode(String key) {
+        int id = AttributeSchema.shared().lookup(key);
+        if (id < 0 || id >= codes.length || codes[id] == INLINE) {
+            return NO_VALUE;
+        }
+        return codes[id];
     }
 
     public Map<String, String> getAllAttributes() {
-        if (attributes == null) {
-            return new HashMap<>();
+        Map<String, String> attributes = new LinkedHashMap<>();
+        forEachAttribute(attributes::put);
+        return attributes;
+    }
+
+    /**
+     * Duyệt các thuộc tính (theo thứ tự id key) mà không tạo Map trung gian
+     * @param action Hàm nhận key chuẩn và giá trị
+     */
+    public void forEachAttribute(BiConsumer<String, String> action) {
+        AttributeSchema schema = AttributeSchema.shared();
+        for (int id = 0; id < codes.length; id++) {
+            if (codes[id] != NO_VALUE) {
+                action.accept(schema.keyOf(id), valueAt(id));
+            }
         }
-        return new HashMap<>(attributes);
+    }
+
+    /**
+     * Số thuộc tính có giá trị
+     */
+    public int size() {
+        int count = 0;
+        for (int code : codes) {
+            if (code != NO_VALUE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Cộng số lần dùng mỗi mã giá trị (cho báo cáo của AttributeValueDictionary)
+     * @param references Mảng đếm theo mã giá trị
+     * @return Số thuộc tính có giá trị
+     */
+    int countValueReferences(int[] references) {
+        int count = 0;
+        for (int code : codes) {
+            if (code >= 0 && code < references.length) {
+                references[code]++;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Số thuộc tính có giá trị giữ trực tiếp (không nằm trong từ điển)
+     */
+    int countInlineValues() {
+        int count = 0;
+        for (int code : codes) {
+            if (code == INLINE) {
+                count++;
+            }
+        }
+        return count;
     }
 
     // Các phương thức tiện ích để truy cập thuộc tính phổ biến
@@ -94,13 +203,9 @@ public class PhoneDescription {
     // Thêm method debug
     public void debugPrint() {
         System.out.println("=== DEBUG PHONE DESCRIPTION ===");
-        System.out.println("Attributes map size: " + (attributes != null ? attributes.size() : "NULL"));
-        if (attributes != null && !attributes.isEmpty()) {
-            for (Map.Entry<String, String> entry : attributes.entrySet()) {
-                System.out.println("Key: '" + entry.getKey() + "' -> Value: '" +
-                        (entry.getValue() != null ? entry.getValue().substring(0, Math.min(50, entry.getValue().length())) + "..." : "NULL") + "'");
-            }
-        }
+        System.out.println("Attributes size: " + size());
+        forEachAttribute((key, value) -> System.out.println("Key: '" + key + "' -> Value: '" +
+                value.substring(0, Math.min(50, value.length())) + "...'"));
         System.out.println("===============================");
     }
 }
\ No newline at end of file
@@ -0,0 +1,417 @@
+package com.phonerecommend.model;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Thông số kỹ thuật đã được phân tích sẵn thành kiểu số
+ * Được tính một lần cho mỗi điện thoại (xem Phone.getSpecs()), các bộ lọc và hàm chấm điểm
+ * đọc trực tiếp các trường này thay vì tách số từ chuỗi mô tả ở mỗi lần kiểm tra
+ *
+ * Giá trị 0 nghĩa là không có thông tin hoặc không đọc được
+ */
+public final class PhoneSpecs {
+    public static final String UNKNOWN_BRAND = "other";
+
+    // Số không kèm "mAh" nhỏ hơn ngưỡng này không được coi là dung lượng pin
+    private static final int MIN_BATTERY_WITHOUT_UNIT = 1000;
+
+    private static final PhoneSpecs EMPTY = new PhoneSpecs(UNKNOWN_BRAND, null);
+
+    // Tên dòng máy/thương hiệu con quy về hãng
+    private static final Map<String, String> BRAND_ALIASES = new HashMap<>();
+    static {
+        BRAND_ALIASES.put("iphone", "apple");
+        BRAND_ALIASES.put("galaxy", "samsung");
+        BRAND_ALIASES.put("redmi", "xiaomi");
+        BRAND_ALIASES.put("poco", "xiaomi");
+        BRAND_ALIASES.put("iqoo", "vivo");
+        BRAND_ALIASES.put("rog", "asus");
+        BRAND_ALIASES.put("zenfone", "asus");
+        BRAND_ALIASES.put("moto", "motorola");
+        BRAND_ALIASES.put("xperia", "sony");
+        BRAND_ALIASES.put("xiaomii", "xiaomi");
+        BRAND_ALIASES.put("phillips", "philips");
+    }
+
+    private final String brand;
+    private final double ramGb;
+    private final double storageGb;
+    private final int batteryMah;
+    private final double screenInches;
+    private final double weightGrams;
+    private final int refreshHz;
+    private final double rearCameraMp;
+    private final double frontCameraMp;
+    private final int releaseYearMonth;
+    private final boolean has5G;
+    private final String chipset;
+
+    private PhoneSpecs(String brand, PhoneDescription description) {
+        this.brand = brand;
+        if (description == null) {
+            this.ramGb = 0;
+            this.storageGb = 0;
+            this.batteryMah = 0;
+            this.screenInches = 0;
+            this.weightGrams = 0;
+            this.refreshHz = 0;
+            this.rearCameraMp = 0;
+            this.frontCameraMp = 0;
+            this.releaseYearMonth = 0;
+            this.has5G = false;
+            this.chipset = "";
+            return;
+        }
+
+        this.ramGb = parseCapacityGb(description.getRam());
+        this.storageGb = parseCapacityGb(description.getStorage());
+        this.batteryMah = parseBatteryMah(description.getBattery());
+        this.screenInches = parseFirstNumber(description.getScreenSize());
+        this.weightGrams = parseWeightGrams(description.getAttribute("Trọng lượng"));
+        this.refreshHz = (int) parseFirstNumber(description.getRefreshRate());
+        this.rearCameraMp = parseMaxMegapixels(description.getRearCamera());
+        this.frontCameraMp = parseMaxMegapixels(description.getFrontCamera());
+        this.releaseYearMonth = parseReleaseYearMonth(description.getAttribute("Thời điểm ra mắt"));
+        this.has5G = description.getNetworkSupport().contains("5G");
+        this.chipset = description.getChipset().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Phân tích thông số của một điện thoại
+     * @param name Tên điện thoại (dùng để xác định hãng)
+     * @param description Mô tả chi tiết, có thể null
+     * @return Thông số đã phân tích
+     */
+    public static PhoneSpecs parse(String name, PhoneDescription description) {
+        String brand = brandOf(name);
+        if (description == null) {
+            return UNKNOWN_BRAND.equals(brand) ? EMPTY : new PhoneSpecs(brand, null);
+        }
+        return new PhoneSpecs(brand, description);
+    }
+
+    /**
+     * Xác định hãng từ tên điện thoại (từ đầu tiên của tên, bỏ qua tiền tố "Điện thoại")
+     * @param name Tên điện thoại
+     * @return Tên hãng viết thường, UNKNOWN_BRAND nếu không xác định được
+     */
+    public static String brandOf(String name) {
+        if (name == null) {
+            return UNKNOWN_BRAND;
+        }
+
+        for (String word : name.toLowerCase().trim().split("\\s+")) {
+            if (word.equals("điện") || word.equals("thoại")) {
+                continue;
+            }
+            StringBuilder brand = new StringBuilder(word.length());
+            for (int i = 0; i < word.length(); i++) {
+                char c = word.charAt(i);
+                if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                    brand.append(c);
+                }
+            }
+            if (brand.length() == 0) {
+                return UNKNOWN_BRAND;
+            }
+            return BRAND_ALIASES.getOrDefault(brand.toString(), brand.toString());
+        }
+        return UNKNOWN_BRAND;
+    }
+
+    // ==================== Getters ====================
+
+    public String getBrand() {
+        return brand;
+    }
+
+    /**
+     * Dung lượng RAM (GB), RAM tính bằng MB được quy đổi (vd: 64MB = 0.0625)
+     */
+    public double getRamGb() {
+        return ramGb;
+    }
+
+    /**
+     * Bộ nhớ trong (GB), 1 TB = 1024 GB
+     */
+    public double getStorageGb() {
+        return storageGb;
+    }
+
+    public int getBatteryMah() {
+        return batteryMah;
+    }
+
+    public double getScreenInches() {
+        return screenInches;
+    }
+
+    public double getWeightGrams() {
+        return weightGrams;
+    }
+
+    public int getRefreshHz() {
+        return refreshHz;
+    }
+
+    /**
+     * Độ phân giải lớn nhất trong các camera sau (MP)
+     */
+    public double getRearCameraMp() {
+        return rearCameraMp;
+    }
+
+    /**
+     * Độ phân giải lớn nhất trong các camera trước (MP)
+     */
+    public double getFrontCameraMp() {
+        return frontCameraMp;
+    }
+
+    /**
+     * Thời điểm ra mắt dạng yyyyMM (vd: 202301), tháng = 00 nếu chỉ biết năm, 0 nếu không rõ
+     */
+    public int getReleaseYearMonth() {
+        return releaseYearMonth;
+    }
+
+    public boolean has5G() {
+        return has5G;
+    }
+
+    /**
+     * Tên chipset viết thường
+     */
+    public String getChipset() {
+        return chipset;
+    }
+
+    @Override
+    public String toString() {
+        return brand + " [RAM " + ramGb + "GB, ROM " + storageGb + "GB, pin " + batteryMah + "mAh, màn "
+                + screenInches + "\", " + weightGrams + "g, " + refreshHz + "Hz, camera " + rearCameraMp + "/"
+                + frontCameraMp + "MP, ra mắt " + releaseYearMonth + (has5G ? ", 5G" : "") + "]";
+    }
+
+    // ==================== Phân tích chuỗi ====================
+
+    /**
+     * Dung lượng theo GB từ chuỗi như "8 GB", "6GB + Mở rộng 6GB", "1 TB", "64MB"
+     * Lấy số đầu tiên và đơn vị đứng ngay sau nó
+     */
+    static double parseCapacityGb(String text) {
+        int start = indexOfDigit(text, 0);
+        if (start < 0) {
+            return 0;
+        }
+        int end = endOfNumber(text, start);
+        double value = toDouble(text, start, end);
+
+        int unit = skipSpaces(text, end);
+        if (startsWithIgnoreCase(text, unit, "TB")) {
+            return value * 1024;
+        }
+        if (startsWithIgnoreCase(text, unit, "MB")) {
+            return value / 1024;
+        }
+        if (startsWithIgnoreCase(text, unit, "KB")) {
+            return value / (1024 * 1024);
+        }
+        return value;
+    }
+
+    /**
+     * Dung lượng pin từ chuỗi như "Li-Po 6000 mAh, Fast charging 25W", "4.500 mAh"
+     * Ưu tiên số đứng ngay trước "mAh" (dấu chấm/phẩy trong số là phân cách hàng nghìn)
+     */
+    static int parseBatteryMah(String text) {
+        if (text == null) {
+            return 0;
+        }
+
+        int unit = indexOfIgnoreCase(text, "mah");
+        int end = unit;
+        while (end > 0 && text.charAt(end - 1) == ' ') {
+            end--;
+        }
+        int start = end;
+        while (start > 0 && isNumberChar(text.charAt(start - 1))) {
+            start--;
+        }
+
+        boolean withUnit = unit >= 0 && start < end;
+        if (!withUnit) {
+            // Không có đơn vị, lấy số đầu tiên (bỏ qua các số nhỏ như "sạc nhanh 20W", "26 giờ")
+            start = indexOfDigit(text, 0);
+            if (start < 0) {
+                return 0;
+            }
+            end = endOfNumber(text, start);
+        }
+
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                if (value > Integer.MAX_VALUE) {
+                    return 0;
+                }
+            }
+        }
+        return withUnit || value >= MIN_BATTERY_WITHOUT_UNIT ? (int) value : 0;
+    }
+
+    /**
+     * Trọng lượng (gram) từ chuỗi như "245 g (kính) | 239 g (da)", " 176.1 g", "1.2 kg"
+     */
+    static double parseWeightGrams(String text) {
+        int start = indexOfDigit(text, 0);
+        if (start < 0) {
+            return 0;
+        }
+        int end = endOfNumber(text, start);
+        double value = toDouble(text, start, end);
+        return startsWithIgnoreCase(text, skipSpaces(text, end), "kg") ? value * 1000 : value;
+    }
+
+    /**
+     * Độ phân giải lớn nhất (MP) từ chuỗi như "Camera chính: 50 MP, f/1.8", "8MP + 0.3MP"
+     * Chỉ tính các số có đơn vị MP đi kèm
+     */
+    static double parseMaxMegapixels(String text) {
+        if (text == null) {
+            return 0;
+        }
+
+        double max = 0;
+        int start = indexOfDigit(text, 0);
+        while (start >= 0) {
+            int end = endOfNumber(text, start);
+            if (startsWithIgnoreCase(text, skipSpaces(text, end), "MP")) {
+                max = Math.max(max, toDouble(text, start, end));
+            }
+            start = indexOfDigit(text, end);
+        }
+        return max;
+    }
+
+    /**
+     * Thời điểm ra mắt dạng yyyyMM từ chuỗi như "01/2021", "Tháng 1 - năm 2022", "2023"
+     */
+    static int parseReleaseYearMonth(String text) {
+        if (text == null) {
+            return 0;
+        }
+
+        int month = 0;
+        int start = indexOfDigit(text, 0);
+        while (start >= 0) {
+            int end = start;
+            int value = 0;
+            while (end < text.length() && Character.isDigit(text.charAt(end)) && end - start < 5) {
+                value = value * 10 + (text.charAt(end) - '0');
+                end++;
+            }
+
+            if (end - start == 4 && value >= 1990 && value <= 2100) {
+                return value * 100 + month;
+            }
+            if (month == 0 && value >= 1 && value <= 12) {
+                month = value;
+            }
+            start = indexOfDigit(text, end);
+        }
+        return 0;
+    }
+
+    /**
+     * Số (thập phân) đầu tiên trong chuỗi, vd: "6.81 inches" -> 6.81, "Từ 144Hz trở lên" -> 144
+     */
+    static double parseFirstNumber(String text) {
+        int start = indexOfDigit(text, 0);
+        if (start < 0) {
+            return 0;
+        }
+        return toDouble(text, start, endOfNumber(text, start));
+    }
+
+    private static int indexOfDigit(String text, int from) {
+        if (text == null) {
+            return -1;
+        }
+        for (int i = from; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Vị trí kết thúc của số bắt đầu tại start, cho phép một dấu thập phân '.' hoặc ',' có chữ số theo sau
+     */
+    private static int endOfNumber(String text, int start) {
+        int i = start;
+        boolean separatorSeen = false;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                i++;
+            } else if ((c == '.' || c == ',') && !separatorSeen && i + 1 < text.length()
+                    && Character.isDigit(text.charAt(i + 1))) {
+                separatorSeen = true;
+                i++;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static double toDouble(String text, int start, int end) {
+        long digits = 0;
+        long divisor = 1;
+        boolean fraction = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '.' || c == ',') {
+                fraction = true;
+            } else if (digits < Long.MAX_VALUE / 100) {
+                digits = digits * 10 + (c - '0');
+                if (fraction) {
+                    divisor *= 10;
+                }
+            }
+        }
+        return (double) digits / divisor;
+    }
+
+    private static boolean isNumberChar(char c) {
+        return (c >= '0' && c <= '9') || c == '.' || c == ',';
+    }
+
+    private static int skipSpaces(String text, int from) {
+        while (from < text.length() && Character.isWhitespace(text.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static boolean startsWithIgnoreCase(String text, int from, String prefix) {
+        return text.regionMatches(true, from, prefix, 0, prefix.length());
+    }
+
+    private static int indexOfIgnoreCase(String text, String target) {
+        for (int i = 0; i + target.length() <= text.length(); i++) {
+            if (text.regionMatches(true, i, target, 0, target.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -1,8 +1,11 @@
 package com.phonerecommend.repository;
 
 import com.phonerecommend.model.Phone;
+import com.phonerecommend.repository.catalog.AttributeIndex;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -10,7 +13,13 @@ import java.util.stream.Collectors;
  * Triển khai các phương thức chung
  */
 public abstract class AbstractPhoneRepository implements PhoneRepository {
+    private final ViewCountBuffer viewCountBuffer = new ViewCountBuffer(this);
+    // Tên thuộc tính -> chỉ mục phụ đã tạo
+    private final Map<String, AttributeIndex> attributeIndexes = new ConcurrentHashMap<>();
 
+    /**
+     * Tăng lượt xem trong bộ nhớ, lượt xem được gộp và lưu định kỳ bởi ViewCountBuffer
+     */
     @Override
     public boolean updateViewCount(Phone phone) {
         if (phone == null) {
@@ -21,15 +30,94 @@ public abstract class AbstractPhoneRepository implements PhoneRepository {
         Optional<Phone> existingPhone = findPhoneByLink(phone.getLink());
 
         if (existingPhone.isPresent()) {
-            // Tăng lượt xem và lưu lại
-            Phone updatedPhone = existingPhone.get();
-            updatedPhone.incrementViewCount();
-            return savePhone(updatedPhone);
+            viewCountBuffer.record(existingPhone.get());
+            return true;
         }
 
         return false;
     }
 
+    /**
+     * Lưu ngay các lượt xem đang chờ trong bộ đệm
+     * @return Số điện thoại đã lưu
+     */
+    public int flushViewCounts() {
+        return viewCountBuffer.flush();
+    }
+
+    /**
+     * Dừng bộ đệm lượt xem (luồng lưu định kỳ và hook tắt ứng dụng) sau khi lưu nốt lượt xem còn lại
+     */
+    @Override
+    public void close() {
+        viewCountBuffer.close();
+    }
+
+    /**
+     * Tạo chỉ mục phụ trên thuộc tính từ danh mục hiện tại
+     * Nếu thuộc tính đã có chỉ mục cùng cách chuẩn hóa thì giữ nguyên, khác cách chuẩn hóa thì tạo lại
+     */
+    @Override
+    public synchronized void createIndex(String key, AttributeIndex.Normalization normalization) {
+        AttributeIndex existing = attributeIndexes.get(key);
+        if (existing != null && existing.getNormalization() == normalization) {
+            return;
+        }
+        attributeIndexes.put(key, new AttributeIndex(key, normalization, getAllPhones()));
+    }
+
+    /**
+     * Tìm theo chỉ mục nếu thuộc tính đã có chỉ mục, ngược lại quét toàn bộ danh mục
+     */
+    @Override
+    public List<Phone> findByAttribute(String key, String value) {
+        AttributeIndex index = attributeIndexes.get(key);
+        if (index != null) {
+            return index.find(value);
+        }
+        return PhoneRepository.super.findByAttribute(key, value);
+    }
+
+    /**
+     * Tìm theo chỉ mục nếu thuộc tính có chỉ mục cùng cách chuẩn hóa, ngược lại quét toàn bộ danh mục
+     */
+    @Override
+    public List<Phone> findByAttribute(String key, AttributeIndex.Normalization normalization, String value) {
+        AttributeIndex index = attributeIndexes.get(key);
+        if (index != null && index.getNormalization() == normalization) {
+            return index.find(value);
+        }
+        return PhoneRepository.super.findByAttribute(key, normalization, value);
+    }
+
+    /**
+     * Cập nhật các chỉ mục phụ sau khi lưu điện thoại, lớp con gọi sau khi đã lưu vào danh mục
+     */
+    protected void indexPhone(Phone phone) {
+        for (AttributeIndex index : attributeIndexes.values()) {
+            index.put(phone);
+        }
+    }
+
+    /**
+     * Cập nhật các chỉ mục phụ sau khi xóa mọi điện thoại có link cho trước
+     */
+    protected void unindexPhone(String link) {
+        for (AttributeIndex index : attributeIndexes.values()) {
+            index.remove(link);
+        }
+    }
+
+    /**
+     * Tạo lại mọi chỉ mục phụ từ danh mục hiện tại (vd: sau khi tải lại toàn bộ dữ liệu)
+     */
+    protected synchronized void rebuildIndexes() {
+        for (AttributeIndex index : attributeIndexes.values()) {
+            attributeIndexes.put(index.getKey(),
+                    new AttributeIndex(index.getKey(), index.getNormalization(), getAllPhones()));
+        }
+    }
+
     /**
      * Phương thức hỗ trợ để tìm điện thoại theo tiêu chí
      * @param phones Danh sách điện thoại
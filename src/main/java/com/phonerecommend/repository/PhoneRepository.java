@@ -1,8 +1,10 @@
 package com.phonerecommend.repository;
 
 import com.phonerecommend.model.Phone;
+import com.phonerecommend.repository.catalog.AttributeIndex;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * Interface định nghĩa các phương thức để truy cập dữ liệu điện thoại
@@ -42,6 +44,29 @@ public interface PhoneRepository {
      */
     boolean savePhone(Phone phone);
 
+    /**
+     * Lưu nhiều điện thoại (vd: kết quả một lần cào dữ liệu)
+     * @param phones Danh sách điện thoại cần lưu
+     * @return true nếu tất cả đều lưu thành công
+     */
+    default boolean savePhones(List<Phone> phones) {
+        boolean success = true;
+        for (Phone phone : phones) {
+            success &= savePhone(phone);
+        }
+        return success;
+    }
+
+    /**
+     * Lưu lượt xem của các điện thoại đang có trong kho (các trường khác không đổi)
+     * Repository có chỉ mục tìm kiếm có thể giữ nguyên chỉ mục thay vì tạo lại như savePhones
+     * @param phones Điện thoại lấy từ chính repository này
+     * @return true nếu tất cả đều lưu thành công
+     */
+    default boolean saveViewCounts(List<Phone> phones) {
+        return savePhones(phones);
+    }
+
     /**
      * Xóa thông tin điện thoại
      * @param phone Điện thoại cần xóa
@@ -55,4 +80,53 @@ public interface PhoneRepository {
      * @return true nếu thành công, false nếu thất bại
      */
     boolean updateViewCount(Phone phone);
-}
\ No newline at end of file
+
+    /**
+     * Tạo chỉ mục phụ trên một thuộc tính (không phân biệt hoa thường)
+     * @param key Tên thuộc tính trong mô tả (vd: "Chipset") hoặc AttributeIndex.NAME_KEY
+     */
+    default void createIndex(String key) {
+        createIndex(key, AttributeIndex.Normalization.IGNORE_CASE);
+    }
+
+    /**
+     * Tạo chỉ mục phụ trên một thuộc tính với cách chuẩn hóa cho trước
+     * Mặc định không làm gì, findByAttribute sẽ quét toàn bộ danh mục
+     * @param key Tên thuộc tính trong mô tả hoặc AttributeIndex.NAME_KEY
+     * @param normalization Cách chuẩn hóa giá trị
+     */
+    default void createIndex(String key, AttributeIndex.Normalization normalization) {
+    }
+
+    /**
+     * Tìm điện thoại theo giá trị thuộc tính, dùng chỉ mục nếu đã tạo
+     * @param key Tên thuộc tính
+     * @param value Giá trị cần tìm
+     * @return Danh sách điện thoại có thuộc tính khớp giá trị
+     */
+    default List<Phone> findByAttribute(String key, String value) {
+        return findByAttribute(key, AttributeIndex.Normalization.IGNORE_CASE, value);
+    }
+
+    /**
+     * Tìm điện thoại theo giá trị thuộc tính với cách chuẩn hóa cho trước
+     * Chỉ dùng chỉ mục nếu chỉ mục của thuộc tính có cùng cách chuẩn hóa, nên kết quả luôn giống
+     * AttributeIndex.matches trên từng điện thoại
+     * @param key Tên thuộc tính
+     * @param normalization Cách chuẩn hóa khi so khớp
+     * @param value Giá trị cần tìm
+     * @return Danh sách điện thoại có thuộc tính khớp giá trị
+     */
+    default List<Phone> findByAttribute(String key, AttributeIndex.Normalization normalization, String value) {
+        return getAllPhones().stream()
+                .filter(phone -> AttributeIndex.matches(phone, key, normalization, value))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Giải phóng tài nguyên nền (luồng, file đang mở) khi không dùng repository nữa
+     * Mặc định không làm gì
+     */
+    default void close() {
+    }
+}
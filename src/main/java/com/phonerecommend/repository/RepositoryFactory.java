@@ -1,7 +1,16 @@
 package com.phonerecommend.repository;
 
+import com.phonerecommend.model.AttributeValueDictionary;
+import com.phonerecommend.repository.impl.LocalJsonPhoneRepository;
 import com.phonerecommend.repository.impl.LocalJsonPhoneRepositoryWithOrgJson;
 import com.phonerecommend.repository.impl.FirebaseFirestoreRepository;
+import com.phonerecommend.repository.impl.ShardedJsonPhoneRepository;
+import com.phonerecommend.repository.storage.BinaryCatalog;
+import com.phonerecommend.repository.storage.BinaryCatalogWriter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * Factory để tạo các Repository, tuân thủ nguyên tắc Factory Method Pattern
@@ -11,6 +20,7 @@ public class RepositoryFactory {
 
     public enum RepositoryType {
         LOCAL_JSON,
+        SHARDED_JSON,
         FIREBASE_FIRESTORE,
         MONGODB
     }
@@ -20,6 +30,13 @@ public class RepositoryFactory {
 
     // Local JSON config
     private static String localJsonPath = "data/phones.json";
+    private static int loadThreads = 1; // 1 = tải tuần tự, > 1 = tải song song, <= 0 = dùng số nhân CPU
+    private static boolean binarySnapshotEnabled = false; // Dùng snapshot nhị phân .pcat cạnh file JSON
+    private static boolean lazyDescriptions = false; // Chỉ nạp description khi cần
+    private static boolean hotReloadEnabled = false; // Tự tải lại khi file JSON thay đổi
+
+    // Sharded JSON config
+    private static String shardDirectory = "data/shards";
 
     // Firebase config - sử dụng project thực tế của bạn
     private static String firestoreProjectId = "admindashboard-f6703";
@@ -47,7 +64,7 @@ public class RepositoryFactory {
     public static void setRepositoryType(RepositoryType type) {
         if (currentType != type) {
             currentType = type;
-            instance = null; // Reset để tạo mới repository
+            shutdownInstance(); // Reset để tạo mới repository
             System.out.println("Repository type changed to: " + type);
         }
     }
@@ -59,8 +76,65 @@ public class RepositoryFactory {
     public static void setLocalJsonPath(String path) {
         localJsonPath = path;
         if (currentType == RepositoryType.LOCAL_JSON) {
-            instance = null; // Reset nếu đang sử dụng LOCAL_JSON
+            shutdownInstance(); // Reset nếu đang sử dụng LOCAL_JSON
+        }
+    }
+
+    /**
+     * Thiết lập số luồng dùng để tải file JSON (cho LOCAL_JSON và SHARDED_JSON)
+     * @param threads 1 = tải tuần tự, > 1 = tải song song với số luồng này, <= 0 = dùng số nhân CPU
+     */
+    public static void setLoadThreads(int threads) {
+        loadThreads = threads;
+        if (currentType == RepositoryType.LOCAL_JSON || currentType == RepositoryType.SHARDED_JSON) {
+            shutdownInstance(); // Reset để tải lại với cấu hình mới
+        }
+    }
+
+    /**
+     * Lấy số luồng tải dữ liệu đã cấu hình
+     * @return Số luồng
+     */
+    public static int getLoadThreads() {
+        return loadThreads;
+    }
+
+    /**
+     * Lấy thời gian tải dữ liệu của repository hiện tại
+     * @return Số mili giây, hoặc -1 nếu chưa khởi tạo hoặc repository không hỗ trợ
+     */
+    public static long getLastLoadTimeMillis() {
+        if (instance instanceof LocalJsonPhoneRepositoryWithOrgJson) {
+            return ((LocalJsonPhoneRepositoryWithOrgJson) instance).getLoadTimeMillis();
+        }
+        if (instance instanceof LocalJsonPhoneRepository) {
+            return ((LocalJsonPhoneRepository) instance).getLoadTimeMillis();
         }
+        if (instance instanceof ShardedJsonPhoneRepository) {
+            return ((ShardedJsonPhoneRepository) instance).getLoadTimeMillis();
+        }
+        return -1;
+    }
+
+    /**
+     * Thiết lập thư mục chứa các shard (cho SHARDED_JSON)
+     * Nếu thư mục chưa có shard nào, file JSON cấu hình bằng setLocalJsonPath sẽ được tách theo hãng
+     * @param directory Thư mục shard
+     */
+    public static void setShardDirectory(String directory) {
+        shardDirectory = directory;
+        if (currentType == RepositoryType.SHARDED_JSON) {
+            shutdownInstance(); // Reset để tải lại với cấu hình mới
+        }
+    }
+
+    /**
+     * Báo cáo bộ nhớ tiết kiệm được nhờ từ điển giá trị thuộc tính trên danh mục hiện tại
+     * (dùng để ước lượng heap cho danh mục lớn, xem số byte/điện thoại)
+     * @return Chuỗi báo cáo
+     */
+    public static String getValueDictionaryReport() {
+        return AttributeValueDictionary.shared().report(getPhoneRepository().getAllPhones());
     }
 
     /**
@@ -70,7 +144,7 @@ public class RepositoryFactory {
     public static void setFirestoreProjectId(String projectId) {
         firestoreProjectId = projectId;
         if (currentType == RepositoryType.FIREBASE_FIRESTORE) {
-            instance = null; // Reset nếu đang sử dụng FIREBASE_FIRESTORE
+            shutdownInstance(); // Reset nếu đang sử dụng FIREBASE_FIRESTORE
         }
     }
 
@@ -81,7 +155,7 @@ public class RepositoryFactory {
     public static void setMongoDbConnectionString(String connectionString) {
         mongoDbConnectionString = connectionString;
         if (currentType == RepositoryType.MONGODB) {
-            instance = null; // Reset nếu đang sử dụng MONGODB
+            shutdownInstance(); // Reset nếu đang sử dụng MONGODB
         }
     }
 
@@ -93,7 +167,27 @@ public class RepositoryFactory {
             case LOCAL_JSON:
                 System.out.println("=== INITIALIZING LOCAL JSON REPOSITORY ===");
                 System.out.println("File path: " + localJsonPath);
-                instance = new LocalJsonPhoneRepositoryWithOrgJson(localJsonPath);
+                System.out.println("Load threads: " + loadThreads);
+                if (binarySnapshotEnabled) {
+                    instance = createSnapshotRepository();
+                } else {
+                    // Repository có journal, ghi streaming và lưu lượt xem theo lô
+                    instance = new LocalJsonPhoneRepository(localJsonPath, loadThreads, lazyDescriptions);
+                }
+                if (hotReloadEnabled && instance instanceof LocalJsonPhoneRepository) {
+                    try {
+                        ((LocalJsonPhoneRepository) instance).startWatching();
+                    } catch (IOException e) {
+                        System.err.println("Không bật được tự tải lại: " + e.getMessage());
+                    }
+                }
+                break;
+
+            case SHARDED_JSON:
+                System.out.println("=== INITIALIZING SHARDED JSON REPOSITORY ===");
+                System.out.println("Shard directory: " + shardDirectory);
+                System.out.println("Load threads: " + loadThreads);
+                instance = new ShardedJsonPhoneRepository(shardDirectory, localJsonPath, loadThreads);
                 break;
 
             case FIREBASE_FIRESTORE:
@@ -115,14 +209,14 @@ public class RepositoryFactory {
                 System.out.println("MongoDB repository chưa được triển khai");
                 System.out.println("Chuyển về sử dụng Local JSON Repository");
                 currentType = RepositoryType.LOCAL_JSON;
-                instance = new LocalJsonPhoneRepositoryWithOrgJson(localJsonPath);
+                instance = new LocalJsonPhoneRepository(localJsonPath, loadThreads);
                 break;
 
             default:
                 System.err.println("Loại repository không được hỗ trợ: " + currentType);
                 System.out.println("Sử dụng Local JSON Repository mặc định");
                 currentType = RepositoryType.LOCAL_JSON;
-                instance = new LocalJsonPhoneRepositoryWithOrgJson(localJsonPath);
+                instance = new LocalJsonPhoneRepository(localJsonPath, loadThreads);
                 break;
         }
 
@@ -130,6 +224,79 @@ public class RepositoryFactory {
         System.out.println("=========================================");
     }
 
+    /**
+     * Tạo repository từ snapshot nhị phân .pcat
+     * Lần chạy đầu (hoặc khi file JSON đã thay đổi) sẽ parse JSON rồi ghi snapshot mới,
+     * các lần sau chỉ cần memory-map snapshot
+     */
+    private static PhoneRepository createSnapshotRepository() {
+        Path jsonPath = Paths.get(localJsonPath);
+        Path snapshotPath = BinaryCatalog.snapshotPathFor(jsonPath);
+
+        if (BinaryCatalog.isUpToDate(snapshotPath, jsonPath)) {
+            try {
+                System.out.println("Using binary snapshot: " + snapshotPath);
+                return new LocalJsonPhoneRepository(localJsonPath, BinaryCatalog.open(snapshotPath));
+            } catch (IOException e) {
+                System.err.println("Không mở được snapshot, tải lại từ JSON: " + e.getMessage());
+            }
+        }
+
+        LocalJsonPhoneRepository repository = new LocalJsonPhoneRepository(localJsonPath, loadThreads);
+        try {
+            System.out.println("Building binary snapshot: " + snapshotPath);
+            BinaryCatalogWriter.write(repository.getAllPhones(), snapshotPath, jsonPath);
+        } catch (IOException e) {
+            System.err.println("Không ghi được snapshot: " + e.getMessage());
+        }
+        return repository;
+    }
+
+    /**
+     * Bật/tắt snapshot nhị phân .pcat cho LOCAL_JSON
+     * @param enabled true để memory-map snapshot thay vì parse JSON mỗi lần khởi động
+     */
+    public static void setBinarySnapshotEnabled(boolean enabled) {
+        binarySnapshotEnabled = enabled;
+        if (currentType == RepositoryType.LOCAL_JSON) {
+            shutdownInstance(); // Reset để tải lại với cấu hình mới
+        }
+    }
+
+    /**
+     * Bật/tắt chế độ nạp description lazy cho LOCAL_JSON
+     * @param enabled true để chỉ giữ các trường tóm tắt và đọc description từ file khi cần
+     */
+    public static void setLazyDescriptions(boolean enabled) {
+        lazyDescriptions = enabled;
+        if (currentType == RepositoryType.LOCAL_JSON) {
+            shutdownInstance(); // Reset để tải lại với cấu hình mới
+        }
+    }
+
+    /**
+     * Bật/tắt tự tải lại khi file JSON (hoặc snapshot) thay đổi trên đĩa, cho LOCAL_JSON
+     * @param enabled true để theo dõi file và cập nhật danh mục mà không cần khởi động lại
+     */
+    public static void setHotReloadEnabled(boolean enabled) {
+        hotReloadEnabled = enabled;
+        if (currentType == RepositoryType.LOCAL_JSON) {
+            shutdownInstance(); // Reset để tải lại với cấu hình mới
+        }
+    }
+
+    /**
+     * Điểm reset duy nhất: đóng repository hiện tại (theo dõi file, luồng nén journal,
+     * bộ đệm lượt xem) rồi bỏ instance để lần sau tạo mới
+     */
+    private static void shutdownInstance() {
+        PhoneRepository current = instance;
+        instance = null;
+        if (current != null) {
+            current.close();
+        }
+    }
+
     /**
      * Lấy loại repository hiện tại
      * @return RepositoryType hiện tại
@@ -142,7 +309,7 @@ public class RepositoryFactory {
      * Reset factory (để testing hoặc reconfigure)
      */
     public static void reset() {
-        instance = null;
+        shutdownInstance();
         System.out.println("Repository factory reset");
     }
 
@@ -157,6 +324,16 @@ public class RepositoryFactory {
         switch (currentType) {
             case LOCAL_JSON:
                 info.append("JSON File Path: ").append(localJsonPath);
+                info.append("\nLoad threads: ").append(loadThreads);
+                info.append("\nBinary snapshot: ").append(binarySnapshotEnabled);
+                info.append("\nLazy descriptions: ").append(lazyDescriptions);
+                info.append("\nHot reload: ").append(hotReloadEnabled);
+                info.append("\nLoad time: ").append(getLastLoadTimeMillis()).append(" ms");
+                break;
+            case SHARDED_JSON:
+                info.append("Shard directory: ").append(shardDirectory);
+                info.append("\nLoad threads: ").append(loadThreads);
+                info.append("\nLoad time: ").append(getLastLoadTimeMillis()).append(" ms");
                 break;
             case FIREBASE_FIRESTORE:
                 info.append("Firestore Project ID: ").append(firestoreProjectId);
@@ -185,6 +362,10 @@ public class RepositoryFactory {
         setRepositoryType(RepositoryType.LOCAL_JSON);
     }
 
+    public static void useShardedJson() {
+        setRepositoryType(RepositoryType.SHARDED_JSON);
+    }
+
     public static void useFirebase() {
         setRepositoryType(RepositoryType.FIREBASE_FIRESTORE);
     }
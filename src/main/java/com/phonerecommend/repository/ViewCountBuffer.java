@@ -0,0 +1,165 @@
+package com.phonerecommend.repository;
+
+import com.phonerecommend.model.Phone;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bộ đệm lượt xem ghi trễ (write-behind)
+ * Lượt xem được cộng vào bộ đếm trong bộ nhớ, định kỳ (hoặc khi tắt ứng dụng) mới gộp lại
+ * và lưu cả lô bằng một lần saveViewCounts, thay vì ghi xuống kho dữ liệu sau mỗi lượt xem
+ */
+public class ViewCountBuffer {
+    private static final long FLUSH_INTERVAL_SECONDS = 30;
+
+    private final PhoneRepository repository;
+    // Bộ đếm được giữ lại sau khi flush (tối đa một bộ đếm mỗi điện thoại) để không mất lượt xem đang ghi dở
+    private final Map<String, PendingCount> pending = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService flushExecutor;
+    private Thread shutdownHook;
+    private boolean closed;
+
+    /**
+     * Lượt xem chưa lưu của một điện thoại
+     */
+    private static class PendingCount {
+        final String link;
+        final LongAdder views = new LongAdder();
+
+        PendingCount(String link) {
+            this.link = link;
+        }
+    }
+
+    /**
+     * Constructor
+     * @param repository Repository nhận các lượt xem đã gộp
+     */
+    public ViewCountBuffer(PhoneRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Ghi nhận một lượt xem: tăng lượt xem trên đối tượng ngay, việc lưu được hoãn tới lần flush sau
+     * @param phone Điện thoại trong repository
+     */
+    public void record(Phone phone) {
+        phone.incrementViewCount();
+        pending.computeIfAbsent(phone.getLink(), PendingCount::new).views.increment();
+        startFlushing();
+    }
+
+    /**
+     * Số lượt xem chưa được lưu
+     */
+    public long getPendingViews() {
+        long total = 0;
+        for (PendingCount count : pending.values()) {
+            total += count.views.sum();
+        }
+        return total;
+    }
+
+    /**
+     * Lưu các điện thoại có lượt xem mới trong một lần ghi, mỗi điện thoại chỉ một lần
+     * @return Số điện thoại đã lưu
+     */
+    public synchronized int flush() {
+        List<Phone> phones = new ArrayList<>();
+        List<PendingCount> counts = new ArrayList<>();
+        List<Long> views = new ArrayList<>();
+        for (PendingCount count : pending.values()) {
+            long added = count.views.sumThenReset();
+            if (added == 0) {
+                continue;
+            }
+
+            // Điện thoại đã mang lượt xem mới nhất, chỉ cần lưu lại một lần
+            // (lấy lại theo link vì danh mục có thể đã được tải lại từ file)
+            Optional<Phone> phone = repository.findPhoneByLink(count.link);
+            if (phone.isEmpty()) {
+                continue; // Điện thoại đã bị xóa
+            }
+            phones.add(phone.get());
+            counts.add(count);
+            views.add(added);
+        }
+
+        if (phones.isEmpty()) {
+            return 0;
+        }
+        if (!repository.saveViewCounts(phones)) {
+            for (int i = 0; i < counts.size(); i++) {
+                counts.get(i).views.add(views.get(i)); // Giữ lại để thử lần sau
+            }
+            return 0;
+        }
+        return phones.size();
+    }
+
+    /**
+     * Dừng luồng lưu định kỳ, gỡ hook tắt ứng dụng và lưu nốt lượt xem còn lại
+     * Gọi khi repository bị đóng, lượt xem ghi nhận sau đó chỉ được lưu khi gọi flush()
+     */
+    public void close() {
+        ScheduledExecutorService executor;
+        Thread hook;
+        synchronized (this) {
+            closed = true;
+            executor = flushExecutor;
+            hook = shutdownHook;
+            flushExecutor = null;
+            shutdownHook = null;
+        }
+        if (executor != null) {
+            executor.shutdown();
+        }
+        if (hook != null) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(hook);
+            } catch (IllegalStateException e) {
+                // Ứng dụng đang tắt, hook sẽ tự chạy
+            }
+        }
+        flushQuietly();
+    }
+
+    private void startFlushing() {
+        if (flushExecutor != null) {
+            return;
+        }
+
+        synchronized (this) {
+            if (flushExecutor != null || closed) {
+                return;
+            }
+            flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "view-count-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flushExecutor.scheduleWithFixedDelay(this::flushQuietly,
+                    FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+
+            // Lưu nốt lượt xem còn lại khi tắt ứng dụng
+            shutdownHook = new Thread(this::flushQuietly, "view-count-shutdown-flush");
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("Lỗi khi lưu lượt xem: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.phonerecommend.repository.catalog;
+
+import com.phonerecommend.model.Phone;
+import com.phonerecommend.model.PhoneDescription;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+/**
+ * Chỉ mục phụ trên một thuộc tính của điện thoại: giá trị đã chuẩn hóa -> các điện thoại có giá trị đó
+ * Repository tạo chỉ mục theo yêu cầu (createIndex) và cập nhật khi lưu/xóa điện thoại,
+ * tra cứu một giá trị chỉ tốn một lần tra bảng băm thay vì quét toàn bộ danh mục
+ *
+ * Khóa thường là tên thuộc tính trong mô tả (vd: "Chipset", "Hệ điều hành"), riêng NAME_KEY
+ * đánh chỉ mục trên tên điện thoại
+ */
+public final class AttributeIndex {
+    /**
+     * Khóa đặc biệt để đánh chỉ mục trên tên điện thoại thay vì một thuộc tính mô tả
+     */
+    public static final String NAME_KEY = "name";
+
+    /**
+     * Cách chuẩn hóa giá trị trước khi đưa vào chỉ mục (giá trị tra cứu được chuẩn hóa giống hệt)
+     */
+    public enum Normalization {
+        /** Giữ nguyên giá trị, chỉ bỏ khoảng trắng hai đầu */
+        EXACT,
+        /** Không phân biệt hoa thường và số khoảng trắng giữa các từ */
+        IGNORE_CASE,
+        /** Tách thành các từ viết thường, tra cứu khớp khi giá trị chứa mọi từ của chuỗi tra cứu */
+        TOKENS;
+
+        /**
+         * Các khóa chỉ mục của một giá trị
+         * @param value Giá trị gốc
+         * @return Danh sách khóa (rỗng nếu giá trị rỗng)
+         */
+        public List<String> keysOf(String value) {
+            if (value == null) {
+                return Collections.emptyList();
+            }
+            switch (this) {
+                case EXACT:
+                    String trimmed = value.trim();
+                    return trimmed.isEmpty() ? Collections.emptyList() : Collections.singletonList(trimmed);
+                case IGNORE_CASE:
+                    String folded = String.join(" ", tokenize(value, Character::isWhitespace));
+                    return folded.isEmpty() ? Collections.emptyList() : Collections.singletonList(folded);
+                default:
+                    return tokenize(value, c -> !Character.isLetterOrDigit(c));
+            }
+        }
+
+        private static List<String> tokenize(String value, IntPredicate separator) {
+            List<String> tokens = new ArrayList<>();
+            String lower = value.toLowerCase(Locale.ROOT);
+            int start = -1;
+            for (int i = 0; i <= lower.length(); i++) {
+                boolean boundary = i == lower.length() || separator.test(lower.charAt(i));
+                if (boundary) {
+                    if (start >= 0) {
+                        tokens.add(lower.substring(start, i));
+                        start = -1;
+                    }
+                } else if (start < 0) {
+                    start = i;
+                }
+            }
+            return tokens;
+        }
+    }
+
+    private final String key;
+    private final Normalization normalization;
+
+    // Khóa chuẩn hóa -> điện thoại, theo thứ tự đưa vào chỉ mục
+    private final Map<String, Set<Phone>> phonesByKey = new HashMap<>();
+    // Link -> các điện thoại cùng link (dữ liệu có link trùng), dùng khi thay thế/xóa
+    private final Map<String, List<Phone>> phonesByLink = new HashMap<>();
+    // Điện thoại -> các khóa của nó, để gỡ khỏi chỉ mục
+    private final Map<Phone, List<String>> keysByPhone = new IdentityHashMap<>();
+
+    /**
+     * Tạo chỉ mục và đưa vào toàn bộ danh sách điện thoại
+     * @param key Tên thuộc tính (hoặc NAME_KEY)
+     * @param normalization Cách chuẩn hóa giá trị
+     * @param phones Danh mục hiện tại
+     */
+    public AttributeIndex(String key, Normalization normalization, Collection<Phone> phones) {
+        this.key = key;
+        this.normalization = normalization;
+        for (Phone phone : phones) {
+            add(phone);
+        }
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Normalization getNormalization() {
+        return normalization;
+    }
+
+    /**
+     * Giá trị của thuộc tính trên điện thoại
+     */
+    public static String valueOf(Phone phone, String key) {
+        if (NAME_KEY.equals(key)) {
+            return phone.getName();
+        }
+        PhoneDescription description = phone.getDescription();
+        return description != null ? description.getAttribute(key) : null;
+    }
+
+    /**
+     * Kiểm tra điện thoại có khớp giá trị tra cứu không, không cần chỉ mục (dùng khi chưa tạo chỉ mục)
+     */
+    public static boolean matches(Phone phone, String key, Normalization normalization, String value) {
+        List<String> wanted = normalization.keysOf(value);
+        return !wanted.isEmpty() && normalization.keysOf(valueOf(phone, key)).containsAll(wanted);
+    }
+
+    /**
+     * Tìm điện thoại có thuộc tính khớp giá trị
+     * Với TOKENS, điện thoại phải chứa mọi từ của giá trị tra cứu
+     * @param value Giá trị tra cứu (chưa chuẩn hóa)
+     * @return Danh sách điện thoại, theo thứ tự đưa vào chỉ mục
+     */
+    public synchronized List<Phone> find(String value) {
+        List<String> wanted = normalization.keysOf(value);
+        if (wanted.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Bắt đầu từ khóa ít điện thoại nhất rồi kiểm tra các khóa còn lại
+        Set<Phone> smallest = null;
+        for (String wantedKey : wanted) {
+            Set<Phone> phones = phonesByKey.get(wantedKey);
+            if (phones == null) {
+                return new ArrayList<>();
+            }
+            if (smallest == null || phones.size() < smallest.size()) {
+                smallest = phones;
+            }
+        }
+
+        List<Phone> result = new ArrayList<>(smallest.size());
+        for (Phone phone : smallest) {
+            if (wanted.size() == 1 || keysByPhone.get(phone).containsAll(wanted)) {
+                result.add(phone);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Số giá trị khác nhau trong chỉ mục
+     */
+    public synchronized int distinctValues() {
+        return phonesByKey.size();
+    }
+
+    /**
+     * Cập nhật chỉ mục sau khi lưu điện thoại
+     * Thay điện thoại đầu tiên cùng link (giống cách repository lưu), nếu chưa có thì thêm mới
+     */
+    public synchronized void put(Phone phone) {
+        List<Phone> sameLink = phonesByLink.get(phone.getLink());
+        if (sameLink != null && !sameLink.isEmpty()) {
+            // Kể cả khi lưu lại chính object cũ, giá trị có thể đã đổi nên luôn đánh lại chỉ mục
+            removeKeys(sameLink.get(0));
+            sameLink.set(0, phone);
+            addKeys(phone);
+            return;
+        }
+        add(phone);
+    }
+
+    /**
+     * Cập nhật chỉ mục sau khi xóa mọi điện thoại có link cho trước
+     */
+    public synchronized void remove(String link) {
+        List<Phone> sameLink = phonesByLink.remove(link);
+        if (sameLink == null) {
+            return;
+        }
+        for (Phone phone : sameLink) {
+            removeKeys(phone);
+        }
+    }
+
+    private void add(Phone phone) {
+        phonesByLink.computeIfAbsent(phone.getLink(), link -> new ArrayList<>(1)).add(phone);
+        addKeys(phone);
+    }
+
+    private void addKeys(Phone phone) {
+        List<String> keys = normalization.keysOf(valueOf(phone, key));
+        keysByPhone.put(phone, keys);
+        for (String indexKey : keys) {
+            phonesByKey.computeIfAbsent(indexKey, k -> new LinkedHashSet<>()).add(phone);
+        }
+    }
+
+    private void removeKeys(Phone phone) {
+        List<String> keys = keysByPhone.remove(phone);
+        if (keys == null) {
+            return;
+        }
+        for (String indexKey : keys) {
+            Set<Phone> phones = phonesByKey.get(indexKey);
+            if (phones != null) {
+                phones.remove(phone);
+                if (phones.isEmpty()) {
+                    phonesByKey.remove(indexKey);
+                }
+            }
+        }
+    }
+}
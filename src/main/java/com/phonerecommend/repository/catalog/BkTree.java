@@ -0,0 +1,121 @@
+package com.phonerecommend.repository.catalog;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cây BK trên tập từ để tìm các từ gần đúng (khoảng cách Levenshtein không quá ngưỡng)
+ * Mỗi nút con được gắn theo khoảng cách tới nút cha; theo bất đẳng thức tam giác, khi tìm với ngưỡng k
+ * chỉ cần đi vào các con có khoảng cách trong [d - k, d + k] nên số từ phải so sánh nhỏ hơn nhiều
+ * so với duyệt cả từ điển
+ */
+final class BkTree {
+    private final Node root;
+    private final int size;
+
+    /**
+     * Tạo cây từ tập từ (bỏ qua từ trùng)
+     */
+    BkTree(Collection<String> terms) {
+        Node first = null;
+        int count = 0;
+        for (String term : terms) {
+            if (first == null) {
+                first = new Node(term);
+                count++;
+            } else if (insert(first, term)) {
+                count++;
+            }
+        }
+        this.root = first;
+        this.size = count;
+    }
+
+    private static boolean insert(Node root, String term) {
+        Node node = root;
+        while (true) {
+            int distance = distance(node.term, term);
+            if (distance == 0) {
+                return false;
+            }
+            Node child = node.children.get(distance);
+            if (child == null) {
+                node.children.put(distance, new Node(term));
+                return true;
+            }
+            node = child;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Tìm mọi từ có khoảng cách tới query không quá maxDistance
+     * @return Danh sách từ tìm được (không theo thứ tự)
+     */
+    List<String> search(String query, int maxDistance) {
+        List<String> result = new ArrayList<>();
+        if (root == null) {
+            return result;
+        }
+
+        ArrayDeque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int distance = distance(node.term, query);
+            if (distance <= maxDistance) {
+                result.add(node.term);
+            }
+            for (Map.Entry<Integer, Node> child : node.children.entrySet()) {
+                if (Math.abs(child.getKey() - distance) <= maxDistance) {
+                    pending.push(child.getValue());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Khoảng cách Levenshtein (số thao tác thêm/xóa/thay một ký tự)
+     */
+    static int distance(String a, String b) {
+        if (a.length() < b.length()) {
+            String swap = a;
+            a = b;
+            b = swap;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    private static final class Node {
+        private final String term;
+        private final Map<Integer, Node> children = new HashMap<>(4);
+
+        Node(String term) {
+            this.term = term;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.phonerecommend.repository.catalog;
+
+import com.phonerecommend.model.Phone;
+import com.phonerecommend.model.PhoneDescription;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Chỉ mục xếp hạng kết quả tìm kiếm theo BM25F
+ * Mỗi điện thoại gồm 3 trường: tên, "Tính năng camera" và các thuộc tính còn lại. Tần suất của từ trong
+ * từng trường được chuẩn hóa theo độ dài trường đó (tên ngắn không bị lấn bởi mô tả dài) rồi cộng
+ * theo trọng số trường, tên nặng nhất. Điểm của điện thoại là tổng điểm các từ truy vấn nó chứa;
+ * chỉ giữ k kết quả tốt nhất trong một heap giới hạn thay vì sắp xếp mọi điện thoại khớp
+ */
+public final class Bm25Index {
+    // Tham số BM25: k1 điều chỉnh độ bão hòa tần suất, b điều chỉnh mức phạt trường dài
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Các trường và trọng số tương ứng
+    private static final int NAME_FIELD = 0;
+    private static final int CAMERA_FIELD = 1;
+    private static final int ATTRIBUTE_FIELD = 2;
+    private static final double[] FIELD_WEIGHTS = {5.0, 2.0, 1.0};
+    private static final String CAMERA_FEATURES_KEY = "Tính năng camera";
+
+    private final Phone[] phones;
+    private final Map<Phone, Integer> ids;
+    // Từ -> điện thoại chứa từ đó kèm tần suất đã chuẩn hóa và cộng trọng số các trường
+    private final Map<String, Postings> postings;
+
+    /**
+     * Tạo chỉ mục từ danh sách điện thoại, số thứ tự là vị trí trong danh sách
+     * @param source Danh sách điện thoại
+     */
+    public Bm25Index(List<Phone> source) {
+        this.phones = source.toArray(new Phone[0]);
+        this.ids = new IdentityHashMap<>(phones.length * 2);
+
+        int fieldCount = FIELD_WEIGHTS.length;
+        int[][] lengths = new int[fieldCount][phones.length];
+        Map<String, PostingsBuilder> builders = new HashMap<>();
+        Map<String, int[]> frequencies = new HashMap<>();
+        for (int id = 0; id < phones.length; id++) {
+            Phone phone = phones[id];
+            ids.putIfAbsent(phone, id);
+
+            frequencies.clear();
+            int[] phoneLengths = new int[fieldCount];
+            phoneLengths[NAME_FIELD] = addTerms(phone.getName(), NAME_FIELD, frequencies);
+            PhoneDescription description = phone.getDescription();
+            if (description != null) {
+                description.forEachAttribute((key, value) -> {
+                    int field = CAMERA_FEATURES_KEY.equals(key) ? CAMERA_FIELD : ATTRIBUTE_FIELD;
+                    phoneLengths[field] += addTerms(value, field, frequencies);
+                });
+            }
+
+            for (Map.Entry<String, int[]> entry : frequencies.entrySet()) {
+                builders.computeIfAbsent(entry.getKey(), t -> new PostingsBuilder(fieldCount))
+                        .add(id, entry.getValue());
+            }
+            for (int field = 0; field < fieldCount; field++) {
+                lengths[field][id] = phoneLengths[field];
+            }
+        }
+
+        // Hệ số chuẩn hóa độ dài của từng trường, cần độ dài trung bình nên tính sau khi duyệt hết
+        float[][] norms = new float[fieldCount][phones.length];
+        for (int field = 0; field < fieldCount; field++) {
+            double average = Math.max(Arrays.stream(lengths[field]).average().orElse(1), 1);
+            for (int id = 0; id < phones.length; id++) {
+                norms[field][id] = (float) (1 - B + B * lengths[field][id] / average);
+            }
+        }
+
+        this.postings = new HashMap<>(builders.size() * 2);
+        for (Map.Entry<String, PostingsBuilder> entry : builders.entrySet()) {
+            postings.put(entry.getKey(), entry.getValue().build(norms));
+        }
+    }
+
+    /**
+     * Lấy chỉ mục của danh sách lấy từ CatalogSnapshot
+     * Danh sách khác không dùng lại chỉ mục cũ: tần suất từ và độ dài trường được tính lúc tạo,
+     * điện thoại bị sửa tại chỗ sau đó sẽ được chấm điểm trên văn bản cũ
+     * @param phones Danh sách cần tìm
+     * @return Chỉ mục, hoặc null nếu danh sách không thuộc snapshot nào (người gọi tự tạo chỉ mục)
+     */
+    public static Bm25Index forPhones(List<Phone> phones) {
+        CatalogSnapshot owner = CatalogSnapshot.ownerOf(phones);
+        return owner != null ? owner.getBm25Index() : null;
+    }
+
+    /**
+     * Đếm số lần xuất hiện của các từ trong một trường
+     * @return Số từ của trường
+     */
+    private static int addTerms(String text, int field, Map<String, int[]> frequencies) {
+        if (text == null) {
+            return 0;
+        }
+        List<String> tokens = TextTokenizer.tokenize(text);
+        for (String token : tokens) {
+            frequencies.computeIfAbsent(token, t -> new int[FIELD_WEIGHTS.length])[field]++;
+            // Các phần của từ lẫn chữ và số ("5000mah" -> "5000", "mah") như KeywordIndex
+            for (String part : TextTokenizer.splitLettersAndDigits(token)) {
+                frequencies.computeIfAbsent(part, t -> new int[FIELD_WEIGHTS.length])[field]++;
+            }
+        }
+        return tokens.size();
+    }
+
+    /**
+     * Số điện thoại trong chỉ mục
+     */
+    public int size() {
+        return phones.length;
+    }
+
+    /**
+     * Kiểm tra chỉ mục có chứa tất cả điện thoại trong danh sách không
+     */
+    public boolean containsAll(List<Phone> candidates) {
+        if (candidates.size() > phones.length) {
+            return false;
+        }
+        for (Phone phone : candidates) {
+            if (!ids.containsKey(phone)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tìm k điện thoại có điểm BM25 cao nhất với truy vấn
+     * Điện thoại chỉ cần chứa một từ của truy vấn; chứa nhiều từ, từ hiếm hoặc từ nằm trong tên thì điểm cao hơn.
+     * Điểm bằng nhau thì giữ thứ tự trong chỉ mục
+     * @param query Truy vấn (có dấu hoặc không dấu)
+     * @param candidates Chỉ xếp hạng các điện thoại này (phải nằm trong chỉ mục), null nếu xếp hạng cả chỉ mục
+     * @param limit Số kết quả tối đa
+     * @return Danh sách điện thoại theo điểm giảm dần
+     */
+    public List<Phone> topK(String query, List<Phone> candidates, int limit) {
+        List<Phone> result = new ArrayList<>();
+        if (limit <= 0) {
+            return result;
+        }
+
+        BitSet allowed = null;
+        if (candidates != null && candidates.size() < phones.length) {
+            allowed = new BitSet(phones.length);
+            for (Phone phone : candidates) {
+                Integer id = ids.get(phone);
+                if (id != null) {
+                    allowed.set(id);
+                }
+            }
+        }
+
+        // Cộng điểm theo từng từ truy vấn (mỗi từ tính một lần dù lặp lại)
+        double[] scores = null;
+        int[] touched = null;
+        int touchedCount = 0;
+        for (String term : new LinkedHashSet<>(TextTokenizer.tokenize(query))) {
+            Postings list = postings.get(term);
+            if (list == null) {
+                continue;
+            }
+            if (scores == null) {
+                scores = new double[phones.length];
+                touched = new int[phones.length];
+            }
+            double idf = Math.log(1 + (phones.length - list.ids.length + 0.5) / (list.ids.length + 0.5));
+            for (int i = 0; i < list.ids.length; i++) {
+                int id = list.ids[i];
+                if (allowed != null && !allowed.get(id)) {
+                    continue;
+                }
+                double frequency = list.frequencies[i];
+                if (scores[id] == 0) {
+                    touched[touchedCount++] = id;
+                }
+                scores[id] += idf * frequency * (K1 + 1) / (frequency + K1);
+            }
+        }
+        if (scores == null) {
+            return result;
+        }
+
+        // Heap nhỏ nhất giới hạn k phần tử: đỉnh là kết quả kém nhất đang giữ
+        final double[] finalScores = scores;
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Math.min(limit, touchedCount) + 1, (a, b) -> {
+            int byScore = Double.compare(finalScores[a], finalScores[b]);
+            return byScore != 0 ? byScore : Integer.compare(b, a);
+        });
+        for (int i = 0; i < touchedCount; i++) {
+            int id = touched[i];
+            if (heap.size() < limit) {
+                heap.add(id);
+            } else if (heap.comparator().compare(id, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(id);
+            }
+        }
+
+        Phone[] ranked = new Phone[heap.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = phones[heap.poll()];
+        }
+        result.addAll(Arrays.asList(ranked));
+        return result;
+    }
+
+    /**
+     * Danh sách điện thoại chứa một từ kèm tần suất có trọng số
+     */
+    private static final class Postings {
+        private final int[] ids;
+        private final float[] frequencies;
+
+        Postings(int[] ids, float[] frequencies) {
+            this.ids = ids;
+            this.frequencies = frequencies;
+        }
+    }
+
+    /**
+     * Gom tần suất thô theo trường lúc tạo chỉ mục (số thứ tự thêm vào theo thứ tự tăng dần)
+     */
+    private static final class PostingsBuilder {
+        private final int fieldCount;
+        private int[] ids = new int[4];
+        private int[] counts;
+        private int size;
+
+        PostingsBuilder(int fieldCount) {
+            this.fieldCount = fieldCount;
+            this.counts = new int[4 * fieldCount];
+        }
+
+        void add(int id, int[] fieldCounts) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                counts = Arrays.copyOf(counts, size * 2 * fieldCount);
+            }
+            ids[size] = id;
+            System.arraycopy(fieldCounts, 0, counts, size * fieldCount, fieldCount);
+            size++;
+        }
+
+        /**
+         * Tần suất BM25F: tổng theo trường của trọng số * tần suất / hệ số chuẩn hóa độ dài trường
+         */
+        Postings build(float[][] norms) {
+            float[] frequencies = new float[size];
+            for (int i = 0; i < size; i++) {
+                double frequency = 0;
+                for (int field = 0; field < fieldCount; field++) {
+                    int count = counts[i * fieldCount + field];
+                    if (count > 0) {
+                        frequency += FIELD_WEIGHTS[field] * count / norms[field][ids[i]];
+                    }
+                }
+                frequencies[i] = (float) frequency;
+            }
+            return new Postings(Arrays.copyOf(ids, size), frequencies);
+        }
+    }
+}
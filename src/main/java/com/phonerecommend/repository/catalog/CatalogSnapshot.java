@@ -0,0 +1,518 @@
+package com.phonerecommend.repository.catalog;
+
+import com.phonerecommend.model.Phone;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Phiên bản bất biến của danh mục điện thoại
+ * Repository giữ snapshot hiện tại trong một tham chiếu volatile: người đọc lấy snapshot và dùng
+ * danh sách của nó trực tiếp (không sao chép, không khóa), người ghi tạo snapshot mới với version
+ * tăng dần rồi gán thay snapshot cũ (copy-on-write). Người đang đọc snapshot cũ không bị ảnh hưởng
+ *
+ * Tìm theo link/tên dùng chỉ mục băm (link -> vị trí, tên viết thường -> vị trí đầu tiên),
+ * tìm theo từ khóa dùng chỉ mục đảo (theo từ) và chỉ mục trigram (theo chuỗi con) của snapshot
+ *
+ * Snapshot tạo bằng lazy(...) (vd: từ file .pcat đã map) chỉ tạo đối tượng Phone khi vị trí đó được đọc
+ * lần đầu; các snapshot nối tiếp bằng withPut/withPutAll dùng chung nguồn đó vì vị trí cũ không đổi
+ */
+public final class CatalogSnapshot {
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Phone[].class);
+    // Tạo chỉ mục gợi ý ở nền cho snapshot mới; luồng tự dừng khi rảnh
+    private static final ThreadPoolExecutor TYPEAHEAD_BUILDER = newTypeaheadBuilder();
+
+    private final long version;
+    // Phần tử null: chưa tạo, lấy từ lazyPhones (chỉ có ở các vị trí < lazySize)
+    private final Phone[] phones;
+    private final IntFunction<Phone> lazyPhones;
+    private final IntFunction<String> lazyLinks;
+    private final int lazySize;
+    private final PhoneList view;
+    // Link -> vị trí đầu tiên. Dùng chung giữa các snapshot nối tiếp nhau bằng withPut (vị trí cũ
+    // không đổi, link mới được thêm vào cuối) nên mỗi lần lưu chỉ tốn O(1); khi tra cứu phải kiểm tra
+    // lại vị trí thuộc snapshot này và đúng link
+    private final Map<String, Integer> linkIndex;
+    private volatile Map<String, Integer> nameIndex; // Tạo ở lần tìm theo tên đầu tiên
+    private volatile ColumnarCatalog columns;
+    private volatile KeywordIndex keywordIndex;
+    private volatile TrigramIndex trigramIndex;
+    private volatile Bm25Index bm25Index;
+    private volatile TypeaheadIndex typeaheadIndex;
+    // Chỉ mục gợi ý của snapshot trước, trả về tạm trong lúc chỉ mục của snapshot này được tạo ở nền
+    private volatile TypeaheadIndex previousTypeahead;
+    private boolean typeaheadBuilding;
+    private volatile FeatureIndex featureIndex;
+
+    private CatalogSnapshot(long version, Phone[] phones, Map<String, Integer> linkIndex) {
+        this(version, phones, linkIndex, null, null, 0);
+    }
+
+    private CatalogSnapshot(long version, Phone[] phones, Map<String, Integer> linkIndex,
+                            IntFunction<Phone> lazyPhones, IntFunction<String> lazyLinks, int lazySize) {
+        this.version = version;
+        this.phones = phones;
+        this.lazyPhones = lazyPhones;
+        this.lazyLinks = lazyLinks;
+        this.lazySize = lazySize;
+        this.view = new PhoneList();
+        this.linkIndex = linkIndex != null ? linkIndex : buildLinkIndex();
+    }
+
+    /**
+     * Snapshot đầu tiên (version 1) của danh mục
+     * @param phones Danh sách điện thoại (được sao chép)
+     */
+    public static CatalogSnapshot of(List<Phone> phones) {
+        return new CatalogSnapshot(1, phones.toArray(new Phone[0]), null);
+    }
+
+    /**
+     * Snapshot đầu tiên (version 1) mà điện thoại chỉ được tạo khi đọc tới
+     * Chỉ mục link được tạo ngay từ lazyLinks, không cần tạo đối tượng Phone
+     * @param size Số điện thoại
+     * @param phones Điện thoại tại vị trí; gọi nhiều lần cùng vị trí phải trả về cùng một đối tượng
+     * @param links Link của điện thoại tại vị trí
+     */
+    public static CatalogSnapshot lazy(int size, IntFunction<Phone> phones, IntFunction<String> links) {
+        return new CatalogSnapshot(1, new Phone[size], null, phones, links, size);
+    }
+
+    /**
+     * Snapshot kế tiếp với toàn bộ danh sách mới (vd: sau khi tải lại file)
+     * @param phones Danh sách điện thoại (được sao chép)
+     */
+    public CatalogSnapshot next(List<Phone> phones) {
+        return inheritTypeahead(new CatalogSnapshot(version + 1, phones.toArray(new Phone[0]), null));
+    }
+
+    /**
+     * Snapshot kế tiếp sau khi lưu một điện thoại
+     * Thay điện thoại đầu tiên cùng link, nếu chưa có thì thêm vào cuối
+     */
+    public CatalogSnapshot withPut(Phone phone) {
+        int position = positionOfLink(phone.getLink());
+        if (position >= 0) {
+            Phone[] copy = phones.clone();
+            copy[position] = phone;
+            return withFeaturesChanged(successor(copy, linkIndex), new int[]{position});
+        }
+
+        Phone[] copy = Arrays.copyOf(phones, phones.length + 1);
+        copy[phones.length] = phone;
+        Map<String, Integer> index = linkIndex;
+        if (index.putIfAbsent(phone.getLink(), phones.length) != null) {
+            // Link từng có ở snapshot khác cùng chuỗi nhưng không có ở đây (hiếm), tạo chỉ mục riêng
+            index = null;
+        }
+        return withFeaturesChanged(successor(copy, index), new int[]{phones.length});
+    }
+
+    /**
+     * Snapshot kế tiếp sau khi lưu nhiều điện thoại cùng lúc (chỉ sao chép mảng một lần)
+     * Kết quả giống gọi withPut lần lượt cho từng điện thoại
+     */
+    public CatalogSnapshot withPutAll(Collection<Phone> updates) {
+        Phone[] copy = Arrays.copyOf(phones, phones.length + updates.size());
+        int size = phones.length;
+        int[] changed = new int[updates.size()];
+        int changedCount = 0;
+        Map<String, Integer> index = linkIndex;
+        for (Phone phone : updates) {
+            Integer position = phone.getLink() != null ? index.get(phone.getLink()) : null;
+            if (position != null && position < size && phone.getLink().equals(linkAt(copy, position))) {
+                copy[position] = phone;
+                changed[changedCount++] = position;
+                continue;
+            }
+            if (index.putIfAbsent(phone.getLink(), size) != null) {
+                index = new ConcurrentHashMap<>(index);
+                index.put(phone.getLink(), size);
+            }
+            changed[changedCount++] = size;
+            copy[size++] = phone;
+        }
+        CatalogSnapshot next = successor(size == copy.length ? copy : Arrays.copyOf(copy, size), index);
+        return withFeaturesChanged(next, Arrays.copyOf(changed, changedCount));
+    }
+
+    /**
+     * Snapshot kế tiếp sau khi lưu lượt xem của các điện thoại đang nằm trong snapshot này
+     * Vị trí và nội dung tìm kiếm không đổi nên snapshot mới dùng chung mảng và các chỉ mục đã tạo
+     * (từ khóa, trigram, BM25, các cột thông số) thay vì tạo lại ở lần tìm kiếm sau; cột lượt xem
+     * được chụp lại, chỉ mục gợi ý xếp theo lượt xem nên được tạo lại ở nền như sau withPut.
+     * Điện thoại không phải chính đối tượng đang ở vị trí của nó thì xử lý như withPutAll
+     */
+    public CatalogSnapshot withViewCounts(Collection<Phone> updates) {
+        for (Phone phone : updates) {
+            int position = positionOfLink(phone.getLink());
+            if (position < 0 || SLOT.getAcquire(phones, position) != phone) {
+                return withPutAll(updates);
+            }
+        }
+
+        CatalogSnapshot next = successor(phones, linkIndex);
+        next.nameIndex = nameIndex;
+        ColumnarCatalog currentColumns = columns;
+        if (currentColumns != null) {
+            next.columns = currentColumns.withCurrentViewCounts();
+        }
+        next.keywordIndex = keywordIndex;
+        next.trigramIndex = trigramIndex;
+        next.bm25Index = bm25Index;
+        return withFeaturesChanged(next, new int[0]);
+    }
+
+    /**
+     * Snapshot kế tiếp sau khi xóa mọi điện thoại có link cho trước
+     * @return Snapshot mới, hoặc chính snapshot này nếu không có điện thoại nào bị xóa
+     */
+    public CatalogSnapshot withDelete(String link) {
+        return withDeleteAll(Collections.singleton(link));
+    }
+
+    /**
+     * Snapshot kế tiếp sau khi xóa mọi điện thoại có link thuộc tập cho trước (chỉ sao chép mảng một lần)
+     * Kết quả giống gọi withDelete lần lượt cho từng link
+     * @return Snapshot mới, hoặc chính snapshot này nếu không có điện thoại nào bị xóa
+     */
+    public CatalogSnapshot withDeleteAll(Set<String> links) {
+        if (links.isEmpty()) {
+            return this;
+        }
+        Phone[] kept = new Phone[phones.length];
+        BitSet keptPositions = new BitSet(phones.length);
+        int count = 0;
+        for (int i = 0; i < phones.length; i++) {
+            if (!links.contains(linkAt(phones, i))) {
+                // Vị trí dịch chuyển nên không dùng chung nguồn lazy được nữa, tạo điện thoại ngay
+                kept[count++] = phoneAt(i);
+                keptPositions.set(i);
+            }
+        }
+        if (count == phones.length) {
+            return this;
+        }
+        // Vị trí dịch chuyển sau khi xóa, tạo chỉ mục mới; bitmap điều kiện lọc được dồn lại theo vị trí giữ
+        CatalogSnapshot next = inheritTypeahead(new CatalogSnapshot(version + 1, Arrays.copyOf(kept, count), null));
+        FeatureIndex features = featureIndex;
+        if (features != null) {
+            next.featureIndex = features.withRemoved(next, keptPositions);
+        }
+        return next;
+    }
+
+    /**
+     * Snapshot kế tiếp giữ nguyên vị trí cũ, dùng chung nguồn lazy cho các vị trí chưa tạo
+     */
+    private CatalogSnapshot successor(Phone[] copy, Map<String, Integer> index) {
+        return inheritTypeahead(new CatalogSnapshot(version + 1, copy, index, lazyPhones, lazyLinks, lazySize));
+    }
+
+    /**
+     * Cho snapshot kế tiếp dùng tạm chỉ mục gợi ý mới nhất đã có (của snapshot này hoặc snapshot trước nữa)
+     */
+    private CatalogSnapshot inheritTypeahead(CatalogSnapshot next) {
+        TypeaheadIndex current = typeaheadIndex;
+        next.previousTypeahead = current != null ? current : previousTypeahead;
+        return next;
+    }
+
+    /**
+     * Điện thoại tại vị trí, tạo từ nguồn lazy nếu chưa có
+     */
+    private Phone phoneAt(int position) {
+        Phone phone = (Phone) SLOT.getAcquire(phones, position);
+        if (phone == null) {
+            phone = lazyPhones.apply(position);
+            SLOT.setRelease(phones, position, phone);
+        }
+        return phone;
+    }
+
+    /**
+     * Link tại vị trí của một mảng thuộc chuỗi snapshot này, không tạo điện thoại
+     */
+    private String linkAt(Phone[] array, int position) {
+        Phone phone = (Phone) SLOT.getAcquire(array, position);
+        return phone != null ? phone.getLink() : lazyLinks.apply(position);
+    }
+
+    /**
+     * Chuyển bitmap điều kiện lọc đã tính sang snapshot kế tiếp, chỉ tính lại các vị trí thay đổi
+     */
+    private CatalogSnapshot withFeaturesChanged(CatalogSnapshot next, int[] changedPositions) {
+        FeatureIndex features = featureIndex;
+        if (features != null) {
+            next.featureIndex = features.withChanged(next, changedPositions);
+        }
+        return next;
+    }
+
+    /**
+     * Tìm điện thoại đầu tiên có link cho trước, O(1)
+     * @return Điện thoại, hoặc null nếu không có
+     */
+    public Phone findByLink(String link) {
+        int position = positionOfLink(link);
+        return position >= 0 ? phoneAt(position) : null;
+    }
+
+    /**
+     * Tìm điện thoại đầu tiên có tên cho trước (không phân biệt hoa thường), O(1)
+     * @return Điện thoại, hoặc null nếu không có
+     */
+    public Phone findByName(String name) {
+        if (name == null) {
+            return null;
+        }
+        Integer position = getNameIndex().get(foldName(name));
+        return position != null ? phoneAt(position) : null;
+    }
+
+    private int positionOfLink(String link) {
+        if (link == null) {
+            return -1;
+        }
+        Integer position = linkIndex.get(link);
+        if (position == null || position >= phones.length || !link.equals(linkAt(phones, position))) {
+            return -1;
+        }
+        return position;
+    }
+
+    private Map<String, Integer> getNameIndex() {
+        Map<String, Integer> index = nameIndex;
+        if (index == null) {
+            index = new HashMap<>(phones.length * 2);
+            for (int i = 0; i < phones.length; i++) {
+                String name = phoneAt(i).getName();
+                if (name != null) {
+                    index.putIfAbsent(foldName(name), i);
+                }
+            }
+            nameIndex = index;
+        }
+        return index;
+    }
+
+    private Map<String, Integer> buildLinkIndex() {
+        Map<String, Integer> index = new ConcurrentHashMap<>(phones.length * 2);
+        for (int i = 0; i < phones.length; i++) {
+            String link = linkAt(phones, i);
+            if (link != null) {
+                index.putIfAbsent(link, i);
+            }
+        }
+        return index;
+    }
+
+    private static String foldName(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Snapshot sở hữu danh sách, để dùng chung các chỉ mục của snapshot (cùng một cách đánh số thứ tự)
+     * @param phones Danh sách điện thoại
+     * @return Snapshot, hoặc null nếu danh sách không lấy từ snapshot nào
+     */
+    public static CatalogSnapshot ownerOf(List<Phone> phones) {
+        return phones instanceof PhoneList ? ((PhoneList) phones).snapshot() : null;
+    }
+
+    /**
+     * Số phiên bản, tăng sau mỗi lần thay đổi
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Danh sách điện thoại của snapshot (chỉ đọc)
+     */
+    public List<Phone> getPhones() {
+        return view;
+    }
+
+    public int size() {
+        return phones.length;
+    }
+
+    /**
+     * Góc nhìn dạng cột của snapshot, tạo ở lần gọi đầu tiên và dùng chung cho mọi người đọc
+     */
+    public ColumnarCatalog getColumns() {
+        ColumnarCatalog current = columns;
+        if (current == null) {
+            synchronized (this) {
+                current = columns;
+                if (current == null) {
+                    current = new ColumnarCatalog(view);
+                    columns = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Chỉ mục từ khóa của snapshot, tạo ở lần tìm kiếm đầu tiên và dùng chung cho mọi người đọc
+     */
+    public KeywordIndex getKeywordIndex() {
+        KeywordIndex current = keywordIndex;
+        if (current == null) {
+            synchronized (this) {
+                current = keywordIndex;
+                if (current == null) {
+                    current = new KeywordIndex(view);
+                    keywordIndex = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Chỉ mục trigram của snapshot, tạo ở lần tìm kiếm chuỗi con đầu tiên và dùng chung cho mọi người đọc
+     */
+    public TrigramIndex getTrigramIndex() {
+        TrigramIndex current = trigramIndex;
+        if (current == null) {
+            synchronized (this) {
+                current = trigramIndex;
+                if (current == null) {
+                    current = new TrigramIndex(view);
+                    trigramIndex = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Chỉ mục xếp hạng BM25 của snapshot, tạo ở lần tìm kiếm có xếp hạng đầu tiên và dùng chung cho mọi người đọc
+     */
+    public Bm25Index getBm25Index() {
+        Bm25Index current = bm25Index;
+        if (current == null) {
+            synchronized (this) {
+                current = bm25Index;
+                if (current == null) {
+                    current = new Bm25Index(view);
+                    bm25Index = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Bitmap các điều kiện lọc của snapshot; các bitmap được tính ở lần dùng đầu tiên
+     * hoặc kế thừa từ snapshot trước khi lưu/xóa điện thoại
+     */
+    public FeatureIndex getFeatureIndex() {
+        FeatureIndex current = featureIndex;
+        if (current == null) {
+            synchronized (this) {
+                current = featureIndex;
+                if (current == null) {
+                    current = new FeatureIndex(this);
+                    featureIndex = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Chỉ mục gợi ý khi gõ của snapshot, dùng chung cho mọi người đọc (thứ hạng theo lượt xem tại thời điểm tạo)
+     * Snapshot đầu tiên tạo chỉ mục ở lần gợi ý đầu tiên. Snapshot sau khi lưu/xóa/tải lại trả về chỉ mục
+     * của snapshot trước trong lúc chỉ mục mới được tạo ở luồng nền, để gõ phím ngay sau khi lưu không phải
+     * chờ tạo lại chỉ mục; gợi ý có thể thiếu điện thoại vừa thêm hoặc còn điện thoại vừa xóa trong lúc đó
+     */
+    public TypeaheadIndex getTypeaheadIndex() {
+        TypeaheadIndex current = typeaheadIndex;
+        if (current != null) {
+            return current;
+        }
+
+        TypeaheadIndex previous = previousTypeahead;
+        synchronized (this) {
+            current = typeaheadIndex;
+            if (current != null) {
+                return current;
+            }
+            if (previous == null) {
+                current = new TypeaheadIndex(view);
+                typeaheadIndex = current;
+                return current;
+            }
+            if (!typeaheadBuilding) {
+                typeaheadBuilding = true;
+                TYPEAHEAD_BUILDER.execute(this::buildTypeahead);
+            }
+        }
+        return previous;
+    }
+
+    private void buildTypeahead() {
+        try {
+            TypeaheadIndex built = new TypeaheadIndex(view);
+            synchronized (this) {
+                typeaheadIndex = built;
+                previousTypeahead = null;
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Lỗi khi tạo chỉ mục gợi ý: " + e.getMessage());
+            synchronized (this) {
+                typeaheadBuilding = false;
+            }
+        }
+    }
+
+    private static ThreadPoolExecutor newTypeaheadBuilder() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "typeahead-rebuild");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Danh sách chỉ đọc trên mảng của snapshot, biết snapshot của mình để dùng lại catalog dạng cột
+     */
+    final class PhoneList extends AbstractList<Phone> implements RandomAccess {
+        @Override
+        public Phone get(int index) {
+            return phoneAt(index);
+        }
+
+        @Override
+        public int size() {
+            return phones.length;
+        }
+
+        CatalogSnapshot snapshot() {
+            return CatalogSnapshot.this;
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package com.phonerecommend.repository.catalog;
+
+import com.phonerecommend.model.Phone;
+import com.phonerecommend.model.PhoneSpecs;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Góc nhìn dạng cột của danh mục điện thoại
+ * Mỗi điện thoại có một số thứ tự (ordinal) liên tục, các thông số dùng để lọc theo khoảng
+ * được chép ra mảng kiểu nguyên thủy theo ordinal, nên điều kiện như "giá từ 5 đến 10 triệu"
+ * chỉ là một vòng lặp trên mảng và trả về bitmap các ordinal thỏa mãn
+ *
+ * Giá trị trong cột được chụp lúc tạo catalog; điện thoại bị sửa tại chỗ sau đó (vd: lượt xem tăng
+ * trong bộ nhớ) chỉ được phản ánh ở catalog tạo sau lần lưu
+ */
+public final class ColumnarCatalog {
+    // Danh sách không thuộc snapshot nhỏ hơn ngưỡng này thì lọc trực tiếp trên object
+    private static final int MIN_COLUMNAR_SIZE = 32;
+
+    private final Phone[] phones;
+    private final Map<Phone, Integer> ordinals;
+
+    private final double[] price;
+    private final float[] ramGb;
+    private final float[] storageGb;
+    private final int[] batteryMah;
+    private final float[] screenInch;
+    private final float[] weightGrams;
+    private final int[] refreshHz;
+    private final int[] releaseYearMonth;
+    private final int[] viewCount;
+
+    /**
+     * Tạo catalog dạng cột từ danh sách điện thoại, ordinal là vị trí trong danh sách
+     * @param source Danh sách điện thoại
+     */
+    public ColumnarCatalog(List<Phone> source) {
+        int n = source.size();
+        this.phones = source.toArray(new Phone[0]);
+        this.ordinals = new IdentityHashMap<>(n * 2);
+        this.price = new double[n];
+        this.ramGb = new float[n];
+        this.storageGb = new float[n];
+        this.batteryMah = new int[n];
+        this.screenInch = new float[n];
+        this.weightGrams = new float[n];
+        this.refreshHz = new int[n];
+        this.releaseYearMonth = new int[n];
+        this.viewCount = new int[n];
+
+        for (int i = 0; i < n; i++) {
+            Phone phone = phones[i];
+            ordinals.putIfAbsent(phone, i);
+            PhoneSpecs specs = phone.getSpecs();
+            price[i] = phone.getPrice();
+            ramGb[i] = (float) specs.getRamGb();
+            storageGb[i] = (float) specs.getStorageGb();
+            batteryMah[i] = specs.getBatteryMah();
+            screenInch[i] = (float) specs.getScreenInches();
+            weightGrams[i] = (float) specs.getWeightGrams();
+            refreshHz[i] = specs.getRefreshHz();
+            releaseYearMonth[i] = specs.getReleaseYearMonth();
+            viewCount[i] = phone.getViewCount();
+        }
+    }
+
+    private ColumnarCatalog(ColumnarCatalog source, int[] viewCount) {
+        this.phones = source.phones;
+        this.ordinals = source.ordinals;
+        this.price = source.price;
+        this.ramGb = source.ramGb;
+        this.storageGb = source.storageGb;
+        this.batteryMah = source.batteryMah;
+        this.screenInch = source.screenInch;
+        this.weightGrams = source.weightGrams;
+        this.refreshHz = source.refreshHz;
+        this.releaseYearMonth = source.releaseYearMonth;
+        this.viewCount = viewCount;
+    }
+
+    /**
+     * Catalog cùng điện thoại và cùng các cột thông số, chỉ chụp lại cột lượt xem từ các Phone
+     * (dùng khi snapshot kế tiếp chỉ khác ở lượt xem)
+     */
+    ColumnarCatalog withCurrentViewCounts() {
+        int[] current = new int[phones.length];
+        for (int i = 0; i < phones.length; i++) {
+            current[i] = phones[i].getViewCount();
+        }
+        return new ColumnarCatalog(this, current);
+    }
+
+    /**
+     * Lấy catalog dạng cột chứa tất cả điện thoại trong danh sách
+     * Danh sách lấy từ CatalogSnapshot dùng catalog của snapshot đó; danh sách khác (vd: danh sách con
+     * sau khi tìm theo từ khóa) không dùng lại catalog cũ vì giá và lượt xem trong đó có thể đã cũ,
+     * mà tạo catalog mới từ chính danh sách
+     * @param phones Danh sách cần lọc
+     * @return Catalog, hoặc null nếu danh sách quá nhỏ để đáng tạo catalog (lọc trực tiếp trên object)
+     */
+    public static ColumnarCatalog forPhones(List<Phone> phones) {
+        CatalogSnapshot owner = CatalogSnapshot.ownerOf(phones);
+        if (owner != null) {
+            return owner.getColumns();
+        }
+        if (phones.size() < MIN_COLUMNAR_SIZE) {
+            return null;
+        }
+        return new ColumnarCatalog(phones);
+    }
+
+    /**
+     * Số điện thoại trong catalog
+     */
+    public int size() {
+        return phones.length;
+    }
+
+    /**
+     * Điện thoại tại ordinal
+     */
+    public Phone getPhone(int ordinal) {
+        return phones[ordinal];
+    }
+
+    /**
+     * Ordinal của điện thoại (so sánh theo object)
+     * @return Ordinal, -1 nếu không thuộc catalog
+     */
+    public int ordinalOf(Phone phone) {
+        Integer ordinal = ordinals.get(phone);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    /**
+     * Kiểm tra catalog có chứa tất cả điện thoại trong danh sách không
+     */
+    public boolean containsAll(List<Phone> candidates) {
+        if (candidates.size() > phones.length) {
+            return false;
+        }
+        for (Phone phone : candidates) {
+            if (!ordinals.containsKey(phone)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ==================== Quét theo khoảng ====================
+
+    /**
+     * Chọn điện thoại có giá trong khoảng [minPrice, maxPrice]
+     * @param minPrice Giá tối thiểu (nếu < 0 thì không giới hạn)
+     * @param maxPrice Giá tối đa (nếu < 0 thì không giới hạn)
+     * @return Bitmap các ordinal thỏa mãn
+     */
+    public BitSet selectPriceRange(double minPrice, double maxPrice) {
+        return selectRange(price, minPrice < 0 ? Double.NEGATIVE_INFINITY : minPrice,
+                maxPrice < 0 ? Double.POSITIVE_INFINITY : maxPrice);
+    }
+
+    /**
+     * Chọn điện thoại có RAM trong khoảng, chỉ tính điện thoại có thông tin RAM
+     * @param minGb RAM tối thiểu (GB)
+     * @param maxGb RAM tối đa (GB), nếu <= 0 thì không giới hạn
+     */
+    public BitSet selectRamRange(double minGb, double maxGb) {
+        return selectRange(ramGb, (float) Math.max(minGb, Float.MIN_VALUE),
+                maxGb <= 0 ? Float.POSITIVE_INFINITY : (float) maxGb);
+    }
+
+    /**
+     * Chọn điện thoại có bộ nhớ trong từ minGb trở lên
+     */
+    public BitSet selectStorageAtLeast(double minGb) {
+        return selectRange(storageGb, (float) Math.max(minGb, Float.MIN_VALUE), Float.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Chọn điện thoại có dung lượng pin từ minMah trở lên
+     */
+    public BitSet selectBatteryAtLeast(int minMah) {
+        return selectRange(batteryMah, Math.max(minMah, 1), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Chọn điện thoại có màn hình không lớn hơn maxInch (bỏ qua điện thoại không có thông tin)
+     */
+    public BitSet selectScreenAtMost(double maxInch) {
+        return selectRange(screenInch, Float.MIN_VALUE, (float) maxInch);
+    }
+
+    /**
+     * Chọn điện thoại có trọng lượng không quá maxGrams (bỏ qua điện thoại không có thông tin)
+     */
+    public BitSet selectWeightAtMost(double maxGrams) {
+        return selectRange(weightGrams, Float.MIN_VALUE, (float) maxGrams);
+    }
+
+    /**
+     * Chọn điện thoại có tần số quét từ minHz trở lên
+     */
+    public BitSet selectRefreshAtLeast(int minHz) {
+        return selectRange(refreshHz, Math.max(minHz, 1), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Chọn điện thoại ra mắt trong khoảng (dạng yyyyMM, bao gồm hai đầu)
+     */
+    public BitSet selectReleasedBetween(int fromYearMonth, int toYearMonth) {
+        return selectRange(releaseYearMonth, Math.max(fromYearMonth, 1), toYearMonth);
+    }
+
+    /**
+     * Chọn điện thoại có lượt xem (lúc tạo catalog) từ minViews trở lên
+     */
+    public BitSet selectViewCountAtLeast(int minViews) {
+        return selectRange(viewCount, minViews, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Các cột số có thể quét theo khoảng
+     */
+    public enum Column {
+        PRICE, RAM, STORAGE, BATTERY, SCREEN, WEIGHT, REFRESH_RATE, RELEASED, VIEWS
+    }
+
+    /**
+     * Chọn điện thoại có giá trị của cột trong khoảng [min, max]
+     * Với các cột thông số (trừ giá và lượt xem), điện thoại không có thông tin (giá trị 0) không được chọn
+     * @param column Cột cần quét
+     * @param min Giá trị tối thiểu (Double.NEGATIVE_INFINITY nếu không giới hạn)
+     * @param max Giá trị tối đa (Double.POSITIVE_INFINITY nếu không giới hạn)
+     * @return Bitmap các ordinal thỏa mãn
+     */
+    public BitSet select(Column column, double min, double max) {
+        switch (column) {
+            case PRICE:
+                return selectRange(price, min, max);
+            case VIEWS:
+                return selectRange(viewCount, intMin(min), intMax(max));
+            case RAM:
+                return selectRange(ramGb, floatMin(min), floatMax(max));
+            case STORAGE:
+                return selectRange(storageGb, floatMin(min), floatMax(max));
+            case SCREEN:
+                return selectRange(screenInch, floatMin(min), floatMax(max));
+            case WEIGHT:
+                return selectRange(weightGrams, floatMin(min), floatMax(max));
+            case BATTERY:
+                return selectRange(batteryMah, Math.max(intMin(min), 1), intMax(max));
+            case REFRESH_RATE:
+                return selectRange(refreshHz, Math.max(intMin(min), 1), intMax(max));
+            case RELEASED:
+                return selectRange(releaseYearMonth, Math.max(intMin(min), 1), intMax(max));
+            default:
+                throw new IllegalArgumentException("Cột không hỗ trợ: " + column);
+        }
+    }
+
+    // Làm tròn biên vào trong khoảng để so sánh trên cột float/int không lấy thừa giá trị
+    private static float floatMin(double min) {
+        float value = (float) min;
+        if (value < min) {
+            value = Math.nextUp(value);
+        }
+        return Math.max(value, Float.MIN_VALUE);
+    }
+
+    private static float floatMax(double max) {
+        float value = (float) max;
+        return value > max ? Math.nextDown(value) : value;
+    }
+
+    private static int intMin(double min) {
+        return min <= Integer.MIN_VALUE ? Integer.MIN_VALUE : (int) Math.min(Math.ceil(min), Integer.MAX_VALUE);
+    }
+
+    private static int intMax(double max) {
+        return max >= Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) Math.max(Math.floor(max), Integer.MIN_VALUE);
+    }
+
+    // Mỗi vòng trong tính 64 phần tử thành một word, không rẽ nhánh nên JIT có thể vector hóa
+    private static BitSet selectRange(double[] column, double min, double max) {
+        long[] words = new long[(column.length + 63) >>> 6];
+        for (int w = 0; w < words.length; w++) {
+            int base = w << 6;
+            int end = Math.min(base + 64, column.length);
+            long word = 0;
+            for (int i = base; i < end; i++) {
+                double value = column[i];
+                word |= (value >= min & value <= max ? 1L : 0L) << (i - base);
+            }
+            words[w] = word;
+        }
+        return BitSet.valueOf(words);
+    }
+
+    private static BitSet selectRange(float[] column, float min, float max) {
+        long[] words = new long[(column.length + 63) >>> 6];
+        for (int w = 0; w < words.length; w++) {
+            int base = w << 6;
+            int end = Math.min(base + 64, column.length);
+            long word = 0;
+            for (int i = base; i < end; i++) {
+                float value = column[i];
+                word |= (value >= min & value <= max ? 1L : 0L) << (i - base);
+            }
+            words[w] = word;
+        }
+        return BitSet.valueOf(words);
+    }
+
+    private static BitSet selectRange(int[] column, int min, int max) {
+        long[] words = new long[(column.length + 63) >>> 6];
+        for (int w = 0; w < words.length; w++) {
+            int base = w << 6;
+            int end = Math.min(base + 64, column.length);
+            long word = 0;
+            for (int i = base; i < end; i++) {
+                int value = column[i];
+                word |= (value >= min & value <= max ? 1L : 0L) << (i - base);
+            }
+            words[w] = word;
+        }
+        return BitSet.valueOf(words);
+    }
+
+    // ==================== Chuyển đổi bitmap ====================
+
+    /**
+     * Bitmap các ordinal của danh sách điện thoại (điện thoại không thuộc catalog bị bỏ qua)
+     */
+    public BitSet selectionOf(List<Phone> subset) {
+        BitSet selection = new BitSet(phones.length);
+        for (Phone phone : subset) {
+            Integer ordinal = ordinals.get(phone);
+            if (ordinal != null) {
+                selection.set(ordinal);
+            }
+        }
+        return selection;
+    }
+
+    /**
+     * Danh sách điện thoại theo bitmap, theo thứ tự ordinal
+     */
+    public List<Phone> toList(BitSet selection) {
+        List<Phone> result = new ArrayList<>(selection.cardinality());
+        for (int i = selection.nextSetBit(0); i >= 0 && i < phones.length; i = selection.nextSetBit(i + 1)) {
+            result.add(phones[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Giữ lại các điện thoại của danh sách có ordinal nằm trong bitmap, giữ nguyên thứ tự của danh sách
+     * @param candidates Danh sách đầu vào (phải nằm trong catalog)
+     * @param selection Bitmap kết quả quét
+     * @return Danh sách đã lọc
+     */
+    public List<Phone> retain(List<Phone> candidates, BitSet selection) {
+        List<Phone> result = new ArrayList<>(Math.min(candidates.size(), selection.cardinality()));
+        for (Phone phone : candidates) {
+            Integer ordinal = ordinals.get(phone);
+            if (ordinal != null && selection.get(ordinal)) {
+                result.add(phone);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,190 @@
+package com.phonerecommend.repository.catalog;
+
+import com.phonerecommend.model.Phone;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Bitmap cho các điều kiện lọc cố định (tính năng camera, tính năng đặc biệt, loại chipset, hãng,
+ * bộ lọc theo nhu cầu...) trên số thứ tự điện thoại của một snapshot
+ *
+ * Mỗi điều kiện được đăng ký một lần bằng define(khóa, điều kiện). Bitmap của điều kiện được tính
+ * ở lần dùng đầu tiên trên snapshot (một lượt qua danh mục cho mọi điều kiện chưa tính), sau đó khi lưu
+ * hoặc xóa điện thoại, snapshot mới kế thừa bitmap của snapshot cũ và chỉ tính lại các vị trí thay đổi.
+ * Kết hợp nhiều bộ lọc khi đó chỉ là các phép AND/OR trên word 64 bit
+ */
+public final class FeatureIndex {
+    private static final Map<String, Predicate<Phone>> DEFINITIONS = new ConcurrentHashMap<>();
+
+    private final CatalogSnapshot snapshot;
+    private final List<Phone> phones;
+    private final Map<String, BitSet> bitmaps;
+
+    FeatureIndex(CatalogSnapshot snapshot) {
+        this(snapshot, new ConcurrentHashMap<>());
+    }
+
+    private FeatureIndex(CatalogSnapshot snapshot, Map<String, BitSet> bitmaps) {
+        this.snapshot = snapshot;
+        this.phones = snapshot.getPhones();
+        this.bitmaps = bitmaps;
+    }
+
+    /**
+     * Đăng ký điều kiện lọc (lần đăng ký đầu tiên của mỗi khóa được giữ)
+     * Điều kiện chỉ được phụ thuộc vào dữ liệu của điện thoại, không phụ thuộc trạng thái bên ngoài.
+     * Khóa phải thuộc một tập cố định: mỗi khóa được giữ mãi và tính lại ở mọi lần lưu,
+     * điều kiện từ dữ liệu người dùng nhập dùng evaluate()
+     * @param key Khóa duy nhất của điều kiện, vd: "camera:PORTRAIT"
+     * @param predicate Điều kiện
+     * @return Khóa (để gán vào hằng số)
+     */
+    public static String define(String key, Predicate<Phone> predicate) {
+        DEFINITIONS.putIfAbsent(key, predicate);
+        return key;
+    }
+
+    /**
+     * Lấy chỉ mục của danh sách lấy từ CatalogSnapshot
+     * Danh sách khác (vd: kết quả tìm kiếm) không dùng chỉ mục của snapshot nào: bitmap có thể thuộc
+     * snapshot hay repository khác, hoặc đã cũ so với điện thoại bị sửa tại chỗ
+     * @param phones Danh sách cần lọc
+     * @return Chỉ mục, hoặc null nếu danh sách không thuộc snapshot nào (lọc trực tiếp trên object)
+     */
+    public static FeatureIndex forPhones(List<Phone> phones) {
+        CatalogSnapshot owner = CatalogSnapshot.ownerOf(phones);
+        return owner != null ? owner.getFeatureIndex() : null;
+    }
+
+    /**
+     * Catalog dạng cột của cùng snapshot (cùng số thứ tự), cho các điều kiện theo khoảng số
+     */
+    public ColumnarCatalog getColumns() {
+        return snapshot.getColumns();
+    }
+
+    /**
+     * Số điện thoại trong chỉ mục
+     */
+    public int size() {
+        return phones.size();
+    }
+
+    /**
+     * Bitmap các điện thoại thỏa mãn điều kiện
+     * @param key Khóa đã đăng ký bằng define
+     * @return Bản sao bitmap (người gọi được phép sửa)
+     * @throws IllegalArgumentException nếu khóa chưa được đăng ký
+     */
+    public BitSet get(String key) {
+        BitSet bitmap = bitmaps.get(key);
+        if (bitmap == null) {
+            if (!DEFINITIONS.containsKey(key)) {
+                throw new IllegalArgumentException("Điều kiện lọc chưa được đăng ký: " + key);
+            }
+            computeMissing();
+            bitmap = bitmaps.get(key);
+        }
+        return (BitSet) bitmap.clone();
+    }
+
+    /**
+     * Bitmap các điện thoại thỏa mãn một điều kiện không đăng ký (vd: giá trị người dùng nhập),
+     * tính bằng một lượt qua danh mục và không được lưu lại hay kế thừa sang snapshot sau
+     * @param predicate Điều kiện
+     * @return Bitmap mới (người gọi được phép sửa)
+     */
+    public BitSet evaluate(Predicate<Phone> predicate) {
+        BitSet bitmap = new BitSet(phones.size());
+        for (int ordinal = 0; ordinal < phones.size(); ordinal++) {
+            if (predicate.test(phones.get(ordinal))) {
+                bitmap.set(ordinal);
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * Tính bitmap cho mọi điều kiện đã đăng ký mà chưa có, trong một lượt qua danh mục
+     */
+    private synchronized void computeMissing() {
+        Map<String, Predicate<Phone>> missing = new LinkedHashMap<>();
+        for (Map.Entry<String, Predicate<Phone>> definition : DEFINITIONS.entrySet()) {
+            if (!bitmaps.containsKey(definition.getKey())) {
+                missing.put(definition.getKey(), definition.getValue());
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        Map<String, BitSet> computed = new LinkedHashMap<>();
+        for (String key : missing.keySet()) {
+            computed.put(key, new BitSet(phones.size()));
+        }
+        for (int ordinal = 0; ordinal < phones.size(); ordinal++) {
+            Phone phone = phones.get(ordinal);
+            for (Map.Entry<String, Predicate<Phone>> definition : missing.entrySet()) {
+                if (definition.getValue().test(phone)) {
+                    computed.get(definition.getKey()).set(ordinal);
+                }
+            }
+        }
+        bitmaps.putAll(computed);
+    }
+
+    /**
+     * Danh sách điện thoại của danh sách đầu vào có số thứ tự nằm trong bitmap, giữ nguyên thứ tự
+     */
+    public List<Phone> retain(List<Phone> candidates, BitSet selection) {
+        return getColumns().retain(candidates, selection);
+    }
+
+    // ==================== Cập nhật theo snapshot ====================
+
+    /**
+     * Chỉ mục cho snapshot kế tiếp khi một số vị trí được thay thế hoặc thêm vào cuối
+     * (vị trí cũ không đổi): chép bitmap đã tính và chỉ tính lại các vị trí thay đổi
+     */
+    FeatureIndex withChanged(CatalogSnapshot next, int[] changedPositions) {
+        List<Phone> nextPhones = next.getPhones();
+        Map<String, BitSet> nextBitmaps = new ConcurrentHashMap<>();
+        for (Map.Entry<String, BitSet> entry : bitmaps.entrySet()) {
+            Predicate<Phone> predicate = DEFINITIONS.get(entry.getKey());
+            BitSet bitmap = (BitSet) entry.getValue().clone();
+            for (int position : changedPositions) {
+                bitmap.set(position, predicate.test(nextPhones.get(position)));
+            }
+            nextBitmaps.put(entry.getKey(), bitmap);
+        }
+        return new FeatureIndex(next, nextBitmaps);
+    }
+
+    /**
+     * Chỉ mục cho snapshot kế tiếp sau khi xóa: dồn bitmap theo các vị trí được giữ lại,
+     * không cần đánh giá lại điều kiện
+     * @param keptPositions Các vị trí (trong snapshot này) được giữ lại, theo thứ tự
+     */
+    FeatureIndex withRemoved(CatalogSnapshot next, BitSet keptPositions) {
+        Map<String, BitSet> nextBitmaps = new ConcurrentHashMap<>();
+        for (Map.Entry<String, BitSet> entry : bitmaps.entrySet()) {
+            BitSet source = entry.getValue();
+            BitSet bitmap = new BitSet(next.size());
+            int target = 0;
+            for (int position = keptPositions.nextSetBit(0); position >= 0;
+                 position = keptPositions.nextSetBit(position + 1)) {
+                if (source.get(position)) {
+                    bitmap.set(target);
+                }
+                target++;
+            }
+            nextBitmaps.put(entry.getKey(), bitmap);
+        }
+        return new FeatureIndex(next, nextBitmaps);
+    }
+}
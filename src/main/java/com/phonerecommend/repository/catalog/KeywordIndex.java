@@ -0,0 +1,496 @@
+package com.phonerecommend.repository.catalog;
+
+import com.phonerecommend.model.Phone;
+import com.phonerecommend.model.PhoneDescription;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Chỉ mục đảo cho tìm kiếm theo từ khóa
+ * Tên và các giá trị mô tả được tách từ và bỏ dấu (TextTokenizer), mỗi từ giữ danh sách các số thứ tự
+ * điện thoại chứa nó (posting list, mảng int tăng dần). Truy vấn nhiều từ là giao các posting list,
+ * từ cuối cùng được so theo tiền tố để kết quả đúng ngay khi người dùng đang gõ dở ("pro ma" -> "pro max")
+ *
+ * Từ lẫn chữ và số ("5000mah", "a18") được đánh chỉ mục cả nguyên từ lẫn từng phần ("5000", "mah")
+ *
+ * Tìm gần đúng theo tên (gõ sai chính tả: "samsng", "iphon") dùng cây BK trên các từ của tên,
+ * chỉ tạo khi cần lần đầu
+ */
+public final class KeywordIndex {
+    // Từ ngắn hơn thì không tìm gần đúng (sai một ký tự đã thành từ khác), từ dài từ mức sau cho sai 2 ký tự
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int TWO_EDITS_LENGTH = 7;
+
+    private final Phone[] phones;
+    private final Map<Phone, Integer> ids;
+    // Từ -> điện thoại có từ đó trong tên hoặc mô tả
+    private final Map<String, int[]> postings;
+    // Từ -> điện thoại có từ đó trong tên
+    private final Map<String, int[]> namePostings;
+    // Các từ đã sắp xếp, dùng để tìm theo tiền tố
+    private final String[] terms;
+    private final String[] nameTerms;
+    private volatile BkTree nameTermTree;
+
+    /**
+     * Tạo chỉ mục từ danh sách điện thoại, số thứ tự là vị trí trong danh sách
+     * @param source Danh sách điện thoại
+     */
+    public KeywordIndex(List<Phone> source) {
+        this.phones = source.toArray(new Phone[0]);
+        this.ids = new IdentityHashMap<>(phones.length * 2);
+
+        Map<String, PostingLists.Builder> all = new HashMap<>();
+        Map<String, PostingLists.Builder> names = new HashMap<>();
+        Set<String> phoneTerms = new HashSet<>();
+        Set<String> phoneNameTerms = new HashSet<>();
+        for (int id = 0; id < phones.length; id++) {
+            Phone phone = phones[id];
+            ids.putIfAbsent(phone, id);
+
+            collectTerms(phone, phoneTerms, phoneNameTerms);
+            for (String term : phoneTerms) {
+                all.computeIfAbsent(term, t -> new PostingLists.Builder()).add(id);
+            }
+            for (String term : phoneNameTerms) {
+                names.computeIfAbsent(term, t -> new PostingLists.Builder()).add(id);
+            }
+        }
+
+        this.postings = freeze(all);
+        this.namePostings = freeze(names);
+        this.terms = sortedTerms(postings);
+        this.nameTerms = sortedTerms(namePostings);
+    }
+
+    private KeywordIndex(Phone[] phones, Map<String, int[]> postings, Map<String, int[]> namePostings,
+                         String[] terms, String[] nameTerms, BkTree nameTermTree) {
+        this.phones = phones;
+        this.ids = new IdentityHashMap<>(phones.length * 2);
+        for (int id = 0; id < phones.length; id++) {
+            ids.putIfAbsent(phones[id], id);
+        }
+        this.postings = postings;
+        this.namePostings = namePostings;
+        this.terms = terms;
+        this.nameTerms = nameTerms;
+        this.nameTermTree = nameTermTree;
+    }
+
+    /**
+     * Lấy chỉ mục của danh sách lấy từ CatalogSnapshot
+     * Danh sách khác (vd: kết quả đã lọc) không dùng lại chỉ mục cũ: từ của chỉ mục cũ được tách lúc tạo,
+     * điện thoại bị sửa tại chỗ sau đó sẽ bị tìm trên văn bản cũ
+     * @param phones Danh sách cần tìm
+     * @return Chỉ mục, hoặc null nếu danh sách không thuộc snapshot nào (người gọi tự tạo chỉ mục)
+     */
+    public static KeywordIndex forPhones(List<Phone> phones) {
+        CatalogSnapshot owner = CatalogSnapshot.ownerOf(phones);
+        return owner != null ? owner.getKeywordIndex() : null;
+    }
+
+    /**
+     * Chỉ mục sau khi lưu các điện thoại: điện thoại cùng link được thay tại chỗ (giữ số thứ tự),
+     * link mới được thêm vào cuối. Chỉ tách từ các điện thoại đã lưu và tạo lại các posting list có chứa
+     * chúng, thay vì tạo lại chỉ mục cho cả danh mục
+     * @param updates Các điện thoại đã lưu (đánh chỉ mục theo văn bản hiện tại)
+     * @return Chỉ mục mới (chỉ mục này không đổi)
+     */
+    public KeywordIndex withPut(Collection<Phone> updates) {
+        Map<String, Integer> idByLink = new HashMap<>(phones.length * 2);
+        for (int id = 0; id < phones.length; id++) {
+            idByLink.putIfAbsent(phones[id].getLink(), id);
+        }
+
+        Phone[] nextPhones = Arrays.copyOf(phones, phones.length + updates.size());
+        int size = phones.length;
+        Map<Integer, Phone> changed = new TreeMap<>();
+        for (Phone phone : updates) {
+            Integer id = idByLink.get(phone.getLink());
+            if (id == null) {
+                id = size++;
+                idByLink.put(phone.getLink(), id);
+            }
+            nextPhones[id] = phone;
+            changed.put(id, phone);
+        }
+        if (size < nextPhones.length) {
+            nextPhones = Arrays.copyOf(nextPhones, size);
+        }
+
+        // Từ của các điện thoại đã lưu, theo số thứ tự tăng dần
+        int[] changedIds = new int[changed.size()];
+        Map<String, PostingLists.Builder> addedTerms = new HashMap<>();
+        Map<String, PostingLists.Builder> addedNameTerms = new HashMap<>();
+        Set<String> phoneTerms = new HashSet<>();
+        Set<String> phoneNameTerms = new HashSet<>();
+        int count = 0;
+        for (Map.Entry<Integer, Phone> entry : changed.entrySet()) {
+            int id = entry.getKey();
+            changedIds[count++] = id;
+            collectTerms(entry.getValue(), phoneTerms, phoneNameTerms);
+            for (String term : phoneTerms) {
+                addedTerms.computeIfAbsent(term, t -> new PostingLists.Builder()).add(id);
+            }
+            for (String term : phoneNameTerms) {
+                addedNameTerms.computeIfAbsent(term, t -> new PostingLists.Builder()).add(id);
+            }
+        }
+
+        Map<String, int[]> nextPostings = replacePostings(postings, changedIds, addedTerms);
+        Map<String, int[]> nextNamePostings = replacePostings(namePostings, changedIds, addedNameTerms);
+        // Tập từ không đổi (trường hợp thường gặp, vd: lưu lượt xem) thì dùng lại mảng từ và cây BK
+        boolean sameTerms = sameKeys(postings, nextPostings, addedTerms);
+        boolean sameNameTerms = sameKeys(namePostings, nextNamePostings, addedNameTerms);
+        return new KeywordIndex(nextPhones, nextPostings, nextNamePostings,
+                sameTerms ? terms : sortedTerms(nextPostings),
+                sameNameTerms ? nameTerms : sortedTerms(nextNamePostings),
+                sameNameTerms ? nameTermTree : null);
+    }
+
+    /**
+     * Posting list sau khi thay các số thứ tự thay đổi: bỏ chúng khỏi mọi danh sách cũ rồi thêm lại
+     * vào danh sách của các từ mới; từ không còn điện thoại nào bị bỏ khỏi chỉ mục
+     */
+    private static Map<String, int[]> replacePostings(Map<String, int[]> source, int[] changedIds,
+                                                      Map<String, PostingLists.Builder> added) {
+        Map<String, int[]> result = new HashMap<>(source);
+        for (Map.Entry<String, int[]> entry : source.entrySet()) {
+            if (!added.containsKey(entry.getKey()) && containsAny(entry.getValue(), changedIds)) {
+                int[] kept = replaceIds(entry.getValue(), changedIds, PostingLists.EMPTY);
+                if (kept.length == 0) {
+                    result.remove(entry.getKey());
+                } else {
+                    result.put(entry.getKey(), kept);
+                }
+            }
+        }
+        for (Map.Entry<String, PostingLists.Builder> entry : added.entrySet()) {
+            int[] previous = source.getOrDefault(entry.getKey(), PostingLists.EMPTY);
+            result.put(entry.getKey(), replaceIds(previous, changedIds, entry.getValue().toArray()));
+        }
+        return result;
+    }
+
+    private static boolean containsAny(int[] list, int[] sortedIds) {
+        for (int id : sortedIds) {
+            if (Arrays.binarySearch(list, id) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Trộn danh sách đã bỏ các số thứ tự thay đổi với các số thứ tự thêm vào (cả hai tăng dần)
+    private static int[] replaceIds(int[] list, int[] changedIds, int[] addedIds) {
+        int[] result = new int[list.length + addedIds.length];
+        int size = 0;
+        int next = 0;
+        for (int id : list) {
+            if (Arrays.binarySearch(changedIds, id) >= 0) {
+                continue;
+            }
+            while (next < addedIds.length && addedIds[next] < id) {
+                result[size++] = addedIds[next++];
+            }
+            result[size++] = id;
+        }
+        while (next < addedIds.length) {
+            result[size++] = addedIds[next++];
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    private static boolean sameKeys(Map<String, int[]> before, Map<String, int[]> after,
+                                    Map<String, PostingLists.Builder> added) {
+        return before.size() == after.size() && before.keySet().containsAll(added.keySet());
+    }
+
+    /**
+     * Các từ của một điện thoại: từ của tên, và từ của tên cùng mọi giá trị mô tả
+     */
+    private static void collectTerms(Phone phone, Set<String> phoneTerms, Set<String> phoneNameTerms) {
+        phoneTerms.clear();
+        phoneNameTerms.clear();
+        addTerms(phone.getName(), phoneNameTerms);
+        phoneTerms.addAll(phoneNameTerms);
+        PhoneDescription description = phone.getDescription();
+        if (description != null) {
+            description.forEachAttribute((key, value) -> addTerms(value, phoneTerms));
+        }
+    }
+
+    private static void addTerms(String text, Set<String> target) {
+        if (text == null) {
+            return;
+        }
+        for (String token : TextTokenizer.tokenize(text)) {
+            target.add(token);
+            target.addAll(TextTokenizer.splitLettersAndDigits(token));
+        }
+    }
+
+    private static Map<String, int[]> freeze(Map<String, PostingLists.Builder> builders) {
+        Map<String, int[]> frozen = new HashMap<>(builders.size() * 2);
+        for (Map.Entry<String, PostingLists.Builder> entry : builders.entrySet()) {
+            frozen.put(entry.getKey(), entry.getValue().toArray());
+        }
+        return frozen;
+    }
+
+    private static String[] sortedTerms(Map<String, int[]> postings) {
+        String[] sorted = postings.keySet().toArray(new String[0]);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Số điện thoại trong chỉ mục
+     */
+    public int size() {
+        return phones.length;
+    }
+
+    /**
+     * Số từ khác nhau trong chỉ mục
+     */
+    public int termCount() {
+        return terms.length;
+    }
+
+    /**
+     * Kiểm tra chỉ mục có chứa tất cả điện thoại trong danh sách không
+     */
+    public boolean containsAll(List<Phone> candidates) {
+        if (candidates.size() > phones.length) {
+            return false;
+        }
+        for (Phone phone : candidates) {
+            if (!ids.containsKey(phone)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ==================== Truy vấn ====================
+
+    /**
+     * Tìm điện thoại có tên hoặc mô tả chứa mọi từ của truy vấn (từ cuối so theo tiền tố)
+     * @param query Truy vấn (có dấu hoặc không dấu)
+     * @return Số thứ tự các điện thoại thỏa mãn, tăng dần
+     */
+    public int[] search(String query) {
+        return search(query, postings, terms, null);
+    }
+
+    /**
+     * Tìm điện thoại có tên chứa mọi từ của truy vấn (từ cuối so theo tiền tố)
+     * @param query Truy vấn (có dấu hoặc không dấu)
+     * @return Số thứ tự các điện thoại thỏa mãn, tăng dần
+     */
+    public int[] searchNames(String query) {
+        return search(query, namePostings, nameTerms, null);
+    }
+
+    /**
+     * Giống searchNames nhưng từ nào không khớp thì thay bằng các từ trong tên cách nó 1-2 ký tự
+     * (ưu tiên các từ gần nhất), dùng khi tìm chính xác không có kết quả
+     * @param query Truy vấn (có thể gõ sai chính tả)
+     * @return Số thứ tự các điện thoại thỏa mãn, tăng dần
+     */
+    public int[] searchNamesFuzzy(String query) {
+        return search(query, namePostings, nameTerms, getNameTermTree());
+    }
+
+    /**
+     * Tìm theo tên, nếu không có kết quả thì tìm gần đúng
+     * @param query Truy vấn
+     * @return Số thứ tự các điện thoại thỏa mãn, tăng dần
+     */
+    public int[] searchNamesOrSimilar(String query) {
+        int[] exact = searchNames(query);
+        return exact.length > 0 ? exact : searchNamesFuzzy(query);
+    }
+
+    private BkTree getNameTermTree() {
+        BkTree tree = nameTermTree;
+        if (tree == null) {
+            synchronized (this) {
+                tree = nameTermTree;
+                if (tree == null) {
+                    List<String> fuzzyTerms = new ArrayList<>();
+                    for (String term : nameTerms) {
+                        if (maxEditsFor(term) > 0) {
+                            fuzzyTerms.add(term);
+                        }
+                    }
+                    tree = new BkTree(fuzzyTerms);
+                    nameTermTree = tree;
+                }
+            }
+        }
+        return tree;
+    }
+
+    /**
+     * Số ký tự được phép sai với một từ: 0 với từ ngắn hoặc chỉ gồm số (số model như "15", "s24")
+     */
+    private static int maxEditsFor(String token) {
+        if (token.length() < MIN_FUZZY_LENGTH || token.chars().noneMatch(Character::isLetter)) {
+            return 0;
+        }
+        return token.length() < TWO_EDITS_LENGTH ? 1 : 2;
+    }
+
+    private static int[] search(String query, Map<String, int[]> postings, String[] terms, BkTree fuzzyTree) {
+        List<String> tokens = TextTokenizer.tokenize(query);
+        if (tokens.isEmpty()) {
+            return PostingLists.EMPTY;
+        }
+
+        List<int[]> lists = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            int[] ids = i == tokens.size() - 1
+                    ? prefixPostings(token, postings, terms)
+                    : termPostings(token, postings);
+            if (ids.length == 0 && fuzzyTree != null) {
+                ids = fuzzyPostings(token, postings, fuzzyTree);
+            }
+            if (ids.length == 0) {
+                return PostingLists.EMPTY;
+            }
+            lists.add(ids);
+        }
+
+        // Giao từ danh sách ngắn nhất để kết quả trung gian luôn nhỏ
+        lists.sort(Comparator.comparingInt(ids -> ids.length));
+        int[] result = lists.get(0);
+        if (lists.size() == 1) {
+            return result.clone(); // Không trả ra mảng của chỉ mục
+        }
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = PostingLists.intersect(result, lists.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Posting list của một từ; từ lẫn chữ và số không có trong chỉ mục thì giao các phần của nó
+     * (truy vấn "5000mah" vẫn khớp mô tả "5000 mAh")
+     */
+    private static int[] termPostings(String token, Map<String, int[]> postings) {
+        int[] ids = postings.get(token);
+        if (ids != null) {
+            return ids;
+        }
+        List<String> parts = TextTokenizer.splitLettersAndDigits(token);
+        if (parts.isEmpty()) {
+            return PostingLists.EMPTY;
+        }
+        int[] result = null;
+        for (String part : parts) {
+            int[] partIds = postings.get(part);
+            if (partIds == null) {
+                return PostingLists.EMPTY;
+            }
+            result = result == null ? partIds : PostingLists.intersect(result, partIds);
+        }
+        return result;
+    }
+
+    /**
+     * Hợp các posting list của các từ gần đúng nhất với token (thử sai 1 ký tự trước rồi mới tới 2)
+     */
+    private static int[] fuzzyPostings(String token, Map<String, int[]> postings, BkTree tree) {
+        int maxEdits = maxEditsFor(token);
+        for (int edits = 1; edits <= maxEdits; edits++) {
+            List<String> matches = tree.search(token, edits);
+            if (matches.isEmpty()) {
+                continue;
+            }
+            BitSet union = new BitSet();
+            for (String match : matches) {
+                for (int id : postings.get(match)) {
+                    union.set(id);
+                }
+            }
+            return union.stream().toArray();
+        }
+        return PostingLists.EMPTY;
+    }
+
+    /**
+     * Hợp các posting list của mọi từ bắt đầu bằng tiền tố
+     */
+    private static int[] prefixPostings(String prefix, Map<String, int[]> postings, String[] terms) {
+        int from = Arrays.binarySearch(terms, prefix);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        int to = from;
+        while (to < terms.length && terms[to].startsWith(prefix)) {
+            to++;
+        }
+
+        if (to == from) {
+            return termPostings(prefix, postings);
+        }
+        if (to == from + 1) {
+            return postings.get(terms[from]);
+        }
+        BitSet union = new BitSet();
+        for (int i = from; i < to; i++) {
+            for (int id : postings.get(terms[i])) {
+                union.set(id);
+            }
+        }
+        return union.stream().toArray();
+    }
+
+    // ==================== Chuyển đổi kết quả ====================
+
+    /**
+     * Danh sách điện thoại theo số thứ tự
+     */
+    public List<Phone> toList(int[] selected) {
+        List<Phone> result = new ArrayList<>(selected.length);
+        for (int id : selected) {
+            result.add(phones[id]);
+        }
+        return result;
+    }
+
+    /**
+     * Giữ lại các điện thoại của danh sách có số thứ tự nằm trong kết quả, giữ nguyên thứ tự của danh sách
+     * @param candidates Danh sách đầu vào (phải nằm trong chỉ mục)
+     * @param selected Kết quả truy vấn
+     * @return Danh sách đã lọc
+     */
+    public List<Phone> retain(List<Phone> candidates, int[] selected) {
+        BitSet selection = new BitSet(phones.length);
+        for (int id : selected) {
+            selection.set(id);
+        }
+        List<Phone> result = new ArrayList<>(Math.min(candidates.size(), selected.length));
+        for (Phone phone : candidates) {
+            Integer id = ids.get(phone);
+            if (id != null && selection.get(id)) {
+                result.add(phone);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,57 @@
+package com.phonerecommend.repository.catalog;
+
+import java.util.Arrays;
+
+/**
+ * Tiện ích cho posting list (mảng số thứ tự điện thoại tăng dần) dùng chung giữa các chỉ mục
+ */
+final class PostingLists {
+    static final int[] EMPTY = new int[0];
+
+    private PostingLists() {
+    }
+
+    /**
+     * Giao hai mảng tăng dần
+     */
+    static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                result[count++] = a[i];
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Mảng int tự mở rộng để gom posting list lúc tạo chỉ mục (số thứ tự thêm vào theo thứ tự tăng dần)
+     */
+    static final class Builder {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] == id) {
+                return; // Cùng điện thoại thêm nhiều lần
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
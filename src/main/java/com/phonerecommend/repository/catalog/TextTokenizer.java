@@ -0,0 +1,95 @@
+package com.phonerecommend.repository.catalog;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Chuẩn hóa và tách từ cho các chỉ mục tìm kiếm
+ * Văn bản được chuyển về chữ thường và bỏ dấu tiếng Việt ("chống rung" -> "chong rung", "đ" -> "d")
+ * để người dùng gõ có dấu hay không dấu đều tìm được
+ */
+public final class TextTokenizer {
+
+    private TextTokenizer() {
+    }
+
+    /**
+     * Chuyển về chữ thường và bỏ dấu
+     * @param text Văn bản gốc
+     * @return Văn bản đã chuẩn hóa (chuỗi rỗng nếu null)
+     */
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        if (isAscii(lower)) {
+            return lower;
+        }
+
+        String decomposed = Normalizer.normalize(lower, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            folded.append(c == 'đ' ? 'd' : c);
+        }
+        return folded.toString();
+    }
+
+    /**
+     * Tách văn bản thành các từ đã chuẩn hóa (ngăn cách bởi ký tự không phải chữ/số)
+     * @param text Văn bản gốc
+     * @return Danh sách từ theo thứ tự xuất hiện
+     */
+    public static List<String> tokenize(String text) {
+        String folded = fold(text);
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            if (i == folded.length() || !Character.isLetterOrDigit(folded.charAt(i))) {
+                if (start >= 0) {
+                    tokens.add(folded.substring(start, i));
+                    start = -1;
+                }
+            } else if (start < 0) {
+                start = i;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Tách một từ lẫn chữ và số thành các phần chỉ gồm chữ hoặc chỉ gồm số ("5000mah" -> "5000", "mah")
+     * @param token Từ đã chuẩn hóa
+     * @return Các phần, hoặc danh sách rỗng nếu từ không lẫn chữ và số
+     */
+    public static List<String> splitLettersAndDigits(String token) {
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= token.length(); i++) {
+            if (i == token.length()
+                    || Character.isDigit(token.charAt(i)) != Character.isDigit(token.charAt(i - 1))) {
+                parts.add(token.substring(start, i));
+                start = i;
+            }
+        }
+        if (parts.size() < 2) {
+            parts.clear();
+        }
+        return parts;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,200 @@
+package com.phonerecommend.repository.catalog;
+
+import com.phonerecommend.model.Phone;
+import com.phonerecommend.model.PhoneDescription;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chỉ mục trigram (3 ký tự liên tiếp) cho tìm kiếm chuỗi con
+ * Giữ đúng ý nghĩa "tên hoặc một giá trị mô tả chứa từ khóa" (không phân biệt hoa thường) như tìm kiếm
+ * bằng contains: "pro ma" khớp "iPhone 16 Pro Max", "5000" khớp "5000 mAh". Chỉ mục chỉ thu hẹp ứng viên
+ * về các điện thoại có đủ mọi trigram của từ khóa, sau đó vẫn kiểm tra contains trên tên và mô tả
+ * của chính điện thoại (không giữ bản sao văn bản) nên kết quả giống hệt quét toàn bộ
+ */
+public final class TrigramIndex {
+    private final Phone[] phones;
+    private final Map<Phone, Integer> ids;
+    // Trigram (3 ký tự ghép thành một số long) -> điện thoại có trigram đó trong cùng một trường
+    private final Map<Long, int[]> postings;
+
+    /**
+     * Tạo chỉ mục từ danh sách điện thoại, số thứ tự là vị trí trong danh sách
+     * @param source Danh sách điện thoại
+     */
+    public TrigramIndex(List<Phone> source) {
+        this.phones = source.toArray(new Phone[0]);
+        this.ids = new IdentityHashMap<>(phones.length * 2);
+
+        Map<Long, PostingLists.Builder> builders = new HashMap<>();
+        for (int id = 0; id < phones.length; id++) {
+            Phone phone = phones[id];
+            ids.putIfAbsent(phone, id);
+
+            List<String> fields = new ArrayList<>();
+            if (phone.getName() != null) {
+                fields.add(phone.getName().toLowerCase());
+            }
+            PhoneDescription description = phone.getDescription();
+            if (description != null) {
+                description.forEachAttribute((key, value) -> {
+                    if (value != null) {
+                        fields.add(value.toLowerCase());
+                    }
+                });
+            }
+            // Trigram lấy trong từng trường, không nối các trường với nhau
+            for (String text : fields) {
+                for (int i = 0; i + 3 <= text.length(); i++) {
+                    builders.computeIfAbsent(trigram(text, i), t -> new PostingLists.Builder()).add(id);
+                }
+            }
+        }
+
+        this.postings = new HashMap<>(builders.size() * 2);
+        for (Map.Entry<Long, PostingLists.Builder> entry : builders.entrySet()) {
+            postings.put(entry.getKey(), entry.getValue().toArray());
+        }
+    }
+
+    /**
+     * Lấy chỉ mục của danh sách lấy từ CatalogSnapshot
+     * Danh sách khác (vd: kết quả đã lọc) không dùng lại chỉ mục cũ: trigram của chỉ mục cũ được lấy lúc tạo,
+     * điện thoại bị sửa tại chỗ sau đó sẽ bị tìm trên văn bản cũ. Tạo chỉ mục mới cho một lần tìm cũng tốn
+     * hơn quét trực tiếp, nên người gọi quét bằng contains
+     * @param phones Danh sách cần tìm
+     * @return Chỉ mục, hoặc null nếu danh sách không thuộc snapshot nào
+     */
+    public static TrigramIndex forPhones(List<Phone> phones) {
+        CatalogSnapshot owner = CatalogSnapshot.ownerOf(phones);
+        return owner != null ? owner.getTrigramIndex() : null;
+    }
+
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+
+    /**
+     * Số điện thoại trong chỉ mục
+     */
+    public int size() {
+        return phones.length;
+    }
+
+    /**
+     * Số trigram khác nhau trong chỉ mục
+     */
+    public int trigramCount() {
+        return postings.size();
+    }
+
+    /**
+     * Kiểm tra chỉ mục có chứa tất cả điện thoại trong danh sách không
+     */
+    public boolean containsAll(List<Phone> candidates) {
+        if (candidates.size() > phones.length) {
+            return false;
+        }
+        for (Phone phone : candidates) {
+            if (!ids.containsKey(phone)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tìm điện thoại có tên hoặc một giá trị mô tả chứa từ khóa (không phân biệt hoa thường)
+     * @param keyword Từ khóa (dùng nguyên văn, không cắt khoảng trắng)
+     * @return Bitmap số thứ tự các điện thoại thỏa mãn
+     */
+    public BitSet search(String keyword) {
+        String query = keyword.toLowerCase();
+        BitSet result = new BitSet(phones.length);
+
+        int[] candidates = candidates(query);
+        if (candidates == null) {
+            // Từ khóa ngắn hơn 3 ký tự: kiểm tra mọi điện thoại
+            for (int id = 0; id < phones.length; id++) {
+                if (containsText(id, query)) {
+                    result.set(id);
+                }
+            }
+            return result;
+        }
+
+        for (int id : candidates) {
+            if (containsText(id, query)) {
+                result.set(id);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Các điện thoại có đủ mọi trigram của từ khóa
+     * @return Số thứ tự tăng dần, hoặc null nếu từ khóa quá ngắn để có trigram
+     */
+    private int[] candidates(String query) {
+        if (query.length() < 3) {
+            return null;
+        }
+
+        List<int[]> lists = new ArrayList<>(query.length() - 2);
+        for (int i = 0; i + 3 <= query.length(); i++) {
+            int[] ids = postings.get(trigram(query, i));
+            if (ids == null) {
+                return PostingLists.EMPTY;
+            }
+            lists.add(ids);
+        }
+
+        lists.sort(Comparator.comparingInt(ids -> ids.length));
+        int[] result = lists.get(0);
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = PostingLists.intersect(result, lists.get(i));
+        }
+        return result;
+    }
+
+    private boolean containsText(int id, String query) {
+        Phone phone = phones[id];
+        if (phone.getName() != null && phone.getName().toLowerCase().contains(query)) {
+            return true;
+        }
+        PhoneDescription description = phone.getDescription();
+        if (description == null) {
+            return false;
+        }
+        boolean[] found = new boolean[1];
+        description.forEachAttribute((key, value) -> {
+            if (!found[0] && value != null && value.toLowerCase().contains(query)) {
+                found[0] = true;
+            }
+        });
+        return found[0];
+    }
+
+    /**
+     * Giữ lại các điện thoại của danh sách có số thứ tự nằm trong kết quả, giữ nguyên thứ tự của danh sách
+     * @param candidates Danh sách đầu vào (phải nằm trong chỉ mục)
+     * @param selection Kết quả tìm kiếm
+     * @return Danh sách đã lọc
+     */
+    public List<Phone> retain(List<Phone> candidates, BitSet selection) {
+        List<Phone> result = new ArrayList<>(Math.min(candidates.size(), selection.cardinality()));
+        for (Phone phone : candidates) {
+            Integer id = ids.get(phone);
+            if (id != null && selection.get(id)) {
+                result.add(phone);
+            }
+        }
+        return result;
+    }
+}
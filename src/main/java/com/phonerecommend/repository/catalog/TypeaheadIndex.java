@@ -0,0 +1,335 @@
+package com.phonerecommend.repository.catalog;
+
+import com.phonerecommend.model.Phone;
+import com.phonerecommend.model.PhoneSpecs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Chỉ mục gợi ý khi gõ (typeahead) trên tên điện thoại, hãng và các từ phổ biến trong tên model
+ *
+ * Mỗi nguồn gợi ý có một khóa đã chuẩn hóa (bỏ dấu, viết thường, các từ cách nhau một dấu cách).
+ * Với tên điện thoại, mọi hậu tố bắt đầu từ đầu một từ đều là một mục ("iphone 16 pro max",
+ * "16 pro max", "pro max", "max") để gõ "pro ma" vẫn gợi ý được. Mục chỉ lưu (nguồn, vị trí bắt đầu)
+ * và được sắp xếp theo hậu tố, nên mọi mục có cùng tiền tố nằm liền nhau và tìm được bằng tìm kiếm
+ * nhị phân. Trên mảng đã sắp xếp có một cây phân đoạn giữ mục có trọng số (lượt xem) lớn nhất
+ * của từng đoạn, top-N của một đoạn lấy bằng cách tách đoạn quanh mục lớn nhất, nên chi phí chỉ
+ * phụ thuộc N và log(số mục) chứ không phụ thuộc số mục khớp tiền tố
+ */
+public final class TypeaheadIndex {
+    // Từ trong tên xuất hiện ở ít nhất chừng này điện thoại thì được gợi ý như một từ riêng
+    private static final int MIN_TERM_PHONES = 3;
+    private static final int MIN_TERM_LENGTH = 3;
+    // Tiền tố "Điện thoại" trong tên, không dùng làm gợi ý
+    private static final Set<String> IGNORED_TERMS = new HashSet<>(Arrays.asList("dien", "thoai"));
+
+    /**
+     * Loại gợi ý
+     */
+    public enum Kind {
+        PHONE, BRAND, TERM
+    }
+
+    /**
+     * Một gợi ý trả về cho ô tìm kiếm
+     */
+    public static final class Suggestion {
+        private final String text;
+        private final Kind kind;
+        private final long weight;
+        private final Phone phone;
+
+        Suggestion(String text, Kind kind, long weight, Phone phone) {
+            this.text = text;
+            this.kind = kind;
+            this.weight = weight;
+            this.phone = phone;
+        }
+
+        /**
+         * Chuỗi hiển thị và điền vào ô tìm kiếm khi chọn
+         */
+        public String getText() {
+            return text;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * Lượt xem (tổng lượt xem với gợi ý hãng và từ)
+         */
+        public long getWeight() {
+            return weight;
+        }
+
+        /**
+         * Điện thoại của gợi ý loại PHONE, null với các loại khác
+         */
+        public Phone getPhone() {
+            return phone;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    private final Suggestion[] sources;
+    private final String[] keys;
+    // Các mục đã sắp xếp theo hậu tố: nguồn và vị trí bắt đầu trong khóa của nguồn
+    private final int[] entrySource;
+    private final int[] entryOffset;
+    // Cây phân đoạn: nút -> vị trí mục có trọng số lớn nhất trong đoạn của nút
+    private final int[] maxTree;
+    private final int leafBase;
+
+    /**
+     * Tạo chỉ mục từ danh sách điện thoại
+     * @param phones Danh sách điện thoại
+     */
+    public TypeaheadIndex(List<Phone> phones) {
+        List<Suggestion> sourceList = new ArrayList<>();
+        List<String> keyList = new ArrayList<>();
+        collectSources(phones, sourceList, keyList);
+        this.sources = sourceList.toArray(new Suggestion[0]);
+        this.keys = keyList.toArray(new String[0]);
+
+        // Mỗi nguồn điện thoại có một mục cho mỗi từ trong khóa, hãng và từ chỉ có một mục
+        List<int[]> entries = new ArrayList<>();
+        for (int source = 0; source < sources.length; source++) {
+            String key = keys[source];
+            for (int offset = 0; offset < key.length(); offset++) {
+                if (offset == 0 || (sources[source].kind == Kind.PHONE && key.charAt(offset - 1) == ' ')) {
+                    entries.add(new int[]{source, offset});
+                }
+            }
+        }
+        entries.sort((a, b) -> compareSuffixes(keys[a[0]], a[1], keys[b[0]], b[1]));
+
+        this.entrySource = new int[entries.size()];
+        this.entryOffset = new int[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            entrySource[i] = entries.get(i)[0];
+            entryOffset[i] = entries.get(i)[1];
+        }
+
+        int base = 1;
+        while (base < entrySource.length) {
+            base <<= 1;
+        }
+        this.leafBase = base;
+        this.maxTree = new int[base * 2];
+        Arrays.fill(maxTree, -1);
+        for (int i = 0; i < entrySource.length; i++) {
+            maxTree[base + i] = i;
+        }
+        for (int node = base - 1; node >= 1; node--) {
+            maxTree[node] = better(maxTree[node * 2], maxTree[node * 2 + 1]);
+        }
+    }
+
+    /**
+     * Lấy chỉ mục gợi ý cho danh sách điện thoại
+     * Danh sách lấy từ CatalogSnapshot dùng chỉ mục của snapshot đó; danh sách khác không dùng lại
+     * chỉ mục cũ (tên và lượt xem trong đó có thể đã cũ) mà tạo chỉ mục mới, nên người gọi trên luồng
+     * giao diện phải gọi ở luồng nền
+     */
+    public static TypeaheadIndex forPhones(List<Phone> phones) {
+        CatalogSnapshot owner = CatalogSnapshot.ownerOf(phones);
+        return owner != null ? owner.getTypeaheadIndex() : new TypeaheadIndex(phones);
+    }
+
+    private static void collectSources(List<Phone> phones, List<Suggestion> sourceList, List<String> keyList) {
+        // Tên điện thoại: gộp các điện thoại trùng tên, lấy lượt xem lớn nhất
+        Map<String, Suggestion> byName = new LinkedHashMap<>();
+        Map<String, Long> brandViews = new HashMap<>();
+        Map<String, Long> termViews = new HashMap<>();
+        Map<String, Integer> termPhones = new HashMap<>();
+        for (Phone phone : phones) {
+            if (phone.getName() == null || phone.getName().trim().isEmpty()) {
+                continue;
+            }
+            String name = phone.getName().trim();
+            Suggestion existing = byName.get(name);
+            if (existing == null || existing.weight < phone.getViewCount()) {
+                byName.put(name, new Suggestion(name, Kind.PHONE, phone.getViewCount(), phone));
+            }
+
+            String brand = PhoneSpecs.brandOf(name);
+            if (!PhoneSpecs.UNKNOWN_BRAND.equals(brand)) {
+                brandViews.merge(brand, (long) phone.getViewCount(), Long::sum);
+            }
+            for (String token : new HashSet<>(TextTokenizer.tokenize(name))) {
+                if (isModelTerm(token)) {
+                    termViews.merge(token, (long) phone.getViewCount(), Long::sum);
+                    termPhones.merge(token, 1, Integer::sum);
+                }
+            }
+        }
+
+        for (Suggestion suggestion : byName.values()) {
+            sourceList.add(suggestion);
+            keyList.add(String.join(" ", TextTokenizer.tokenize(suggestion.text)));
+        }
+        for (Map.Entry<String, Long> brand : brandViews.entrySet()) {
+            String display = Character.toUpperCase(brand.getKey().charAt(0)) + brand.getKey().substring(1);
+            sourceList.add(new Suggestion(display, Kind.BRAND, brand.getValue(), null));
+            keyList.add(brand.getKey());
+        }
+        for (Map.Entry<String, Long> term : termViews.entrySet()) {
+            if (termPhones.get(term.getKey()) >= MIN_TERM_PHONES && !brandViews.containsKey(term.getKey())) {
+                sourceList.add(new Suggestion(term.getKey(), Kind.TERM, term.getValue(), null));
+                keyList.add(term.getKey());
+            }
+        }
+    }
+
+    private static boolean isModelTerm(String token) {
+        if (token.length() < MIN_TERM_LENGTH || IGNORED_TERMS.contains(token)) {
+            return false;
+        }
+        for (int i = 0; i < token.length(); i++) {
+            if (Character.isLetter(token.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gợi ý cho chuỗi đang gõ, xếp theo lượt xem giảm dần
+     * @param prefix Chuỗi người dùng đã gõ (có dấu hoặc không dấu)
+     * @param limit Số gợi ý tối đa
+     * @return Danh sách gợi ý, mỗi chuỗi hiển thị chỉ xuất hiện một lần
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        List<Suggestion> result = new ArrayList<>(limit);
+        String query = String.join(" ", TextTokenizer.tokenize(prefix));
+        if (query.isEmpty() || limit <= 0 || entrySource.length == 0) {
+            return result;
+        }
+
+        int from = firstEntryNotBefore(query);
+        int to = firstEntryAfterPrefix(query, from);
+        if (from >= to) {
+            return result;
+        }
+
+        // Lấy lần lượt mục lớn nhất của các đoạn con, bỏ các mục trùng nguồn
+        PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> better(a[2], b[2]) == a[2] ? -1 : 1);
+        ranges.add(new int[]{from, to, rangeMax(from, to)});
+        Set<Integer> usedSources = new HashSet<>();
+        while (!ranges.isEmpty() && result.size() < limit) {
+            int[] range = ranges.poll();
+            int best = range[2];
+            if (usedSources.add(entrySource[best])) {
+                result.add(sources[entrySource[best]]);
+            }
+            if (range[0] < best) {
+                ranges.add(new int[]{range[0], best, rangeMax(range[0], best)});
+            }
+            if (best + 1 < range[1]) {
+                ranges.add(new int[]{best + 1, range[1], rangeMax(best + 1, range[1])});
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Số mục trong chỉ mục
+     */
+    public int entryCount() {
+        return entrySource.length;
+    }
+
+    /**
+     * Mục có trọng số lớn nhất trong đoạn [from, to)
+     */
+    private int rangeMax(int from, int to) {
+        int best = -1;
+        int lo = from + leafBase;
+        int hi = to - 1 + leafBase;
+        while (lo <= hi) {
+            if ((lo & 1) == 1) {
+                best = better(best, maxTree[lo++]);
+            }
+            if ((hi & 1) == 0) {
+                best = better(best, maxTree[hi--]);
+            }
+            lo >>= 1;
+            hi >>= 1;
+        }
+        return best;
+    }
+
+    /**
+     * Mục tốt hơn giữa hai mục: trọng số lớn hơn, bằng nhau thì mục đứng trước theo thứ tự chữ cái
+     */
+    private int better(int a, int b) {
+        if (a < 0) {
+            return b;
+        }
+        if (b < 0) {
+            return a;
+        }
+        long weightA = sources[entrySource[a]].weight;
+        long weightB = sources[entrySource[b]].weight;
+        if (weightA != weightB) {
+            return weightA > weightB ? a : b;
+        }
+        return a < b ? a : b;
+    }
+
+    private int firstEntryNotBefore(String query) {
+        int lo = 0;
+        int hi = entrySource.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compareSuffixes(keys[entrySource[mid]], entryOffset[mid], query, 0) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int firstEntryAfterPrefix(String query, int from) {
+        int lo = from;
+        int hi = entrySource.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[entrySource[mid]].startsWith(query, entryOffset[mid])) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int compareSuffixes(String a, int offsetA, String b, int offsetB) {
+        int lengthA = a.length() - offsetA;
+        int lengthB = b.length() - offsetB;
+        int length = Math.min(lengthA, lengthB);
+        for (int i = 0; i < length; i++) {
+            char ca = a.charAt(offsetA + i);
+            char cb = b.charAt(offsetB + i);
+            if (ca != cb) {
+                return ca - cb;
+            }
+        }
+        return lengthA - lengthB;
+    }
+}
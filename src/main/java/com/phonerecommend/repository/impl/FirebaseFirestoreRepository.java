@@ -2,14 +2,16 @@ package com.phonerecommend.repository.impl;
 
 import com.phonerecommend.repository.AbstractPhoneRepository;
 import com.phonerecommend.model.Phone;
+import com.phonerecommend.repository.catalog.KeywordIndex;
 import com.phonerecommend.model.PhoneDescription;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 import java.util.concurrent.ExecutionException;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -36,7 +38,9 @@ public class FirebaseFirestoreRepository extends AbstractPhoneRepository {
 
     private Firestore db;
     private final String projectId;
-    private final Map<String, Phone> phoneCache;
+    private final Map<String, Phone> phoneCache; // Link -> điện thoại
+    private final Map<String, Phone> phonesByName; // Tên viết thường -> điện thoại
+    private volatile KeywordIndex keywordIndex; // Cập nhật khi lưu, tạo lại ở lần tìm kiếm đầu tiên sau khi xóa
 
     // Firebase Configuration
     private static final String PHONES_COLLECTION = "fix"; // Collection name
@@ -48,6 +52,7 @@ public class FirebaseFirestoreRepository extends AbstractPhoneRepository {
     public FirebaseFirestoreRepository(String projectId) {
         this.projectId = projectId;
         this.phoneCache = new HashMap<>();
+        this.phonesByName = new HashMap<>();
         initializeFirebase();
         loadPhonesData();
     }
@@ -125,7 +130,7 @@ public class FirebaseFirestoreRepository extends AbstractPhoneRepository {
             for (QueryDocumentSnapshot document : documents) {
                 Phone phone = documentToPhone(document);
                 if (phone != null) {
-                    phoneCache.put(phone.getLink(), phone);
+                    cachePhone(phone);
                     System.out.println("Loaded phone: " + phone.getName());
                 }
             }
@@ -238,7 +243,7 @@ public class FirebaseFirestoreRepository extends AbstractPhoneRepository {
         iphoneDesc.setAttribute("Tính năng đặc biệt", "Hỗ trợ 5G, Sạc không dây, Nhận diện khuôn mặt, Kháng nước, kháng bụi, Điện thoại AI");
 
         iphone.setDescription(iphoneDesc);
-        phoneCache.put(iphone.getLink(), iphone);
+        cachePhone(iphone);
 
         // Samsung Galaxy S25 Ultra
         Phone samsung = new Phone();
@@ -259,7 +264,7 @@ public class FirebaseFirestoreRepository extends AbstractPhoneRepository {
         samsungDesc.setAttribute("Tính năng đặc biệt", "Hỗ trợ 5G, Nhận diện khuôn mặt, Kháng nước, kháng bụi, Điện thoại AI, Đi kèm bút cảm ứng");
 
         samsung.setDescription(samsungDesc);
-        phoneCache.put(samsung.getLink(), samsung);
+        cachePhone(samsung);
 
         // ASUS 8z (giống như trong Firebase)
         Phone asus = new Phone();
@@ -281,11 +286,64 @@ public class FirebaseFirestoreRepository extends AbstractPhoneRepository {
         asusDesc.setAttribute("Công nghệ NFC", "Có");
 
         asus.setDescription(asusDesc);
-        phoneCache.put(asus.getLink(), asus);
+        cachePhone(asus);
 
         System.out.println("Loaded " + phoneCache.size() + " sample phones");
     }
 
+    /**
+     * Thêm/thay điện thoại trong cache, cập nhật chỉ mục theo tên và các chỉ mục phụ
+     */
+    private void cachePhone(Phone phone) {
+        Phone previous = phoneCache.put(phone.getLink(), phone);
+        if (previous != null) {
+            removeNameEntry(previous);
+        }
+        if (phone.getName() != null) {
+            phonesByName.putIfAbsent(foldName(phone.getName()), phone);
+        }
+        indexPhone(phone);
+        KeywordIndex index = keywordIndex;
+        if (index != null) {
+            // Chỉ tách từ lại điện thoại vừa lưu (vd: lưu lượt xem định kỳ không làm mất chỉ mục)
+            keywordIndex = index.withPut(Collections.singletonList(phone));
+        }
+    }
+
+    /**
+     * Xóa điện thoại khỏi cache, chỉ mục theo tên và các chỉ mục phụ
+     */
+    private void uncachePhone(Phone phone) {
+        Phone removed = phoneCache.remove(phone.getLink());
+        if (removed != null) {
+            removeNameEntry(removed);
+        }
+        unindexPhone(phone.getLink());
+        keywordIndex = null; // Xóa làm dịch số thứ tự, hiếm khi xảy ra nên tạo lại khi cần
+    }
+
+    private void removeNameEntry(Phone phone) {
+        if (phone.getName() == null) {
+            return;
+        }
+        String key = foldName(phone.getName());
+        if (phonesByName.get(key) != phone) {
+            return;
+        }
+        phonesByName.remove(key);
+        // Còn điện thoại khác cùng tên (hiếm) thì trỏ chỉ mục sang điện thoại đó
+        for (Phone other : phoneCache.values()) {
+            if (other.getName() != null && foldName(other.getName()).equals(key)) {
+                phonesByName.put(key, other);
+                break;
+            }
+        }
+    }
+
+    private static String foldName(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
     @Override
     public List<Phone> getAllPhones() {
         return new ArrayList<>(phoneCache.values());
@@ -293,9 +351,7 @@ public class FirebaseFirestoreRepository extends AbstractPhoneRepository {
 
     @Override
     public Optional<Phone> findPhoneByName(String name) {
-        return phoneCache.values().stream()
-                .filter(p -> p.getName().equalsIgnoreCase(name))
-                .findFirst();
+        return name == null ? Optional.empty() : Optional.ofNullable(phonesByName.get(foldName(name)));
     }
 
     @Override
@@ -309,17 +365,19 @@ public class FirebaseFirestoreRepository extends AbstractPhoneRepository {
             return getAllPhones();
         }
 
-        String lowercaseKeyword = keyword.toLowerCase();
-        return phoneCache.values().stream()
-                .filter(p -> p.getName().toLowerCase().contains(lowercaseKeyword))
-                .collect(Collectors.toList());
+        KeywordIndex index = keywordIndex;
+        if (index == null) {
+            index = new KeywordIndex(getAllPhones());
+            keywordIndex = index;
+        }
+        return index.toList(index.searchNamesOrSimilar(keyword));
     }
 
     @Override
     public boolean savePhone(Phone phone) {
         if (!useFirebase) {
             // Chỉ lưu vào cache khi không dùng Firebase
-            phoneCache.put(phone.getLink(), phone);
+            cachePhone(phone);
             return true;
         }
 
@@ -340,7 +398,7 @@ public class FirebaseFirestoreRepository extends AbstractPhoneRepository {
             result.get();
 
             // Cập nhật cache
-            phoneCache.put(phone.getLink(), phone);
+            cachePhone(phone);
 
             System.out.println("Successfully saved phone to Firestore: " + phone.getName());
             return true;
@@ -356,7 +414,7 @@ public class FirebaseFirestoreRepository extends AbstractPhoneRepository {
     public boolean deletePhone(Phone phone) {
         if (!useFirebase) {
             // Chỉ xóa khỏi cache khi không dùng Firebase
-            phoneCache.remove(phone.getLink());
+            uncachePhone(phone);
             return true;
         }
 
@@ -371,7 +429,7 @@ public class FirebaseFirestoreRepository extends AbstractPhoneRepository {
             result.get();
 
             // Xóa khỏi cache
-            phoneCache.remove(phone.getLink());
+            uncachePhone(phone);
 
             System.out.println("Successfully deleted phone from Firestore: " + phone.getName());
             return true;
@@ -410,7 +468,10 @@ public class FirebaseFirestoreRepository extends AbstractPhoneRepository {
     public void syncWithFirestore() {
         if (useFirebase) {
             phoneCache.clear();
+            phonesByName.clear();
+            keywordIndex = null;
             loadPhonesFromFirestore();
+            rebuildIndexes();
         } else {
             System.out.println("Firebase not available, cannot sync");
         }
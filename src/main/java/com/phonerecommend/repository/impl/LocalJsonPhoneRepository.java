@@ -2,37 +2,132 @@ package com.phonerecommend.repository.impl;
 
 import com.phonerecommend.repository.AbstractPhoneRepository;
 import com.phonerecommend.model.Phone;
-import com.phonerecommend.model.PhoneDescription;
-import org.example.util.SimpleJSON;
+import com.phonerecommend.repository.catalog.KeywordIndex;
+import com.phonerecommend.repository.catalog.CatalogSnapshot;
+import com.phonerecommend.repository.storage.BinaryCatalog;
+import com.phonerecommend.repository.storage.BinaryCatalogWriter;
+import com.phonerecommend.repository.storage.DescriptionStore;
+import com.phonerecommend.repository.storage.ParallelCatalogLoader;
+import com.phonerecommend.repository.storage.PhoneJournal;
+import com.phonerecommend.repository.storage.PhoneJsonWriter;
+import com.phonerecommend.repository.storage.PhoneJsonReader;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Repository với UTF-8 encoding
  */
 public class LocalJsonPhoneRepository extends AbstractPhoneRepository {
+    // Nén journal vào file JSON khi journal vượt quá kích thước hoặc tồn tại quá lâu
+    private static final long COMPACT_SIZE_THRESHOLD = 1024 * 1024;
+    private static final long COMPACT_AGE_MILLIS = 5 * 60 * 1000;
+    private static final long COMPACT_CHECK_INTERVAL_MILLIS = 60 * 1000;
+
+    // Chờ file ngừng thay đổi trước khi tải lại (trình soạn thảo/công cụ deploy thường ghi nhiều lần)
+    private static final long RELOAD_DEBOUNCE_MILLIS = 300;
+
     private final String filePath;
-    private List<Phone> phones;
+    private final int loadThreads;
+    private final boolean lazyDescriptions;
+    private final boolean snapshotMode; // Tải từ snapshot .pcat cạnh file JSON
+    private DescriptionStore descriptionStore; // Chỉ dùng khi lazyDescriptions = true
+    private volatile CatalogSnapshot catalog; // Snapshot bất biến, mỗi thay đổi gán một snapshot mới
+    private long loadTimeMillis;
+
+    // Trạng thái file lúc tải/ghi gần nhất, để bỏ qua các thay đổi do chính repository ghi ra
+    private volatile FileStamp dataStamp;
+    private volatile FileStamp snapshotStamp;
+    private WatchService watchService;
+    private Thread watcherThread;
+
+    private PhoneJournal journal;
+    private ScheduledExecutorService compactionExecutor;
+    private final AtomicBoolean compactionPending = new AtomicBoolean(false);
+    private final Object compactionLock = new Object(); // Giữ khi ghi file JSON/thay journal: compact, reload, close
+    private volatile boolean closed; // Đã close(), không ghi file hay journal nữa
 
     public LocalJsonPhoneRepository(String filePath) {
+        this(filePath, 1);
+    }
+
+    /**
+     * Constructor với số luồng tải dữ liệu
+     * @param filePath Đường dẫn file JSON
+     * @param loadThreads Số luồng parse: 1 = đọc streaming tuần tự, > 1 = tải song song, <= 0 = dùng số nhân CPU
+     */
+    public LocalJsonPhoneRepository(String filePath, int loadThreads) {
+        this(filePath, loadThreads, false);
+    }
+
+    /**
+     * Constructor với chế độ nạp description lazy
+     * @param filePath Đường dẫn file JSON
+     * @param loadThreads Số luồng parse (xem constructor trên)
+     * @param lazyDescriptions true: chỉ giữ các trường tóm tắt và vị trí byte của description,
+     *                         description được đọc lại từ file khi cần và giữ trong cache có giới hạn
+     */
+    public LocalJsonPhoneRepository(String filePath, int loadThreads, boolean lazyDescriptions) {
+        this.filePath = filePath;
+        this.loadThreads = loadThreads;
+        this.lazyDescriptions = lazyDescriptions;
+        this.snapshotMode = false;
+
+        long start = System.nanoTime();
+        List<Phone> loaded = loadData();
+        this.dataStamp = FileStamp.of(dataPath());
+        this.catalog = CatalogSnapshot.of(loaded);
+        openJournal();
+        this.loadTimeMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Loaded " + catalog.size() + " phones in " + loadTimeMillis + " ms"
+                + (loadThreads == 1 ? "" : " (parallel)") + (lazyDescriptions ? " (lazy descriptions)" : ""));
+    }
+
+    /**
+     * Constructor tải dữ liệu từ snapshot nhị phân đã memory-map thay vì parse file JSON
+     * Chỉ cột link được đọc ngay (cho chỉ mục link), điện thoại được tạo khi đọc tới
+     * và description được giải mã khi truy cập lần đầu
+     * @param filePath Đường dẫn file JSON (vẫn dùng khi lưu thay đổi)
+     * @param snapshot Snapshot .pcat khớp với file JSON
+     */
+    public LocalJsonPhoneRepository(String filePath, BinaryCatalog snapshot) {
         this.filePath = filePath;
-        this.phones = new ArrayList<>();
-        loadData();
+        this.loadThreads = 1;
+        this.lazyDescriptions = false;
+        this.snapshotMode = true;
+
+        long start = System.nanoTime();
+        this.dataStamp = FileStamp.of(dataPath());
+        this.snapshotStamp = FileStamp.of(snapshotPath());
+        this.catalog = CatalogSnapshot.lazy(snapshot.size(), snapshot::getPhone, snapshot::getLink);
+        openJournal();
+        this.loadTimeMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Loaded " + catalog.size() + " phones from snapshot in " + loadTimeMillis + " ms");
     }
 
-    private void loadData() {
+    private List<Phone> loadData() {
         File file = new File(filePath);
         if (!file.exists()) {
             try {
@@ -43,135 +138,478 @@ public class LocalJsonPhoneRepository extends AbstractPhoneRepository {
                 e.printStackTrace();
                 System.err.println("Không thể tạo file dữ liệu: " + e.getMessage());
             }
-            return;
+            return new ArrayList<>();
         }
 
         try {
-            // Đọc file với UTF-8 encoding
-            StringBuilder content = new StringBuilder();
-            try (InputStreamReader reader = new InputStreamReader(
-                    new FileInputStream(file), StandardCharsets.UTF_8)) {
-                char[] buffer = new char[1024];
-                int length;
-                while ((length = reader.read(buffer)) != -1) {
-                    content.append(buffer, 0, length);
-                }
+            return readCatalog();
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Lỗi khi đọc file dữ liệu: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Parse file JSON theo chế độ tải đã cấu hình
+     * @return Danh sách điện thoại mới (không đụng tới danh sách hiện tại)
+     * @throws IOException Nếu lỗi đọc file hoặc lỗi parse
+     */
+    private List<Phone> readCatalog() throws IOException {
+        Path path = dataPath();
+        if (lazyDescriptions) {
+            // Chỉ parse các trường tóm tắt, description được đọc lại từ file khi cần
+            DescriptionStore store = new DescriptionStore(path, DescriptionStore.DEFAULT_CACHE_SIZE);
+            ParallelCatalogLoader loader = new ParallelCatalogLoader(loadThreads);
+            List<Phone> loaded = loader.load(path, store::parseSummary);
+            if (descriptionStore != null) {
+                descriptionStore.close(); // Vùng nhớ đã map vẫn dùng được cho các Phone cũ
+            }
+            descriptionStore = store;
+            return loaded;
+        } else if (loadThreads == 1) {
+            // Đọc streaming trực tiếp từ FileChannel, mỗi phone được tạo ngay khi parse xong
+            try (PhoneJsonReader reader = PhoneJsonReader.open(path)) {
+                List<Phone> loaded = new ArrayList<>();
+                reader.readAll(loaded::add);
+                return loaded;
             }
+        } else {
+            // Tách vùng byte của từng object rồi parse song song
+            ParallelCatalogLoader loader = new ParallelCatalogLoader(loadThreads);
+            return loader.load(path, ParallelCatalogLoader::parseWithStreamingReader);
+        }
+    }
+
+    private static List<Phone> readSnapshot(BinaryCatalog snapshot) {
+        List<Phone> loaded = new ArrayList<>(snapshot.size());
+        for (int i = 0; i < snapshot.size(); i++) {
+            loaded.add(snapshot.getPhone(i));
+        }
+        return loaded;
+    }
 
-            String jsonContent = content.toString().trim();
-            if (jsonContent.isEmpty()) {
-                return;
+    private Path dataPath() {
+        return new File(filePath).toPath();
+    }
+
+    private Path snapshotPath() {
+        return BinaryCatalog.snapshotPathFor(dataPath());
+    }
+
+    /**
+     * Mở journal cạnh file JSON và phát lại các thay đổi chưa được nén vào file lên snapshot vừa tải
+     */
+    private void openJournal() {
+        try {
+            journal = new PhoneJournal(PhoneJournal.journalPathFor(new File(filePath).toPath()));
+            // Gộp các bản ghi theo link rồi áp dụng một lần, thay vì sao chép danh mục cho từng bản ghi:
+            // link bị xóa ở bất kỳ đâu được xóa trước, bản lưu cuối cùng sau lần xóa cuối được thêm lại
+            Map<String, Phone> puts = new LinkedHashMap<>();
+            Set<String> deletes = new HashSet<>();
+            int replayed = journal.replay(phone -> puts.put(phone.getLink(), phone),
+                    link -> {
+                        puts.remove(link);
+                        deletes.add(link);
+                    });
+            catalog = catalog.withDeleteAll(deletes);
+            if (!puts.isEmpty()) {
+                catalog = catalog.withPutAll(puts.values());
+            }
+            if (replayed > 0) {
+                System.out.println("Replayed " + replayed + " journal records");
             }
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Không thể mở journal, thay đổi sẽ được ghi thẳng vào file dữ liệu: " + e.getMessage());
+            journal = null;
+        }
+    }
 
-            // Parse JSON
-            List<Object> phonesArray = SimpleJSON.parseJSONArray(jsonContent);
+    private void saveEmptyData() throws IOException {
+        PhoneJsonWriter.writeCatalog(new ArrayList<>(), new File(filePath).toPath());
+    }
 
-            for (Object obj : phonesArray) {
-                if (obj instanceof Map) {
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> phoneObj = (Map<String, Object>) obj;
+    private boolean saveData(List<Phone> phones) {
+        try {
+            PhoneJsonWriter.writeCatalog(phones, dataPath());
+            dataStamp = FileStamp.of(dataPath());
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Lỗi khi ghi file dữ liệu: " + e.getMessage());
+            return false;
+        }
+    }
 
-                    Phone phone = new Phone();
-                    phone.setName((String) phoneObj.get("name"));
-                    phone.setLink((String) phoneObj.get("link"));
+    /**
+     * Ghi toàn bộ danh sách hiện tại vào file JSON rồi bỏ các bản ghi journal đã nằm trong file
+     * Các thay đổi ghi vào journal trong lúc nén vẫn được giữ lại để phát lại lần sau
+     * @return true nếu nén thành công
+     */
+    public boolean compact() {
+        synchronized (compactionLock) {
+            List<Phone> snapshot;
+            long journalSize;
+            synchronized (this) {
+                if (closed) {
+                    return false;
+                }
+                if (journal == null) {
+                    return saveData(catalog.getPhones());
+                }
+                snapshot = catalog.getPhones(); // Bất biến, không cần sao chép
+                try {
+                    journalSize = journal.size();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    System.err.println("Lỗi khi đọc journal: " + e.getMessage());
+                    return false;
+                }
+            }
 
-                    if (phoneObj.get("price") instanceof Number) {
-                        phone.setPrice(((Number) phoneObj.get("price")).doubleValue());
-                    }
+            // reload() cũng giữ compactionLock nên file không bị tải lại giữa lần kiểm tra này và saveData
+            if (journalSize > 0 && hasExternalChanges()) {
+                // File vừa được thay từ bên ngoài, để reload() xử lý thay vì ghi đè lên
+                return false;
+            }
+            if (journalSize == 0 || !saveData(snapshot)) {
+                return journalSize == 0;
+            }
 
-                    if (phoneObj.get("viewCount") instanceof Number) {
-                        phone.setViewCount(((Number) phoneObj.get("viewCount")).intValue());
-                    }
+            try {
+                journal.discardUpTo(journalSize);
+                System.out.println("Compacted journal (" + journalSize + " bytes) into " + filePath);
+                return true;
+            } catch (IOException e) {
+                // File JSON đã chứa các thay đổi, phát lại journal cũ vẫn cho kết quả đúng
+                e.printStackTrace();
+                System.err.println("Lỗi khi nén journal: " + e.getMessage());
+                return false;
+            }
+        }
+    }
 
-                    if (phoneObj.get("imgURL") != null) {
-                        phone.setImageUrl((String) phoneObj.get("imgURL"));
-                    }
+    private void scheduleCompactionIfNeeded() throws IOException {
+        if (compactionExecutor == null) {
+            compactionExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "journal-compaction");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // Kiểm tra định kỳ để journal ít thay đổi vẫn được nén theo thời gian
+            compactionExecutor.scheduleWithFixedDelay(this::compactIfNeeded,
+                    COMPACT_CHECK_INTERVAL_MILLIS, COMPACT_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
 
-                    // Xử lý description
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> descObj = (Map<String, Object>) phoneObj.get("description");
-                    PhoneDescription description = new PhoneDescription();
+        if (journalNeedsCompaction() && compactionPending.compareAndSet(false, true)) {
+            compactionExecutor.execute(this::compactIfNeeded);
+        }
+    }
 
-                    if (descObj != null) {
-                        for (Map.Entry<String, Object> entry : descObj.entrySet()) {
-                            String value = entry.getValue() != null ? entry.getValue().toString() : "";
-                            description.setAttribute(entry.getKey(), value);
-                        }
-                    }
+    private boolean journalNeedsCompaction() throws IOException {
+        return journal.size() >= COMPACT_SIZE_THRESHOLD || journal.getAgeMillis() >= COMPACT_AGE_MILLIS;
+    }
 
-                    phone.setDescription(description);
-                    phones.add(phone);
-                }
+    private void compactIfNeeded() {
+        try {
+            if (!closed && journalNeedsCompaction()) {
+                compact();
             }
         } catch (IOException e) {
-            e.printStackTrace();
-            System.err.println("Lỗi khi đọc file dữ liệu: " + e.getMessage());
+            System.err.println("Lỗi khi kiểm tra journal: " + e.getMessage());
+        } finally {
+            compactionPending.set(false);
         }
     }
 
-    private void saveEmptyData() throws IOException {
-        try (OutputStreamWriter writer = new OutputStreamWriter(
-                new FileOutputStream(filePath), StandardCharsets.UTF_8)) {
-            writer.write("[]");
+    // ==================== Tải lại khi file thay đổi ====================
+
+    /**
+     * Bắt đầu theo dõi file JSON (và snapshot .pcat nếu dùng) bằng WatchService,
+     * file thay đổi từ bên ngoài sẽ được tải lại ở luồng nền qua reload()
+     * @throws IOException Nếu không đăng ký được WatchService
+     */
+    public synchronized void startWatching() throws IOException {
+        if (watcherThread != null) {
+            return;
         }
-    }
 
-    private boolean saveData() {
-        try (OutputStreamWriter writer = new OutputStreamWriter(
-                new FileOutputStream(filePath), StandardCharsets.UTF_8)) {
+        Path directory = dataPath().toAbsolutePath().getParent();
+        watchService = FileSystems.getDefault().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
 
-            List<Object> phonesArray = new ArrayList<>();
+        watcherThread = new Thread(this::watchLoop, "catalog-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+        System.out.println("Watching " + directory + " for catalog changes");
+    }
 
-            for (Phone phone : phones) {
-                Map<String, Object> phoneObj = new HashMap<>();
-                phoneObj.put("name", phone.getName());
-                phoneObj.put("link", phone.getLink());
-                phoneObj.put("price", phone.getPrice());
-                phoneObj.put("viewCount", phone.getViewCount());
+    /**
+     * Dừng theo dõi file
+     */
+    public synchronized void stopWatching() {
+        if (watcherThread == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println("Lỗi khi đóng WatchService: " + e.getMessage());
+        }
+        watcherThread = null;
+        watchService = null;
+    }
 
-                if (phone.getImageUrl() != null && !phone.getImageUrl().isEmpty()) {
-                    phoneObj.put("imgURL", phone.getImageUrl());
+    private void watchLoop() {
+        WatchService service = watchService;
+        String dataName = dataPath().getFileName().toString();
+        String snapshotName = snapshotPath().getFileName().toString();
+
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean relevant = containsFile(key, dataName, snapshotName);
+                key.reset();
+                if (!relevant) {
+                    continue;
                 }
 
-                Map<String, Object> descObj = new HashMap<>();
-                PhoneDescription desc = phone.getDescription();
+                // Gom các sự kiện liên tiếp cho tới khi file ổn định
+                WatchKey next;
+                while ((next = service.poll(RELOAD_DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    next.pollEvents();
+                    next.reset();
+                }
 
-                for (String key : desc.getAllAttributes().keySet()) {
-                    descObj.put(key, desc.getAttribute(key));
+                if (hasExternalChanges()) {
+                    reload();
                 }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Dừng theo dõi
+        }
+    }
 
-                phoneObj.put("description", descObj);
-                phonesArray.add(phoneObj);
+    private static boolean containsFile(WatchKey key, String... names) {
+        boolean found = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            Object context = event.context();
+            for (String name : names) {
+                if (context != null && context.toString().equals(name)) {
+                    found = true;
+                }
             }
+        }
+        return found;
+    }
 
-            String jsonString = SimpleJSON.toJSON(phonesArray);
-            writer.write(jsonString);
+    private boolean hasExternalChanges() {
+        if (!Objects.equals(dataStamp, FileStamp.of(dataPath()))) {
             return true;
+        }
+        return snapshotMode && !Objects.equals(snapshotStamp, FileStamp.of(snapshotPath()));
+    }
+
+    /**
+     * Tải lại danh mục từ file và thay thế nguyên khối danh sách hiện tại
+     * File được parse ở luồng gọi, người đọc vẫn dùng danh sách cũ cho tới khi danh sách mới được gán.
+     * So khớp theo link: điện thoại không đổi giữ nguyên đối tượng cũ, lượt xem lấy giá trị lớn hơn
+     * giữa file và bộ nhớ. File mới được coi là chuẩn nên journal cũ bị bỏ, chỉ ghi lại các lượt xem
+     * chưa có trong file
+     * Chạy dưới compactionLock để không xen giữa lúc compact() kiểm tra file và ghi đè lên nó
+     * @return true nếu tải lại thành công
+     */
+    public boolean reload() {
+        synchronized (compactionLock) {
+            return closed ? false : reloadLocked();
+        }
+    }
+
+    private boolean reloadLocked() {
+        long start = System.nanoTime();
+        List<Phone> loaded;
+        try {
+            loaded = readCatalogFromDisk();
         } catch (IOException e) {
+            // Giữ danh mục hiện tại nếu file mới chưa đọc được (ví dụ đang ghi dở)
             e.printStackTrace();
-            System.err.println("Lỗi khi ghi file dữ liệu: " + e.getMessage());
+            System.err.println("Không tải lại được file dữ liệu, giữ danh mục hiện tại: " + e.getMessage());
+            return false;
+        }
+
+        synchronized (this) {
+            // File có thể chứa nhiều điện thoại cùng link, ghép cặp theo thứ tự xuất hiện
+            Map<String, ArrayDeque<Phone>> current = new HashMap<>();
+            for (Phone phone : catalog.getPhones()) {
+                current.computeIfAbsent(phone.getLink(), link -> new ArrayDeque<>()).add(phone);
+            }
+
+            List<Phone> next = new ArrayList<>(loaded.size());
+            List<Phone> unsavedViews = new ArrayList<>();
+            int added = 0;
+            int changed = 0;
+            for (Phone phone : loaded) {
+                ArrayDeque<Phone> candidates = current.get(phone.getLink());
+                Phone old = candidates != null ? candidates.poll() : null;
+                if (old == null) {
+                    added++;
+                    next.add(phone);
+                    continue;
+                }
+
+                int fileViews = phone.getViewCount();
+                Phone kept = phone;
+                if (sameContent(old, phone)) {
+                    kept = old; // Giữ đối tượng cũ (description đã nạp, tham chiếu đang dùng ở giao diện)
+                } else {
+                    changed++;
+                    phone.setViewCount(Math.max(old.getViewCount(), fileViews));
+                }
+                if (kept.getViewCount() != fileViews) {
+                    unsavedViews.add(kept);
+                }
+                next.add(kept);
+            }
+
+            catalog = catalog.next(next);
+            rebuildIndexes();
+            dataStamp = FileStamp.of(dataPath());
+            snapshotStamp = snapshotMode ? FileStamp.of(snapshotPath()) : null;
+            resetJournal(unsavedViews);
+
+            int removed = 0;
+            for (ArrayDeque<Phone> remaining : current.values()) {
+                removed += remaining.size();
+            }
+
+            System.out.println("Reloaded " + filePath + " in " + (System.nanoTime() - start) / 1_000_000 + " ms: "
+                    + added + " added, " + changed + " changed, " + removed + " removed");
+        }
+        return true;
+    }
+
+    private List<Phone> readCatalogFromDisk() throws IOException {
+        if (snapshotMode) {
+            Path snapshotPath = snapshotPath();
+            if (!BinaryCatalog.isUpToDate(snapshotPath, dataPath())) {
+                // File JSON mới hơn snapshot: parse JSON rồi dựng lại snapshot cho lần sau
+                List<Phone> loaded = readCatalog();
+                try {
+                    BinaryCatalogWriter.write(loaded, snapshotPath, dataPath());
+                } catch (IOException e) {
+                    // Vd: Windows không cho thay file đang được map; danh mục mới vẫn dùng được,
+                    // snapshot sẽ được dựng lại ở lần khởi động sau
+                    System.err.println("Không cập nhật được snapshot " + snapshotPath + ": " + e.getMessage());
+                }
+                return loaded;
+            }
+            return readSnapshot(BinaryCatalog.open(snapshotPath));
+        }
+        return readCatalog();
+    }
+
+    private boolean sameContent(Phone old, Phone phone) {
+        if (!Objects.equals(old.getName(), phone.getName())
+                || old.getPrice() != phone.getPrice()
+                || !Objects.equals(old.getImageUrl(), phone.getImageUrl())) {
+            return false;
+        }
+        if (lazyDescriptions || snapshotMode) {
+            // Description của đối tượng cũ nằm trên vùng nhớ map của file cũ, luôn dùng đối tượng mới
             return false;
         }
+        return old.getDescription().getAllAttributes().equals(phone.getDescription().getAllAttributes());
     }
 
-    // Các phương thức khác giữ nguyên...
+    private void resetJournal(List<Phone> unsavedViews) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.discardUpTo(Long.MAX_VALUE);
+            journal.appendPuts(unsavedViews);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Lỗi khi ghi journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Kích thước + thời điểm sửa của một file
+     */
+    private static final class FileStamp {
+        private final long size;
+        private final long modified;
+
+        private FileStamp(long size, long modified) {
+            this.size = size;
+            this.modified = modified;
+        }
+
+        static FileStamp of(Path path) {
+            try {
+                return new FileStamp(Files.size(path), Files.getLastModifiedTime(path).toMillis());
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof FileStamp)) {
+                return false;
+            }
+            FileStamp other = (FileStamp) o;
+            return size == other.size && modified == other.modified;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(size, modified);
+        }
+    }
+
+    /**
+     * Thống kê cache description khi dùng chế độ lazy
+     * @return Chuỗi thống kê, hoặc null nếu không dùng chế độ lazy
+     */
+    public String getDescriptionCacheStats() {
+        return descriptionStore != null ? descriptionStore.getCacheStats() : null;
+    }
+
+    /**
+     * Thời gian tải dữ liệu lúc khởi tạo
+     * @return Số mili giây
+     */
+    public long getLoadTimeMillis() {
+        return loadTimeMillis;
+    }
+
+    /**
+     * Snapshot danh mục hiện tại (kèm số phiên bản)
+     */
+    public CatalogSnapshot getCatalogSnapshot() {
+        return catalog;
+    }
+
+    /**
+     * Danh sách chỉ đọc của snapshot hiện tại, không sao chép
+     * Người gọi cần sửa thì tự tạo bản sao (new ArrayList<>(...))
+     */
     @Override
     public List<Phone> getAllPhones() {
-        return new ArrayList<>(phones);
+        return catalog.getPhones();
     }
 
     @Override
     public Optional<Phone> findPhoneByName(String name) {
-        return phones.stream()
-                .filter(p -> p.getName().equalsIgnoreCase(name))
-                .findFirst();
+        return Optional.ofNullable(catalog.findByName(name));
     }
 
     @Override
     public Optional<Phone> findPhoneByLink(String link) {
-        return phones.stream()
-                .filter(p -> p.getLink().equals(link))
-                .findFirst();
+        return Optional.ofNullable(catalog.findByLink(link));
     }
 
     @Override
@@ -180,32 +618,144 @@ public class LocalJsonPhoneRepository extends AbstractPhoneRepository {
             return getAllPhones();
         }
 
-        String lowercaseKeyword = keyword.toLowerCase();
-        return phones.stream()
-                .filter(p -> p.getName().toLowerCase().contains(lowercaseKeyword))
-                .collect(Collectors.toList());
+        // Tìm theo tên qua chỉ mục từ khóa của snapshot hiện tại, không có kết quả thì tìm gần đúng
+        KeywordIndex index = catalog.getKeywordIndex();
+        return index.toList(index.searchNamesOrSimilar(keyword));
+    }
+
+    /**
+     * Dừng theo dõi file, dừng luồng nén và đóng journal
+     * Repository vẫn đọc được danh mục hiện tại nhưng mọi thay đổi sau đó đều bị từ chối,
+     * để instance cũ (vd: sau RepositoryFactory.reset()) không còn ghi vào phones.json
+     * hay thay file journal mà instance mới đang dùng
+     */
+    @Override
+    public void close() {
+        stopWatching();
+        super.close(); // Lưu nốt lượt xem vào journal trước khi đóng
+        ScheduledExecutorService executor;
+        // Chờ lần nén/tải lại đang chạy (nếu có) kết thúc
+        synchronized (compactionLock) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                executor = compactionExecutor;
+                compactionExecutor = null;
+                if (journal != null) {
+                    try {
+                        journal.close();
+                    } catch (IOException e) {
+                        System.err.println("Lỗi khi đóng journal: " + e.getMessage());
+                    }
+                    journal = null;
+                }
+            }
+        }
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private boolean rejectIfClosed() {
+        if (closed) {
+            System.err.println("Repository " + filePath + " đã đóng, bỏ qua thay đổi");
+        }
+        return closed;
     }
 
     @Override
-    public boolean savePhone(Phone phone) {
-        Optional<Phone> existing = findPhoneByLink(phone.getLink());
+    public synchronized boolean savePhone(Phone phone) {
+        if (rejectIfClosed()) {
+            return false;
+        }
+        catalog = catalog.withPut(phone);
+        indexPhone(phone);
 
-        if (existing.isPresent()) {
-            int index = phones.indexOf(existing.get());
-            phones.set(index, phone);
-        } else {
-            phones.add(phone);
+        if (journal == null) {
+            return saveData(catalog.getPhones());
+        }
+
+        try {
+            // Chỉ ghi thêm một bản ghi vào journal thay vì ghi lại toàn bộ file
+            journal.appendPut(phone);
+            scheduleCompactionIfNeeded();
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Lỗi khi ghi journal: " + e.getMessage());
+            return false;
         }
+    }
 
-        return saveData();
+    /**
+     * Lưu nhiều điện thoại với một snapshot mới duy nhất
+     */
+    @Override
+    public synchronized boolean savePhones(List<Phone> phones) {
+        if (rejectIfClosed()) {
+            return false;
+        }
+        catalog = catalog.withPutAll(phones);
+        for (Phone phone : phones) {
+            indexPhone(phone);
+        }
+        return appendPuts(phones);
     }
 
+    /**
+     * Lưu lượt xem: snapshot mới giữ nguyên các chỉ mục tìm kiếm của snapshot hiện tại
+     */
     @Override
-    public boolean deletePhone(Phone phone) {
-        boolean removed = phones.removeIf(p -> p.getLink().equals(phone.getLink()));
-        if (removed) {
-            return saveData();
+    public synchronized boolean saveViewCounts(List<Phone> phones) {
+        if (rejectIfClosed()) {
+            return false;
+        }
+        catalog = catalog.withViewCounts(phones);
+        return appendPuts(phones);
+    }
+
+    private boolean appendPuts(List<Phone> phones) {
+        if (journal == null) {
+            return saveData(catalog.getPhones());
+        }
+
+        try {
+            journal.appendPuts(phones);
+            scheduleCompactionIfNeeded();
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Lỗi khi ghi journal: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized boolean deletePhone(Phone phone) {
+        if (rejectIfClosed()) {
+            return false;
+        }
+        CatalogSnapshot next = catalog.withDelete(phone.getLink());
+        if (next == catalog) {
+            return false;
+        }
+        catalog = next;
+        unindexPhone(phone.getLink());
+
+        if (journal == null) {
+            return saveData(catalog.getPhones());
+        }
+
+        try {
+            journal.appendDelete(phone.getLink());
+            scheduleCompactionIfNeeded();
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Lỗi khi ghi journal: " + e.getMessage());
+            return false;
         }
-        return false;
     }
 }
\ No newline at end of file
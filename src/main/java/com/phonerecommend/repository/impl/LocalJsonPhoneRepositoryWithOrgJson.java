@@ -2,7 +2,10 @@ package com.phonerecommend.repository.impl;
 
 import com.phonerecommend.repository.AbstractPhoneRepository;
 import com.phonerecommend.model.Phone;
+import com.phonerecommend.repository.catalog.KeywordIndex;
+import com.phonerecommend.repository.catalog.CatalogSnapshot;
 import com.phonerecommend.model.PhoneDescription;
+import com.phonerecommend.repository.storage.ParallelCatalogLoader;
 
 import java.io.File;
 import java.io.IOException;
@@ -11,7 +14,6 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 // Import cho JSON processing
 import org.json.JSONArray;
@@ -23,12 +25,34 @@ import java.util.Iterator;
  */
 public class LocalJsonPhoneRepositoryWithOrgJson extends AbstractPhoneRepository {
     private final String filePath;
+    private final int loadThreads;
     private List<Phone> phones;
+    private final CatalogSnapshot catalog; // Danh mục chỉ đọc sau khi tải
+    private long loadTimeMillis;
 
     public LocalJsonPhoneRepositoryWithOrgJson(String filePath) {
+        this(filePath, 1);
+    }
+
+    /**
+     * Constructor với số luồng tải dữ liệu
+     * @param filePath Đường dẫn file JSON
+     * @param loadThreads Số luồng parse: 1 = tuần tự, > 1 = tải song song, <= 0 = dùng số nhân CPU
+     */
+    public LocalJsonPhoneRepositoryWithOrgJson(String filePath, int loadThreads) {
         this.filePath = filePath;
+        this.loadThreads = loadThreads;
         this.phones = new ArrayList<>();
-        loadData();
+
+        long start = System.nanoTime();
+        if (loadThreads == 1) {
+            loadData();
+        } else {
+            loadDataParallel();
+        }
+        this.catalog = CatalogSnapshot.of(phones);
+        this.loadTimeMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Load time: " + loadTimeMillis + " ms");
     }
 
     private void loadData() {
@@ -49,48 +73,12 @@ public class LocalJsonPhoneRepositoryWithOrgJson extends AbstractPhoneRepository
 
             for (int i = 0; i < jsonArray.length(); i++) {
                 JSONObject phoneJson = jsonArray.getJSONObject(i);
-
-                Phone phone = new Phone();
-                phone.setName(phoneJson.optString("name", ""));
-                phone.setLink(phoneJson.optString("link", ""));
-                phone.setPrice(phoneJson.optDouble("price", 0));
-                phone.setViewCount(phoneJson.optInt("viewCount", 0));
-
-                if (phoneJson.has("imgURL")) {
-                    phone.setImageUrl(phoneJson.getString("imgURL"));
-                }
-
-                // Xử lý description
-                PhoneDescription description = new PhoneDescription();
-                if (phoneJson.has("description")) {
-                    JSONObject descJson = phoneJson.getJSONObject("description");
-
-                    System.out.println("DEBUG: Processing description for " + phone.getName());
-                    System.out.println("DEBUG: Description has " + descJson.length() + " keys");
-
-                    // Lấy tất cả keys từ description
-                    Iterator<String> keys = descJson.keys();
-                    while (keys.hasNext()) {
-                        String key = keys.next();
-                        String value = descJson.optString(key, "");
-                        description.setAttribute(key, value);
-
-                        // Debug một vài key quan trọng
-                        if (key.equals("Camera sau") || key.equals("Chipset")) {
-                            System.out.println("DEBUG: Set '" + key + "' = '" +
-                                    (value.length() > 50 ? value.substring(0, 50) + "..." : value) + "'");
-                        }
-                    }
-
-                    System.out.println("DEBUG: Description now has " +
-                            description.getAllAttributes().size() + " attributes");
-                }
-
-                phone.setDescription(description);
+                Phone phone = jsonToPhone(phoneJson, true);
                 phones.add(phone);
 
                 // Debug cho phone đầu tiên
                 if (i == 0) {
+                    PhoneDescription description = phone.getDescription();
                     System.out.println("DEBUG: First phone test:");
                     System.out.println("- Camera sau: '" + description.getAttribute("Camera sau") + "'");
                     System.out.println("- Camera trước: '" + description.getAttribute("Camera trước") + "'");
@@ -109,23 +97,105 @@ public class LocalJsonPhoneRepositoryWithOrgJson extends AbstractPhoneRepository
         }
     }
 
+    /**
+     * Tải dữ liệu song song: tách vùng byte của từng object rồi parse bằng org.json trên ForkJoinPool
+     */
+    private void loadDataParallel() {
+        File file = new File(filePath);
+        if (!file.exists()) {
+            System.err.println("File không tồn tại: " + filePath);
+            return;
+        }
+
+        try {
+            ParallelCatalogLoader loader = new ParallelCatalogLoader(loadThreads);
+            phones.addAll(loader.load(file.toPath(), (object, offset) -> {
+                byte[] bytes = new byte[object.remaining()];
+                object.get(bytes);
+                return jsonToPhone(new JSONObject(new String(bytes, StandardCharsets.UTF_8)), false);
+            }));
+
+            System.out.println("Successfully loaded " + phones.size() + " phones with "
+                    + loader.getThreads() + " threads");
+
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Lỗi đọc file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Chuyển JSONObject thành Phone
+     * @param phoneJson Object JSON của một điện thoại
+     * @param debug In log debug cho từng điện thoại
+     * @return Điện thoại
+     */
+    private Phone jsonToPhone(JSONObject phoneJson, boolean debug) {
+        Phone phone = new Phone();
+        phone.setName(phoneJson.optString("name", ""));
+        phone.setLink(phoneJson.optString("link", ""));
+        phone.setPrice(phoneJson.optDouble("price", 0));
+        phone.setViewCount(phoneJson.optInt("viewCount", 0));
+
+        if (phoneJson.has("imgURL")) {
+            phone.setImageUrl(phoneJson.getString("imgURL"));
+        }
+
+        // Xử lý description
+        PhoneDescription description = new PhoneDescription();
+        if (phoneJson.has("description")) {
+            JSONObject descJson = phoneJson.getJSONObject("description");
+
+            if (debug) {
+                System.out.println("DEBUG: Processing description for " + phone.getName());
+                System.out.println("DEBUG: Description has " + descJson.length() + " keys");
+            }
+
+            // Lấy tất cả keys từ description
+            Iterator<String> keys = descJson.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                String value = descJson.optString(key, "");
+                description.setAttribute(key, value);
+
+                // Debug một vài key quan trọng
+                if (debug && (key.equals("Camera sau") || key.equals("Chipset"))) {
+                    System.out.println("DEBUG: Set '" + key + "' = '" +
+                            (value.length() > 50 ? value.substring(0, 50) + "..." : value) + "'");
+                }
+            }
+
+            if (debug) {
+                System.out.println("DEBUG: Description now has " +
+                        description.getAllAttributes().size() + " attributes");
+            }
+        }
+
+        phone.setDescription(description);
+        return phone;
+    }
+
+    /**
+     * Thời gian tải dữ liệu lúc khởi tạo
+     * @return Số mili giây
+     */
+    public long getLoadTimeMillis() {
+        return loadTimeMillis;
+    }
+
     @Override
     public List<Phone> getAllPhones() {
-        return new ArrayList<>(phones);
+        return catalog.getPhones(); // Danh sách chỉ đọc, không cần sao chép
     }
 
     @Override
     public Optional<Phone> findPhoneByName(String name) {
-        return phones.stream()
-                .filter(p -> p.getName().equalsIgnoreCase(name))
-                .findFirst();
+        return Optional.ofNullable(catalog.findByName(name));
     }
 
     @Override
     public Optional<Phone> findPhoneByLink(String link) {
-        return phones.stream()
-                .filter(p -> p.getLink().equals(link))
-                .findFirst();
+        return Optional.ofNullable(catalog.findByLink(link));
     }
 
     @Override
@@ -134,10 +204,8 @@ public class LocalJsonPhoneRepositoryWithOrgJson extends AbstractPhoneRepository
             return getAllPhones();
         }
 
-        String lowercaseKeyword = keyword.toLowerCase();
-        return phones.stream()
-                .filter(p -> p.getName().toLowerCase().contains(lowercaseKeyword))
-                .collect(Collectors.toList());
+        KeywordIndex index = catalog.getKeywordIndex();
+        return index.toList(index.searchNamesOrSimilar(keyword));
     }
 
     @Override
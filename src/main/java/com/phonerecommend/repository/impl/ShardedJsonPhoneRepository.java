@@ -0,0 +1,402 @@
+package com.phonerecommend.repository.impl;
+
+import com.phonerecommend.model.Phone;
+import com.phonerecommend.model.PhoneSpecs;
+import com.phonerecommend.repository.AbstractPhoneRepository;
+import com.phonerecommend.repository.catalog.CatalogSnapshot;
+import com.phonerecommend.repository.catalog.KeywordIndex;
+import com.phonerecommend.repository.storage.PhoneJsonReader;
+import com.phonerecommend.repository.storage.PhoneJsonWriter;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Repository lưu danh mục thành nhiều file JSON, mỗi hãng một file (shard)
+ * - Các shard được tải song song
+ * - Lưu/xóa một điện thoại chỉ ghi lại shard chứa điện thoại đó
+ * - Một shard bị hỏng không ảnh hưởng tới các shard còn lại
+ */
+public class ShardedJsonPhoneRepository extends AbstractPhoneRepository {
+    private static final String SHARD_EXTENSION = ".json";
+    // Có mặt trong thư mục khi lần tách shard đầu tiên chưa ghi xong mọi shard
+    private static final String SPLIT_MARKER = ".split-incomplete";
+
+    private final Path shardDirectory;
+    private final int loadThreads;
+
+    // Tên shard -> danh sách điện thoại của shard
+    private final Map<String, List<Phone>> shards = new TreeMap<>();
+    // Link -> tên shard đang chứa điện thoại
+    private final Map<String, String> shardByLink = new HashMap<>();
+    // Shard không đọc được, không ghi đè để tránh mất dữ liệu
+    private final Set<String> failedShards = new HashSet<>();
+    // Lần tách shard chưa ghi đủ các file: lần ghi sau ghi lại mọi shard trước khi bỏ marker
+    private boolean splitPending;
+    // Danh sách gộp của mọi shard: dựng một lần khi tải, sau đó cập nhật bằng withPut/withPutAll/withDelete
+    private volatile CatalogSnapshot catalog = CatalogSnapshot.of(new ArrayList<>());
+    private long loadTimeMillis;
+
+    /**
+     * Constructor
+     * @param shardDirectory Thư mục chứa các file shard
+     * @param sourceJsonPath File phones.json dùng để tách shard lần đầu (khi thư mục chưa có shard nào)
+     * @param loadThreads Số luồng tải shard, <= 0 = dùng số nhân CPU
+     */
+    public ShardedJsonPhoneRepository(String shardDirectory, String sourceJsonPath, int loadThreads) {
+        this.shardDirectory = Paths.get(shardDirectory);
+        this.loadThreads = loadThreads > 0 ? loadThreads : Runtime.getRuntime().availableProcessors();
+
+        long start = System.nanoTime();
+        try {
+            Files.createDirectories(this.shardDirectory);
+            List<Path> shardFiles = listShardFiles();
+            boolean splitInterrupted = Files.exists(splitMarker());
+            if ((shardFiles.isEmpty() || splitInterrupted)
+                    && sourceJsonPath != null && Files.exists(Paths.get(sourceJsonPath))) {
+                if (splitInterrupted) {
+                    System.err.println("Lần tách shard trước chưa hoàn tất, tách lại từ " + sourceJsonPath);
+                }
+                splitIntoShards(Paths.get(sourceJsonPath));
+            } else {
+                loadShards(shardFiles);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Lỗi khi đọc thư mục shard: " + e.getMessage());
+        }
+        publishCatalog();
+        this.loadTimeMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Loaded " + getAllPhones().size() + " phones from " + shards.size()
+                + " shards in " + loadTimeMillis + " ms");
+    }
+
+    /**
+     * Xác định shard cho điện thoại theo hãng (từ đầu tiên của tên, bỏ qua tiền tố "Điện thoại")
+     * @param phone Điện thoại
+     * @return Tên shard
+     */
+    static String shardFor(Phone phone) {
+        return PhoneSpecs.brandOf(phone.getName());
+    }
+
+    private List<Path> listShardFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(shardDirectory, "*" + SHARD_EXTENSION)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    private Path splitMarker() {
+        return shardDirectory.resolve(SPLIT_MARKER);
+    }
+
+    /**
+     * Tách file phones.json thành các shard (lần đầu, hoặc khi lần tách trước bị ngắt giữa chừng)
+     * Marker được tạo trước khi ghi và chỉ bị xóa khi mọi shard đã ghi xong, nên lần khởi động sau
+     * không coi vài shard ghi dở là toàn bộ danh mục
+     */
+    private void splitIntoShards(Path sourceJson) throws IOException {
+        System.out.println("Splitting " + sourceJson + " into shards at " + shardDirectory);
+        List<Phone> phones = new ArrayList<>();
+        try (PhoneJsonReader reader = PhoneJsonReader.open(sourceJson)) {
+            reader.readAll(phones::add);
+        }
+
+        for (Phone phone : phones) {
+            addToShard(shardFor(phone), phone);
+        }
+        if (!Files.exists(splitMarker())) {
+            Files.createFile(splitMarker());
+        }
+        splitPending = true;
+        finishSplit();
+    }
+
+    /**
+     * Ghi mọi shard của lần tách đang dở rồi xóa marker
+     * @return true nếu mọi shard đã được ghi
+     */
+    private boolean finishSplit() {
+        boolean success = true;
+        for (String shard : shards.keySet()) {
+            success &= writeShardFile(shard);
+        }
+        if (!success) {
+            System.err.println("Chưa ghi được đủ shard, sẽ ghi lại ở lần lưu sau");
+            return false;
+        }
+        try {
+            Files.deleteIfExists(splitMarker());
+            splitPending = false;
+            return true;
+        } catch (IOException e) {
+            System.err.println("Không xóa được marker tách shard: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Tải song song các file shard
+     */
+    private void loadShards(List<Path> shardFiles) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(loadThreads, Math.max(1, shardFiles.size())));
+        try {
+            Map<String, Future<List<Phone>>> results = new LinkedHashMap<>();
+            for (Path file : shardFiles) {
+                results.put(shardName(file), executor.submit(() -> readShard(file)));
+            }
+
+            for (Map.Entry<String, Future<List<Phone>>> result : results.entrySet()) {
+                String shard = result.getKey();
+                try {
+                    shards.put(shard, new ArrayList<>());
+                    for (Phone phone : result.getValue().get()) {
+                        addToShard(shard, phone);
+                    }
+                } catch (ExecutionException e) {
+                    failedShards.add(shard);
+                    System.err.println("Không đọc được shard " + shard + ", bỏ qua: " + e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static List<Phone> readShard(Path file) throws IOException {
+        List<Phone> phones = new ArrayList<>();
+        try (PhoneJsonReader reader = PhoneJsonReader.open(file)) {
+            reader.readAll(phones::add);
+        }
+        return phones;
+    }
+
+    private static String shardName(Path file) {
+        String fileName = file.getFileName().toString();
+        return fileName.substring(0, fileName.length() - SHARD_EXTENSION.length());
+    }
+
+    private void addToShard(String shard, Phone phone) {
+        shards.computeIfAbsent(shard, key -> new ArrayList<>()).add(phone);
+        shardByLink.putIfAbsent(phone.getLink(), shard);
+    }
+
+    /**
+     * Ghi lại một shard; nếu lần tách shard đầu tiên chưa xong thì ghi lại mọi shard,
+     * vì còn marker thì lần khởi động sau sẽ tách lại từ phones.json và bỏ qua file shard này
+     */
+    private boolean writeShard(String shard) {
+        if (splitPending) {
+            return finishSplit();
+        }
+        return writeShardFile(shard);
+    }
+
+    /**
+     * Ghi file của một shard (file tạm + đổi tên nguyên tử)
+     */
+    private boolean writeShardFile(String shard) {
+        try {
+            PhoneJsonWriter.writeCatalog(shards.get(shard), shardDirectory.resolve(shard + SHARD_EXTENSION));
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Lỗi khi ghi shard " + shard + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Số shard đang có
+     */
+    public synchronized int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Thời gian tải dữ liệu lúc khởi tạo
+     * @return Số mili giây
+     */
+    public long getLoadTimeMillis() {
+        return loadTimeMillis;
+    }
+
+    private synchronized void publishCatalog() {
+        List<Phone> all = new ArrayList<>(shardByLink.size());
+        for (List<Phone> shard : shards.values()) {
+            all.addAll(shard);
+        }
+        catalog = catalog.next(all);
+    }
+
+    @Override
+    public List<Phone> getAllPhones() {
+        return catalog.getPhones();
+    }
+
+    @Override
+    public Optional<Phone> findPhoneByName(String name) {
+        return Optional.ofNullable(catalog.findByName(name));
+    }
+
+    @Override
+    public Optional<Phone> findPhoneByLink(String link) {
+        return Optional.ofNullable(catalog.findByLink(link));
+    }
+
+    @Override
+    public List<Phone> searchPhones(String keyword) {
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return getAllPhones();
+        }
+
+        KeywordIndex index = catalog.getKeywordIndex();
+        return index.toList(index.searchNamesOrSimilar(keyword));
+    }
+
+    @Override
+    public synchronized boolean savePhone(Phone phone) {
+        String shard = shardForSave(phone);
+        if (shard == null) {
+            return false;
+        }
+
+        List<Phone> phones = shards.computeIfAbsent(shard, key -> new ArrayList<>());
+        boolean replaced = false;
+        for (int i = 0; i < phones.size(); i++) {
+            if (phones.get(i).getLink().equals(phone.getLink())) {
+                phones.set(i, phone);
+                replaced = true;
+                break;
+            }
+        }
+        if (!replaced) {
+            phones.add(phone);
+            shardByLink.put(phone.getLink(), shard);
+        }
+        catalog = catalog.withPut(phone);
+        indexPhone(phone);
+
+        return writeShard(shard);
+    }
+
+    /**
+     * Lưu nhiều điện thoại: một snapshot mới duy nhất và mỗi shard bị ảnh hưởng chỉ ghi lại một lần
+     */
+    @Override
+    public synchronized boolean savePhones(List<Phone> phones) {
+        List<Phone> accepted = new ArrayList<>(phones.size());
+        Set<String> changedShards = putIntoShards(phones, accepted);
+        catalog = catalog.withPutAll(accepted);
+        for (Phone phone : accepted) {
+            indexPhone(phone);
+        }
+        return writeShards(changedShards) && accepted.size() == phones.size();
+    }
+
+    /**
+     * Lưu lượt xem: snapshot mới giữ nguyên các chỉ mục tìm kiếm, mỗi shard chỉ ghi lại một lần
+     */
+    @Override
+    public synchronized boolean saveViewCounts(List<Phone> phones) {
+        List<Phone> accepted = new ArrayList<>(phones.size());
+        Set<String> changedShards = putIntoShards(phones, accepted);
+        catalog = catalog.withViewCounts(accepted);
+        return writeShards(changedShards) && accepted.size() == phones.size();
+    }
+
+    /**
+     * Shard sẽ chứa điện thoại khi lưu
+     * @return Tên shard, hoặc null nếu shard đang bị lỗi (không ghi đè)
+     */
+    private String shardForSave(Phone phone) {
+        String shard = shardByLink.getOrDefault(phone.getLink(), shardFor(phone));
+        if (failedShards.contains(shard)) {
+            System.err.println("Shard " + shard + " đang bị lỗi, không ghi đè: " + phone.getName());
+            return null;
+        }
+        return shard;
+    }
+
+    /**
+     * Thay/thêm các điện thoại vào danh sách của shard, mỗi shard chỉ quét một lần để lập link -> vị trí
+     * @param accepted Nhận các điện thoại đã đưa vào shard (bỏ qua điện thoại thuộc shard bị lỗi)
+     * @return Các shard đã thay đổi
+     */
+    private Set<String> putIntoShards(List<Phone> phones, List<Phone> accepted) {
+        Map<String, Map<String, Integer>> positions = new HashMap<>();
+        for (Phone phone : phones) {
+            String shard = shardForSave(phone);
+            if (shard == null) {
+                continue;
+            }
+
+            List<Phone> shardPhones = shards.computeIfAbsent(shard, key -> new ArrayList<>());
+            Map<String, Integer> shardPositions = positions.computeIfAbsent(shard, key -> {
+                Map<String, Integer> map = new HashMap<>(shardPhones.size() * 2);
+                for (int i = 0; i < shardPhones.size(); i++) {
+                    map.putIfAbsent(shardPhones.get(i).getLink(), i);
+                }
+                return map;
+            });
+
+            Integer position = shardPositions.get(phone.getLink());
+            if (position != null) {
+                shardPhones.set(position, phone);
+            } else {
+                shardPositions.put(phone.getLink(), shardPhones.size());
+                shardPhones.add(phone);
+                shardByLink.put(phone.getLink(), shard);
+            }
+            accepted.add(phone);
+        }
+        return positions.keySet();
+    }
+
+    private boolean writeShards(Set<String> changedShards) {
+        boolean success = true;
+        for (String shard : changedShards) {
+            success &= writeShard(shard);
+        }
+        return success;
+    }
+
+    @Override
+    public synchronized boolean deletePhone(Phone phone) {
+        String shard = shardByLink.get(phone.getLink());
+        if (shard == null || failedShards.contains(shard)) {
+            return false;
+        }
+
+        boolean removed = shards.get(shard).removeIf(p -> p.getLink().equals(phone.getLink()));
+        if (!removed) {
+            return false;
+        }
+        shardByLink.remove(phone.getLink());
+        catalog = catalog.withDelete(phone.getLink());
+        unindexPhone(phone.getLink());
+        return writeShard(shard);
+    }
+}
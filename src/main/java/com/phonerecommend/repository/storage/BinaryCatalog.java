@@ -0,0 +1,306 @@
+package com.phonerecommend.repository.storage;
+
+import com.phonerecommend.model.Phone;
+import com.phonerecommend.model.PhoneDescription;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Snapshot nhị phân của danh mục điện thoại (file .pcat), được memory-map và đọc lazy
+ *
+ * Cấu trúc file (big-endian):
+ * - Header (72 byte): magic, phiên bản, kích thước + thời điểm sửa + SHA-256 của file JSON nguồn,
+ *   số điện thoại, số chuỗi, số thuộc tính
+ * - Các cột số cố định: price (double), viewCount, nameId, linkId, imageId (int),
+ *   attrStart (int, n + 1 phần tử)
+ * - Bảng thuộc tính: các cặp (keyId, valueId)
+ * - Bảng chuỗi: offset (int, stringCount + 1 phần tử) và dữ liệu UTF-8, mỗi chuỗi chỉ lưu một lần
+ *
+ * FileChannel được đóng ngay sau khi map (vùng nhớ map vẫn dùng được), nên snapshot không giữ file
+ * descriptor nào và được giải phóng cùng các điện thoại tham chiếu tới nó
+ */
+public class BinaryCatalog implements Closeable {
+    static final int MAGIC = 0x50434154; // "PCAT"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 72;
+    static final int HASH_LENGTH = 32;
+    static final int NO_STRING = -1;
+
+    public static final String FILE_EXTENSION = ".pcat";
+
+    private final MappedByteBuffer data;
+
+    private final int phoneCount;
+    private final int stringCount;
+
+    private final int priceOffset;
+    private final int viewCountOffset;
+    private final int nameOffset;
+    private final int linkOffset;
+    private final int imageOffset;
+    private final int attrStartOffset;
+    private final int attrOffset;
+    private final int stringIndexOffset;
+    private final int stringDataOffset;
+
+    // Chuỗi đã giải mã, dùng chung giữa các điện thoại
+    private final String[] stringCache;
+    // Điện thoại đã tạo qua getPhone, mỗi vị trí chỉ một đối tượng
+    private final AtomicReferenceArray<Phone> phones;
+
+    private BinaryCatalog(MappedByteBuffer data) throws IOException {
+        this.data = data;
+
+        if (data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+            throw new IOException("File không phải snapshot .pcat hợp lệ");
+        }
+        if (data.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Phiên bản snapshot không được hỗ trợ: " + data.getInt(4));
+        }
+
+        this.phoneCount = data.getInt(56);
+        this.stringCount = data.getInt(60);
+        int attrCount = data.getInt(64);
+
+        this.priceOffset = HEADER_SIZE;
+        this.viewCountOffset = priceOffset + phoneCount * 8;
+        this.nameOffset = viewCountOffset + phoneCount * 4;
+        this.linkOffset = nameOffset + phoneCount * 4;
+        this.imageOffset = linkOffset + phoneCount * 4;
+        this.attrStartOffset = imageOffset + phoneCount * 4;
+        this.attrOffset = attrStartOffset + (phoneCount + 1) * 4;
+        this.stringIndexOffset = attrOffset + attrCount * 8;
+        this.stringDataOffset = stringIndexOffset + (stringCount + 1) * 4;
+
+        if (stringDataOffset > data.capacity()) {
+            throw new IOException("Snapshot .pcat bị cắt cụt");
+        }
+        this.stringCache = new String[stringCount];
+        this.phones = new AtomicReferenceArray<>(phoneCount);
+    }
+
+    /**
+     * Mở và memory-map một file snapshot
+     * @param path Đường dẫn file .pcat
+     * @return Snapshot đã map
+     * @throws IOException Nếu không đọc được hoặc sai định dạng
+     */
+    public static BinaryCatalog open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new BinaryCatalog(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Đường dẫn snapshot mặc định nằm cạnh file JSON (phones.json -> phones.pcat)
+     */
+    public static Path snapshotPathFor(Path jsonPath) {
+        String fileName = jsonPath.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        String baseName = dot > 0 ? fileName.substring(0, dot) : fileName;
+        return jsonPath.resolveSibling(baseName + FILE_EXTENSION);
+    }
+
+    /**
+     * Kiểm tra snapshot có còn khớp với file JSON nguồn không
+     * Nếu kích thước và thời điểm sửa khớp thì coi là còn mới, nếu không thì so sánh SHA-256;
+     * khi SHA-256 khớp (file chỉ đổi thời điểm sửa), header được cập nhật để lần sau không phải hash lại
+     * @param snapshotPath File .pcat
+     * @param jsonPath File JSON nguồn
+     * @return true nếu có thể dùng lại snapshot
+     */
+    public static boolean isUpToDate(Path snapshotPath, Path jsonPath) {
+        if (!Files.exists(snapshotPath) || !Files.exists(jsonPath)) {
+            return false;
+        }
+
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) > 0) {
+                // Đọc đủ header
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE
+                    || header.getInt(0) != MAGIC || header.getInt(4) != FORMAT_VERSION) {
+                return false;
+            }
+
+            long sourceSize = header.getLong(8);
+            long sourceModified = header.getLong(16);
+            long currentSize = Files.size(jsonPath);
+            long currentModified = Files.getLastModifiedTime(jsonPath).toMillis();
+            if (sourceSize == currentSize && sourceModified == currentModified) {
+                return true;
+            }
+
+            byte[] storedHash = new byte[HASH_LENGTH];
+            header.position(24);
+            header.get(storedHash);
+            if (!Arrays.equals(storedHash, sha256(jsonPath))) {
+                return false;
+            }
+        } catch (IOException e) {
+            System.err.println("Không kiểm tra được snapshot: " + e.getMessage());
+            return false;
+        }
+
+        updateSourceStamp(snapshotPath, jsonPath);
+        return true;
+    }
+
+    /**
+     * Ghi lại kích thước và thời điểm sửa hiện tại của file JSON vào header (byte 8-23)
+     * Lỗi ghi không ảnh hưởng snapshot, lần sau chỉ phải so sánh SHA-256 lại
+     */
+    private static void updateSourceStamp(Path snapshotPath, Path jsonPath) {
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.WRITE)) {
+            ByteBuffer stamp = ByteBuffer.allocate(16);
+            stamp.putLong(Files.size(jsonPath));
+            stamp.putLong(Files.getLastModifiedTime(jsonPath).toMillis());
+            stamp.flip();
+            long position = 8;
+            while (stamp.hasRemaining()) {
+                position += channel.write(stamp, position);
+            }
+        } catch (IOException e) {
+            System.err.println("Không cập nhật được header snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Tính SHA-256 của một file
+     */
+    static byte[] sha256(Path path) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 không khả dụng", e);
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Số điện thoại trong snapshot
+     */
+    public int size() {
+        return phoneCount;
+    }
+
+    public double getPrice(int index) {
+        return data.getDouble(priceOffset + index * 8);
+    }
+
+    public int getViewCount(int index) {
+        return data.getInt(viewCountOffset + index * 4);
+    }
+
+    public String getName(int index) {
+        return getString(data.getInt(nameOffset + index * 4));
+    }
+
+    public String getLink(int index) {
+        return getString(data.getInt(linkOffset + index * 4));
+    }
+
+    public String getImageUrl(int index) {
+        return getString(data.getInt(imageOffset + index * 4));
+    }
+
+    /**
+     * Điện thoại tại vị trí, tạo ở lần gọi đầu tiên và trả về cùng đối tượng cho các lần sau
+     * @param index Thứ tự điện thoại trong snapshot
+     * @return Điện thoại
+     */
+    public Phone getPhone(int index) {
+        Phone phone = phones.get(index);
+        if (phone == null) {
+            Phone created = readPhone(index);
+            phone = phones.compareAndSet(index, null, created) ? created : phones.get(index);
+        }
+        return phone;
+    }
+
+    /**
+     * Tạo điện thoại mới với các trường tóm tắt, description chỉ được giải mã khi truy cập lần đầu
+     * @param index Thứ tự điện thoại trong snapshot
+     * @return Điện thoại
+     */
+    public Phone readPhone(int index) {
+        Phone phone = new Phone();
+        phone.setName(getName(index));
+        String imageUrl = getImageUrl(index);
+        if (imageUrl != null) {
+            phone.setImageUrl(imageUrl);
+        }
+        String link = getLink(index);
+        if (link != null) {
+            phone.setLink(link);
+        }
+        phone.setPrice(getPrice(index));
+        phone.setViewCount(getViewCount(index));
+        phone.setDescriptionLoader(() -> readDescription(index));
+        return phone;
+    }
+
+    /**
+     * Giải mã description của một điện thoại từ bảng thuộc tính
+     * @param index Thứ tự điện thoại trong snapshot
+     * @return Mô tả chi tiết
+     */
+    public PhoneDescription readDescription(int index) {
+        PhoneDescription description = new PhoneDescription();
+        int from = data.getInt(attrStartOffset + index * 4);
+        int to = data.getInt(attrStartOffset + (index + 1) * 4);
+        for (int i = from; i < to; i++) {
+            int entry = attrOffset + i * 8;
+            description.setAttribute(getString(data.getInt(entry)), getString(data.getInt(entry + 4)));
+        }
+        return description;
+    }
+
+    private String getString(int id) {
+        if (id == NO_STRING) {
+            return null;
+        }
+
+        String cached = stringCache[id];
+        if (cached == null) {
+            int start = data.getInt(stringIndexOffset + id * 4);
+            int end = data.getInt(stringIndexOffset + (id + 1) * 4);
+            byte[] bytes = new byte[end - start];
+            data.get(stringDataOffset + start, bytes);
+            cached = new String(bytes, StandardCharsets.UTF_8);
+            stringCache[id] = cached;
+        }
+        return cached;
+    }
+
+    /**
+     * Không còn tài nguyên cần đóng: channel đã đóng khi mở, vùng nhớ map được giải phóng khi không còn tham chiếu
+     */
+    @Override
+    public void close() {
+    }
+}
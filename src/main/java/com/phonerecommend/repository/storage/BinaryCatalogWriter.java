@@ -0,0 +1,126 @@
+package com.phonerecommend.repository.storage;
+
+import com.phonerecommend.model.Phone;
+import com.phonerecommend.model.PhoneDescription;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ghi danh mục điện thoại ra snapshot nhị phân .pcat (xem BinaryCatalog để biết cấu trúc file)
+ */
+public class BinaryCatalogWriter {
+
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private final List<byte[]> strings = new ArrayList<>();
+
+    /**
+     * Ghi snapshot cho file JSON nguồn, ghi ra file tạm rồi đổi tên để không bao giờ để lại file dở dang
+     * @param phones Danh sách điện thoại (theo thứ tự trong file JSON)
+     * @param snapshotPath File .pcat đích
+     * @param jsonPath File JSON nguồn (dùng để lưu kích thước, thời điểm sửa và SHA-256)
+     * @throws IOException Nếu lỗi ghi file
+     */
+    public static void write(List<Phone> phones, Path snapshotPath, Path jsonPath) throws IOException {
+        new BinaryCatalogWriter().writeSnapshot(phones, snapshotPath, jsonPath);
+    }
+
+    private void writeSnapshot(List<Phone> phones, Path snapshotPath, Path jsonPath) throws IOException {
+        int n = phones.size();
+        int[] nameIds = new int[n];
+        int[] linkIds = new int[n];
+        int[] imageIds = new int[n];
+        int[] attrStarts = new int[n + 1];
+        List<int[]> attrs = new ArrayList<>();
+
+        for (int i = 0; i < n; i++) {
+            Phone phone = phones.get(i);
+            nameIds[i] = stringId(phone.getName());
+            linkIds[i] = stringId(phone.getLink());
+            imageIds[i] = stringId(phone.getImageUrl());
+
+            attrStarts[i] = attrs.size();
+            PhoneDescription description = phone.getDescription();
+            if (description != null) {
+                for (Map.Entry<String, String> entry : description.getAllAttributes().entrySet()) {
+                    attrs.add(new int[]{stringId(entry.getKey()), stringId(entry.getValue())});
+                }
+            }
+        }
+        attrStarts[n] = attrs.size();
+
+        Path tempPath = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tempPath), 64 * 1024))) {
+            // Header
+            out.writeInt(BinaryCatalog.MAGIC);
+            out.writeInt(BinaryCatalog.FORMAT_VERSION);
+            out.writeLong(Files.size(jsonPath));
+            out.writeLong(Files.getLastModifiedTime(jsonPath).toMillis());
+            out.write(BinaryCatalog.sha256(jsonPath));
+            out.writeInt(n);
+            out.writeInt(strings.size());
+            out.writeInt(attrs.size());
+            out.writeInt(0); // Dự phòng
+
+            // Các cột cố định
+            for (Phone phone : phones) {
+                out.writeDouble(phone.getPrice());
+            }
+            for (Phone phone : phones) {
+                out.writeInt(phone.getViewCount());
+            }
+            writeInts(out, nameIds);
+            writeInts(out, linkIds);
+            writeInts(out, imageIds);
+            writeInts(out, attrStarts);
+
+            // Bảng thuộc tính
+            for (int[] attr : attrs) {
+                out.writeInt(attr[0]);
+                out.writeInt(attr[1]);
+            }
+
+            // Bảng chuỗi
+            int offset = 0;
+            for (byte[] string : strings) {
+                out.writeInt(offset);
+                offset += string.length;
+            }
+            out.writeInt(offset);
+            for (byte[] string : strings) {
+                out.write(string);
+            }
+        }
+
+        Files.move(tempPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private int stringId(String value) {
+        if (value == null) {
+            return BinaryCatalog.NO_STRING;
+        }
+        Integer id = stringIds.get(value);
+        if (id == null) {
+            id = strings.size();
+            strings.add(value.getBytes(StandardCharsets.UTF_8));
+            stringIds.put(value, id);
+        }
+        return id;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+}
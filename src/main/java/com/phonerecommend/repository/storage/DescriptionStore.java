@@ -0,0 +1,105 @@
+package com.phonerecommend.repository.storage;
+
+import com.phonerecommend.model.Phone;
+import com.phonerecommend.model.PhoneDescription;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Nạp description theo yêu cầu từ file JSON đã memory-map
+ * Mỗi điện thoại chỉ giữ vị trí byte của object description, description đã nạp
+ * được giữ trong cache LRU có giới hạn thay vì nằm trên Phone suốt vòng đời ứng dụng
+ */
+public class DescriptionStore implements Closeable {
+    public static final int DEFAULT_CACHE_SIZE = 256;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer data;
+    private final Map<Long, PhoneDescription> cache;
+
+    private long hits;
+    private long misses;
+
+    /**
+     * Mở file dữ liệu để nạp description
+     * @param path File JSON (phải cùng nội dung với lúc tính vị trí description)
+     * @param cacheSize Số description tối đa giữ trong cache
+     * @throws IOException Nếu không mở được file
+     */
+    public DescriptionStore(Path path, int cacheSize) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        this.cache = new LinkedHashMap<>(cacheSize * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, PhoneDescription> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Parser cho ParallelCatalogLoader: chỉ đọc các trường tóm tắt và gắn loader lấy description từ store
+     */
+    public Phone parseSummary(ByteBuffer object, long fileOffset) throws IOException {
+        PhoneJsonReader reader = new PhoneJsonReader(object, fileOffset);
+        Phone phone = reader.readPhoneSummary();
+        long offset = reader.getDescriptionOffset();
+        if (offset >= 0) {
+            phone.setDescriptionLoader(() -> load(offset), false);
+        }
+        return phone;
+    }
+
+    /**
+     * Lấy description tại vị trí cho trước, đọc từ file nếu chưa có trong cache
+     * @param offset Vị trí byte của object description
+     * @return Mô tả chi tiết
+     */
+    public PhoneDescription load(long offset) {
+        synchronized (cache) {
+            PhoneDescription cached = cache.get(offset);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+
+        PhoneDescription description;
+        try {
+            ByteBuffer view = data.duplicate();
+            view.position((int) offset);
+            description = new PhoneJsonReader(view.slice(), offset).readDescription();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Không đọc được description tại byte " + offset, e);
+        }
+
+        synchronized (cache) {
+            PhoneDescription existing = cache.putIfAbsent(offset, description);
+            return existing != null ? existing : description;
+        }
+    }
+
+    /**
+     * Thống kê cache, dạng "hits/misses (size)"
+     */
+    public String getCacheStats() {
+        synchronized (cache) {
+            return hits + " hits / " + misses + " misses (" + cache.size() + " cached)";
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
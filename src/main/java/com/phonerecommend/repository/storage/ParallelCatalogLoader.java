@@ -0,0 +1,149 @@
+package com.phonerecommend.repository.storage;
+
+import com.phonerecommend.model.Phone;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Tải file dữ liệu điện thoại song song trên nhiều nhân CPU
+ * Bước 1: quét cấu trúc để tách vùng byte của từng object cấp cao nhất
+ * Bước 2: parse từng vùng thành Phone trên ForkJoinPool, giữ nguyên thứ tự trong file
+ */
+public class ParallelCatalogLoader {
+    // Số object tối thiểu mỗi task xử lý trước khi chia nhỏ tiếp
+    private static final int MIN_OBJECTS_PER_TASK = 32;
+
+    /**
+     * Interface parse một vùng byte chứa đúng một object JSON thành Phone
+     */
+    public interface ObjectParser {
+        /**
+         * @param object Buffer chứa object (từ position đến limit)
+         * @param fileOffset Vị trí của object trong file
+         * @return Điện thoại đã parse
+         * @throws Exception Nếu object không hợp lệ
+         */
+        Phone parse(ByteBuffer object, long fileOffset) throws Exception;
+    }
+
+    private final int threads;
+
+    /**
+     * Constructor với số luồng
+     * @param threads Số luồng parse, nếu <= 0 thì dùng số nhân CPU
+     */
+    public ParallelCatalogLoader(int threads) {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Parser mặc định dùng PhoneJsonReader
+     */
+    public static Phone parseWithStreamingReader(ByteBuffer object, long fileOffset) throws IOException {
+        return new PhoneJsonReader(object, fileOffset).readPhone();
+    }
+
+    /**
+     * Tải toàn bộ file
+     * @param path Đường dẫn file JSON
+     * @param parser Cách parse từng object
+     * @return Danh sách điện thoại theo đúng thứ tự trong file
+     * @throws IOException Nếu lỗi đọc file hoặc lỗi parse
+     */
+    public List<Phone> load(Path path, ObjectParser parser) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() == 0) {
+                return new ArrayList<>();
+            }
+
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            long[] ranges = PhoneJsonReader.findObjectRanges(data);
+            Phone[] result = new Phone[ranges.length / 2];
+
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                pool.invoke(new ParseTask(data, ranges, result, parser, 0, result.length));
+            } catch (ParseFailure e) {
+                throw new IOException("Lỗi parse object tại byte " + e.offset + ": " + e.getCause().getMessage(), e.getCause());
+            } finally {
+                pool.shutdown();
+            }
+
+            return new ArrayList<>(Arrays.asList(result));
+        }
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Task chia đôi dải object cho tới khi đủ nhỏ rồi parse tuần tự
+     */
+    private static class ParseTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer data;
+        private final long[] ranges;
+        private final Phone[] result;
+        private final ObjectParser parser;
+        private final int from;
+        private final int to;
+
+        ParseTask(ByteBuffer data, long[] ranges, Phone[] result, ObjectParser parser, int from, int to) {
+            this.data = data;
+            this.ranges = ranges;
+            this.result = result;
+            this.parser = parser;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= MIN_OBJECTS_PER_TASK) {
+                // Mỗi task dùng bản duplicate riêng để position/limit không ảnh hưởng lẫn nhau
+                ByteBuffer view = data.duplicate();
+                for (int i = from; i < to; i++) {
+                    int start = (int) ranges[2 * i];
+                    int end = (int) ranges[2 * i + 1];
+                    view.limit(end).position(start);
+                    try {
+                        result[i] = parser.parse(view.slice(), start);
+                    } catch (Exception e) {
+                        throw new ParseFailure(start, e);
+                    }
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new ParseTask(data, ranges, result, parser, from, middle),
+                    new ParseTask(data, ranges, result, parser, middle, to));
+        }
+    }
+
+    /**
+     * Bọc lỗi parse để truyền qua ForkJoinPool
+     */
+    private static class ParseFailure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final long offset;
+
+        ParseFailure(long offset, Throwable cause) {
+            super(cause);
+            this.offset = offset;
+        }
+    }
+}
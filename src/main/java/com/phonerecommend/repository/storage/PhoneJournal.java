@@ -0,0 +1,222 @@
+package com.phonerecommend.repository.storage;
+
+import com.phonerecommend.model.Phone;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Journal ghi nối tiếp (write-ahead) cho các thay đổi của repository JSON
+ * Mỗi lần lưu/xóa chỉ ghi thêm một bản ghi nhỏ thay vì ghi lại toàn bộ file dữ liệu
+ *
+ * Bản ghi: [độ dài payload (int)][CRC32 của payload (int)][payload]
+ * Payload: 1 byte loại thao tác + dữ liệu (PUT: object JSON của phone, DELETE: link UTF-8)
+ *
+ * Mỗi lần ghi đều force xuống đĩa trước khi trả về; appendPuts ghi cả lô rồi force một lần
+ */
+public class PhoneJournal implements Closeable {
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DELETE = 2;
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    public static final String FILE_EXTENSION = ".journal";
+
+    private final Path path;
+    private FileChannel channel;
+    private long firstRecordMillis; // Thời điểm ghi bản ghi đầu tiên kể từ lần nén gần nhất, 0 nếu rỗng
+
+    /**
+     * Mở (hoặc tạo) journal
+     * @param path Đường dẫn file journal
+     * @throws IOException Nếu không mở được file
+     */
+    public PhoneJournal(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.firstRecordMillis = channel.size() > 0 ? System.currentTimeMillis() : 0;
+    }
+
+    /**
+     * Đường dẫn journal mặc định nằm cạnh file JSON (phones.json -> phones.json.journal)
+     */
+    public static Path journalPathFor(Path jsonPath) {
+        return jsonPath.resolveSibling(jsonPath.getFileName() + FILE_EXTENSION);
+    }
+
+    /**
+     * Phát lại toàn bộ bản ghi hợp lệ theo thứ tự ghi
+     * Bản ghi cuối bị ghi dở (do tiến trình dừng đột ngột) sẽ bị cắt bỏ
+     * @param onPut Xử lý bản ghi lưu điện thoại
+     * @param onDelete Xử lý bản ghi xóa điện thoại (theo link)
+     * @return Số bản ghi đã phát lại
+     * @throws IOException Nếu lỗi đọc file
+     */
+    public synchronized int replay(Consumer<Phone> onPut, Consumer<String> onDelete) throws IOException {
+        long size = channel.size();
+        long position = 0;
+        int count = 0;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+
+        while (position + RECORD_HEADER_SIZE <= size) {
+            header.clear();
+            readFully(header, position);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length <= 0 || position + RECORD_HEADER_SIZE + length > size) {
+                break;
+            }
+
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(payload, position + RECORD_HEADER_SIZE);
+            payload.flip();
+            if (crc(payload.array(), length) != checksum) {
+                break;
+            }
+
+            byte op = payload.get();
+            if (op == OP_PUT) {
+                onPut.accept(new PhoneJsonReader(payload.slice(), 0).readPhone());
+            } else if (op == OP_DELETE) {
+                onDelete.accept(new String(payload.array(), 1, length - 1, StandardCharsets.UTF_8));
+            } else {
+                break;
+            }
+
+            position += RECORD_HEADER_SIZE + length;
+            count++;
+        }
+
+        if (position < size) {
+            System.err.println("Journal có bản ghi hỏng tại byte " + position + ", cắt bỏ phần sau");
+            channel.truncate(position);
+        }
+        channel.position(position);
+        return count;
+    }
+
+    /**
+     * Ghi bản ghi lưu điện thoại
+     */
+    public synchronized void appendPut(Phone phone) throws IOException {
+        append(OP_PUT, PhoneJsonWriter.toBytes(phone));
+        channel.force(false);
+    }
+
+    /**
+     * Ghi bản ghi lưu cho nhiều điện thoại, chỉ force xuống đĩa một lần cho cả lô
+     */
+    public synchronized void appendPuts(Iterable<Phone> phones) throws IOException {
+        for (Phone phone : phones) {
+            append(OP_PUT, PhoneJsonWriter.toBytes(phone));
+        }
+        channel.force(false);
+    }
+
+    /**
+     * Ghi bản ghi xóa điện thoại
+     */
+    public synchronized void appendDelete(String link) throws IOException {
+        append(OP_DELETE, link.getBytes(StandardCharsets.UTF_8));
+        channel.force(false);
+    }
+
+    private void append(byte op, byte[] data) throws IOException {
+        byte[] payload = new byte[data.length + 1];
+        payload[0] = op;
+        System.arraycopy(data, 0, payload, 1, data.length);
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+        record.putInt(payload.length);
+        record.putInt(crc(payload, payload.length));
+        record.put(payload);
+        record.flip();
+
+        long end = channel.size();
+        while (record.hasRemaining()) {
+            end += channel.write(record, end);
+        }
+
+        if (firstRecordMillis == 0) {
+            firstRecordMillis = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Kích thước journal hiện tại
+     */
+    public synchronized long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Thời gian (ms) từ bản ghi đầu tiên chưa được nén, 0 nếu journal rỗng
+     */
+    public synchronized long getAgeMillis() {
+        return firstRecordMillis == 0 ? 0 : System.currentTimeMillis() - firstRecordMillis;
+    }
+
+    /**
+     * Bỏ các bản ghi đã được đưa vào snapshot, giữ lại phần ghi sau vị trí keepFrom
+     * @param keepFrom Kích thước journal tại thời điểm chụp snapshot
+     * @throws IOException Nếu lỗi ghi file
+     */
+    public synchronized void discardUpTo(long keepFrom) throws IOException {
+        long size = channel.size();
+        if (keepFrom >= size) {
+            channel.truncate(0);
+            firstRecordMillis = 0;
+            return;
+        }
+
+        // Chép phần đuôi sang file mới rồi thay thế nguyên tử
+        ByteBuffer tail = ByteBuffer.allocate((int) (size - keepFrom));
+        readFully(tail, keepFrom);
+        tail.flip();
+
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (tail.hasRemaining()) {
+                out.write(tail);
+            }
+            out.force(true);
+        }
+
+        channel.close();
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        firstRecordMillis = System.currentTimeMillis();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private void readFully(ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            int n = channel.read(target, position);
+            if (n < 0) {
+                throw new IOException("Journal kết thúc đột ngột");
+            }
+            position += n;
+        }
+    }
+
+    private static int crc(byte[] data, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        return (int) crc.getValue();
+    }
+}
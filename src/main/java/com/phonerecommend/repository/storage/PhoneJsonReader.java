@@ -0,0 +1,690 @@
+package com.phonerecommend.repository.storage;
+
+import com.phonerecommend.model.Phone;
+import com.phonerecommend.model.PhoneDescription;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Bộ đọc JSON dạng streaming cho file dữ liệu điện thoại
+ * Đọc trực tiếp byte UTF-8 từ FileChannel và tạo ngay các đối tượng Phone,
+ * không dựng Map trung gian hay chuỗi chứa toàn bộ file
+ */
+public class PhoneJsonReader implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int KEY_CACHE_SIZE = 256;
+
+    private static final byte[] FIELD_NAME = bytes("name");
+    private static final byte[] FIELD_LINK = bytes("link");
+    private static final byte[] FIELD_IMAGE_URL = bytes("imgURL");
+    private static final byte[] FIELD_PRICE = bytes("price");
+    private static final byte[] FIELD_VIEW_COUNT = bytes("viewCount");
+    private static final byte[] FIELD_DESCRIPTION = bytes("description");
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private long bufferStart; // Vị trí (byte) trong file ứng với phần tử 0 của buffer
+
+    // Vùng nhớ tạm dùng lại cho mỗi chuỗi/số đang đọc
+    private byte[] scratch = new byte[256];
+    private int scratchLength;
+
+    // Vị trí object description của điện thoại vừa đọc bằng readPhoneSummary(), -1 nếu không có
+    private long descriptionOffset = -1;
+
+    // Cache key của description để các phone dùng chung một instance String cho cùng một key
+    private final byte[][] cachedKeyBytes = new byte[KEY_CACHE_SIZE][];
+    private final String[] cachedKeys = new String[KEY_CACHE_SIZE];
+
+    /**
+     * Mở file JSON để đọc
+     * @param path Đường dẫn file
+     * @return Bộ đọc gắn với FileChannel của file
+     * @throws IOException Nếu không mở được file
+     */
+    public static PhoneJsonReader open(Path path) throws IOException {
+        return new PhoneJsonReader(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    /**
+     * Constructor đọc từ một channel
+     * @param channel Nguồn byte UTF-8
+     */
+    public PhoneJsonReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.buffer.flip();
+        this.bufferStart = 0;
+    }
+
+    /**
+     * Constructor đọc từ một vùng byte có sẵn trong bộ nhớ
+     * @param data Buffer chứa dữ liệu (đọc từ position đến limit)
+     * @param baseOffset Vị trí trong file của byte tại data.position()
+     */
+    public PhoneJsonReader(ByteBuffer data, long baseOffset) {
+        this.channel = null;
+        this.buffer = data;
+        this.bufferStart = baseOffset - data.position();
+    }
+
+    /**
+     * Đọc toàn bộ mảng JSON cấp cao nhất, gọi consumer cho từng điện thoại
+     * @param consumer Nơi nhận từng điện thoại ngay khi đọc xong
+     * @return Số điện thoại đã đọc
+     * @throws IOException Nếu lỗi đọc file hoặc sai cú pháp JSON
+     */
+    public int readAll(Consumer<Phone> consumer) throws IOException {
+        skipByteOrderMark();
+        int c = peekNonWhitespace();
+        if (c == -1) {
+            return 0; // File rỗng
+        }
+        expect('[');
+
+        int count = 0;
+        c = peekNonWhitespace();
+        if (c == ']') {
+            read();
+            return 0;
+        }
+
+        while (true) {
+            consumer.accept(readPhone());
+            count++;
+
+            c = nextNonWhitespace();
+            if (c == ']') {
+                return count;
+            }
+            if (c != ',') {
+                throw syntaxError("Thiếu ',' hoặc ']' sau phần tử mảng", c);
+            }
+        }
+    }
+
+    /**
+     * Đọc một object điện thoại tại vị trí hiện tại
+     * @return Điện thoại đã đọc
+     * @throws IOException Nếu lỗi đọc file hoặc sai cú pháp JSON
+     */
+    public Phone readPhone() throws IOException {
+        return readPhone(true);
+    }
+
+    /**
+     * Đọc một object điện thoại nhưng bỏ qua description, chỉ ghi nhận vị trí của nó
+     * (lấy bằng getDescriptionOffset() rồi đọc lại sau bằng readDescription())
+     * @return Điện thoại chỉ có các trường tóm tắt
+     * @throws IOException Nếu lỗi đọc file hoặc sai cú pháp JSON
+     */
+    public Phone readPhoneSummary() throws IOException {
+        return readPhone(false);
+    }
+
+    /**
+     * Vị trí (byte) của object description trong lần readPhoneSummary() gần nhất, -1 nếu không có
+     */
+    public long getDescriptionOffset() {
+        return descriptionOffset;
+    }
+
+    private Phone readPhone(boolean withDescription) throws IOException {
+        descriptionOffset = -1;
+        expect('{');
+        Phone phone = new Phone();
+
+        if (peekNonWhitespace() == '}') {
+            read();
+            return phone;
+        }
+
+        while (true) {
+            readKeyIntoScratch();
+            expect(':');
+
+            if (scratchEquals(FIELD_NAME)) {
+                phone.setName(readStringOrNull());
+            } else if (scratchEquals(FIELD_LINK)) {
+                String link = readStringOrNull();
+                if (link != null) {
+                    phone.setLink(link);
+                }
+            } else if (scratchEquals(FIELD_IMAGE_URL)) {
+                String imageUrl = readStringOrNull();
+                if (imageUrl != null) {
+                    phone.setImageUrl(imageUrl);
+                }
+            } else if (scratchEquals(FIELD_PRICE)) {
+                phone.setPrice(readNumberValue());
+            } else if (scratchEquals(FIELD_VIEW_COUNT)) {
+                phone.setViewCount((int) readNumberValue());
+            } else if (scratchEquals(FIELD_DESCRIPTION)) {
+                if (peekNonWhitespace() == '{' && withDescription) {
+                    phone.setDescription(readDescription());
+                } else if (peekNonWhitespace() == '{') {
+                    descriptionOffset = position();
+                    skipValue();
+                } else {
+                    skipValue();
+                }
+            } else {
+                skipValue(); // Trường không dùng đến
+            }
+
+            int c = nextNonWhitespace();
+            if (c == '}') {
+                return phone;
+            }
+            if (c != ',') {
+                throw syntaxError("Thiếu ',' hoặc '}' trong object điện thoại", c);
+            }
+        }
+    }
+
+    /**
+     * Đọc object description tại vị trí hiện tại
+     * @return Mô tả chi tiết điện thoại
+     * @throws IOException Nếu lỗi đọc file hoặc sai cú pháp JSON
+     */
+    public PhoneDescription readDescription() throws IOException {
+        expect('{');
+        PhoneDescription description = new PhoneDescription();
+
+        if (peekNonWhitespace() == '}') {
+            read();
+            return description;
+        }
+
+        while (true) {
+            readKeyIntoScratch();
+            String key = internScratchKey();
+            expect(':');
+            description.setAttribute(key, readValueAsString());
+
+            int c = nextNonWhitespace();
+            if (c == '}') {
+                return description;
+            }
+            if (c != ',') {
+                throw syntaxError("Thiếu ',' hoặc '}' trong description", c);
+            }
+        }
+    }
+
+    /**
+     * Quét nhanh cấu trúc mảng JSON cấp cao nhất để tìm vùng byte của từng object
+     * (chỉ theo dõi dấu ngoặc và chuỗi, không parse giá trị)
+     * @param data Toàn bộ nội dung file (đọc từ position đến limit, không làm thay đổi position)
+     * @return Mảng [start0, end0, start1, end1, ...] với end là vị trí ngay sau dấu '}'
+     * @throws IOException Nếu file không phải mảng các object hợp lệ
+     */
+    public static long[] findObjectRanges(ByteBuffer data) throws IOException {
+        int i = data.position();
+        int end = data.limit();
+        long[] ranges = new long[64];
+        int count = 0;
+
+        // Bỏ BOM và khoảng trắng, tìm '['
+        if (hasByteOrderMark(data, i, end)) {
+            i += 3;
+        }
+        while (i < end && isWhitespace(data.get(i))) {
+            i++;
+        }
+        if (i == end) {
+            return new long[0]; // File rỗng
+        }
+        if (data.get(i) != '[') {
+            throw new IOException("Lỗi cú pháp JSON tại byte " + i + ": cần ký tự '['");
+        }
+        i++;
+
+        int depth = 0;
+        boolean inString = false;
+        int objectStart = -1;
+        for (; i < end; i++) {
+            byte b = data.get(i);
+            if (inString) {
+                if (b == '\\') {
+                    i++;
+                } else if (b == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+
+            if (b == '"') {
+                inString = true;
+            } else if (b == '{' || b == '[') {
+                if (depth == 0) {
+                    if (b != '{') {
+                        throw new IOException("Lỗi cú pháp JSON tại byte " + i + ": phần tử mảng phải là object");
+                    }
+                    objectStart = i;
+                }
+                depth++;
+            } else if (b == '}' || b == ']') {
+                if (depth == 0) {
+                    // Dấu ']' đóng mảng cấp cao nhất
+                    return Arrays.copyOf(ranges, count);
+                }
+                depth--;
+                if (depth == 0) {
+                    if (count + 2 > ranges.length) {
+                        ranges = Arrays.copyOf(ranges, ranges.length * 2);
+                    }
+                    ranges[count++] = objectStart;
+                    ranges[count++] = i + 1;
+                }
+            }
+        }
+        throw new IOException("Lỗi cú pháp JSON: mảng cấp cao nhất chưa được đóng");
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    /**
+     * Vị trí hiện tại (byte) trong file
+     */
+    public long position() {
+        return bufferStart + buffer.position();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    // ==================== Đọc byte ====================
+
+    private int read() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) {
+            return -1;
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    private int peek() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) {
+            return -1;
+        }
+        return buffer.get(buffer.position()) & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        if (channel == null) {
+            return false;
+        }
+        bufferStart += buffer.limit();
+        buffer.clear();
+        int n;
+        do {
+            n = channel.read(buffer);
+        } while (n == 0);
+        buffer.flip();
+        return n > 0;
+    }
+
+    private int peekNonWhitespace() throws IOException {
+        int c = peek();
+        while (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            read();
+            c = peek();
+        }
+        return c;
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        int c = read();
+        while (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            c = read();
+        }
+        return c;
+    }
+
+    private void expect(char expected) throws IOException {
+        int c = nextNonWhitespace();
+        if (c != expected) {
+            throw syntaxError("Cần ký tự '" + expected + "'", c);
+        }
+    }
+
+    private void skipByteOrderMark() throws IOException {
+        peek(); // Nạp buffer lần đầu
+        if (hasByteOrderMark(buffer, buffer.position(), buffer.limit())) {
+            buffer.position(buffer.position() + 3);
+        }
+    }
+
+    // BOM UTF-8 là đủ 3 byte EF BB BF; file bắt đầu bằng 0xEF khác không bị bỏ byte
+    private static boolean hasByteOrderMark(ByteBuffer data, int start, int end) {
+        return end - start >= 3
+                && (data.get(start) & 0xFF) == 0xEF
+                && (data.get(start + 1) & 0xFF) == 0xBB
+                && (data.get(start + 2) & 0xFF) == 0xBF;
+    }
+
+    // ==================== Đọc giá trị ====================
+
+    private void readKeyIntoScratch() throws IOException {
+        int c = nextNonWhitespace();
+        if (c != '"') {
+            throw syntaxError("Cần tên trường dạng chuỗi", c);
+        }
+        readStringBody();
+    }
+
+    private String readStringOrNull() throws IOException {
+        int c = nextNonWhitespace();
+        if (c == '"') {
+            readStringBody();
+            return scratchToString();
+        }
+        if (c == 'n') {
+            expectLiteral("ull");
+            return null;
+        }
+        throw syntaxError("Cần giá trị chuỗi", c);
+    }
+
+    /**
+     * Đọc giá trị bất kỳ của description dưới dạng chuỗi
+     * (null -> "", số/boolean giữ nguyên dạng text, object/mảng lồng nhau giữ nguyên JSON)
+     */
+    private String readValueAsString() throws IOException {
+        int c = peekNonWhitespace();
+        if (c == '"') {
+            read();
+            readStringBody();
+            return scratchToString();
+        }
+        if (c == 'n') {
+            read();
+            expectLiteral("ull");
+            return "";
+        }
+        scratchLength = 0;
+        copyRawValue();
+        return scratchToString();
+    }
+
+    private double readNumberValue() throws IOException {
+        int c = peekNonWhitespace();
+        if (c == '"') {
+            // Một số nguồn dữ liệu lưu giá dạng chuỗi
+            read();
+            readStringBody();
+            try {
+                return Double.parseDouble(scratchToString().trim());
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        if (c == 'n') {
+            read();
+            expectLiteral("ull");
+            return 0;
+        }
+
+        scratchLength = 0;
+        boolean integral = true;
+        while (c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E' || (c >= '0' && c <= '9')) {
+            if (c == '.' || c == 'e' || c == 'E') {
+                integral = false;
+            }
+            appendScratch(read());
+            c = peek();
+        }
+        if (scratchLength == 0) {
+            throw syntaxError("Cần giá trị số", c);
+        }
+
+        if (integral && scratchLength <= 18) {
+            return parseLongFromScratch();
+        }
+        return Double.parseDouble(new String(scratch, 0, scratchLength, StandardCharsets.US_ASCII));
+    }
+
+    private long parseLongFromScratch() {
+        int i = 0;
+        boolean negative = false;
+        if (scratch[0] == '-' || scratch[0] == '+') {
+            negative = scratch[0] == '-';
+            i = 1;
+        }
+        long value = 0;
+        for (; i < scratchLength; i++) {
+            value = value * 10 + (scratch[i] - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Đọc phần thân chuỗi (sau dấu nháy mở) vào scratch dưới dạng byte UTF-8
+     */
+    private void readStringBody() throws IOException {
+        scratchLength = 0;
+        while (true) {
+            // Đường nhanh: chép liền một đoạn không có dấu nháy/escape trong buffer
+            if (buffer.hasArray()) {
+                byte[] array = buffer.array();
+                int offset = buffer.arrayOffset();
+                int start = buffer.position();
+                int end = buffer.limit();
+                int i = start;
+                while (i < end) {
+                    byte b = array[offset + i];
+                    if (b == '"' || b == '\\') {
+                        break;
+                    }
+                    i++;
+                }
+                if (i > start) {
+                    appendScratch(array, offset + start, i - start);
+                    buffer.position(i);
+                }
+            }
+
+            int c = read();
+            if (c == '"') {
+                return;
+            }
+            if (c == -1) {
+                throw syntaxError("Chuỗi chưa được đóng", c);
+            }
+            if (c == '\\') {
+                readEscape();
+            } else {
+                appendScratch(c);
+            }
+        }
+    }
+
+    private void readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case '"': appendScratch('"'); break;
+            case '\\': appendScratch('\\'); break;
+            case '/': appendScratch('/'); break;
+            case 'b': appendScratch('\b'); break;
+            case 'f': appendScratch('\f'); break;
+            case 'n': appendScratch('\n'); break;
+            case 'r': appendScratch('\r'); break;
+            case 't': appendScratch('\t'); break;
+            case 'u':
+                int codePoint = readHex4();
+                if (Character.isHighSurrogate((char) codePoint) && peek() == '\\') {
+                    read();
+                    if (read() != 'u') {
+                        throw syntaxError("Cặp surrogate không hợp lệ", c);
+                    }
+                    int low = readHex4();
+                    codePoint = Character.toCodePoint((char) codePoint, (char) low);
+                }
+                appendCodePoint(codePoint);
+                break;
+            default:
+                throw syntaxError("Escape không hợp lệ", c);
+        }
+    }
+
+    private int readHex4() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int c = read();
+            int digit = Character.digit(c, 16);
+            if (c == -1 || digit < 0) {
+                throw syntaxError("Mã \\u không hợp lệ", c);
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    private void appendCodePoint(int codePoint) {
+        if (codePoint < 0x80) {
+            appendScratch(codePoint);
+        } else if (codePoint < 0x800) {
+            appendScratch(0xC0 | (codePoint >> 6));
+            appendScratch(0x80 | (codePoint & 0x3F));
+        } else if (codePoint < 0x10000) {
+            appendScratch(0xE0 | (codePoint >> 12));
+            appendScratch(0x80 | ((codePoint >> 6) & 0x3F));
+            appendScratch(0x80 | (codePoint & 0x3F));
+        } else {
+            appendScratch(0xF0 | (codePoint >> 18));
+            appendScratch(0x80 | ((codePoint >> 12) & 0x3F));
+            appendScratch(0x80 | ((codePoint >> 6) & 0x3F));
+            appendScratch(0x80 | (codePoint & 0x3F));
+        }
+    }
+
+    private void expectLiteral(String rest) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            int c = read();
+            if (c != rest.charAt(i)) {
+                throw syntaxError("Giá trị literal không hợp lệ", c);
+            }
+        }
+    }
+
+    /**
+     * Bỏ qua một giá trị JSON bất kỳ
+     */
+    private void skipValue() throws IOException {
+        scratchLength = 0;
+        copyRawValue();
+    }
+
+    /**
+     * Chép nguyên văn một giá trị JSON (không phải chuỗi ở cấp ngoài cùng) vào scratch
+     */
+    private void copyRawValue() throws IOException {
+        int depth = 0;
+        boolean inString = false;
+        int c = peekNonWhitespace();
+
+        while (true) {
+            if (c == -1) {
+                throw syntaxError("Kết thúc file khi đang đọc giá trị", c);
+            }
+            if (!inString && depth == 0 && (c == ',' || c == '}' || c == ']'
+                    || c == ' ' || c == '\n' || c == '\r' || c == '\t')) {
+                return; // Hết giá trị đơn (số, true, false)
+            }
+
+            read();
+            appendScratch(c);
+
+            if (inString) {
+                if (c == '\\') {
+                    appendScratch(read());
+                } else if (c == '"') {
+                    inString = false;
+                    if (depth == 0) {
+                        return;
+                    }
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+                if (depth == 0) {
+                    return;
+                }
+            }
+            c = peek();
+        }
+    }
+
+    // ==================== Vùng nhớ tạm ====================
+
+    private void appendScratch(int b) {
+        if (scratchLength == scratch.length) {
+            scratch = Arrays.copyOf(scratch, scratch.length * 2);
+        }
+        scratch[scratchLength++] = (byte) b;
+    }
+
+    private void appendScratch(byte[] source, int offset, int length) {
+        if (scratchLength + length > scratch.length) {
+            scratch = Arrays.copyOf(scratch, Math.max(scratch.length * 2, scratchLength + length));
+        }
+        System.arraycopy(source, offset, scratch, scratchLength, length);
+        scratchLength += length;
+    }
+
+    private String scratchToString() {
+        return new String(scratch, 0, scratchLength, StandardCharsets.UTF_8);
+    }
+
+    private boolean scratchEquals(byte[] expected) {
+        return Arrays.equals(scratch, 0, scratchLength, expected, 0, expected.length);
+    }
+
+    /**
+     * Lấy String cho key đang nằm trong scratch, dùng lại instance đã tạo nếu key đã gặp
+     */
+    private String internScratchKey() {
+        int hash = 1;
+        for (int i = 0; i < scratchLength; i++) {
+            hash = 31 * hash + scratch[i];
+        }
+        int slot = (hash & 0x7FFFFFFF) % KEY_CACHE_SIZE;
+
+        byte[] cached = cachedKeyBytes[slot];
+        if (cached != null && scratchEquals(cached)) {
+            return cachedKeys[slot];
+        }
+
+        String key = scratchToString();
+        cachedKeyBytes[slot] = Arrays.copyOf(scratch, scratchLength);
+        cachedKeys[slot] = key;
+        return key;
+    }
+
+    private IOException syntaxError(String message, int found) {
+        String foundText = found == -1 ? "EOF" : "'" + (char) found + "'";
+        return new IOException("Lỗi cú pháp JSON tại byte " + position() + ": " + message + " (gặp " + foundText + ")");
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,234 @@
+package com.phonerecommend.repository.storage;
+
+import com.phonerecommend.model.Phone;
+import com.phonerecommend.model.PhoneDescription;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Ghi điện thoại ra JSON, mã hóa UTF-8 trực tiếp vào buffer rồi đẩy xuống channel
+ * (cùng định dạng với file phones.json mà PhoneJsonReader đọc được)
+ */
+public class PhoneJsonWriter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    /**
+     * Constructor ghi vào một channel
+     * @param channel Đích ghi
+     */
+    public PhoneJsonWriter(WritableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    }
+
+    /**
+     * Mã hóa một điện thoại thành mảng byte JSON
+     * @param phone Điện thoại
+     * @return Byte UTF-8 của object JSON
+     */
+    public static byte[] toBytes(Phone phone) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+        try {
+            PhoneJsonWriter writer = new PhoneJsonWriter(Channels.newChannel(out));
+            writer.writePhone(phone);
+            writer.flush();
+        } catch (IOException e) {
+            // Không xảy ra với ByteArrayOutputStream
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Ghi toàn bộ danh mục ra file JSON (mảng, mỗi điện thoại một dòng)
+     * Dữ liệu được ghi streaming vào file tạm, đồng bộ xuống đĩa rồi đổi tên nguyên tử đè lên file đích,
+     * nên bộ nhớ dùng không phụ thuộc số điện thoại và file đích không bao giờ bị ghi dở
+     * @param phones Danh sách điện thoại
+     * @param target File JSON đích
+     * @throws IOException Nếu lỗi ghi file (file đích giữ nguyên nội dung cũ)
+     */
+    public static void writeCatalog(Iterable<Phone> phones, Path target) throws IOException {
+        Path tempPath = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                PhoneJsonWriter writer = new PhoneJsonWriter(channel);
+                writer.writeRaw('[');
+                boolean first = true;
+                for (Phone phone : phones) {
+                    if (!first) {
+                        writer.writeRaw(',');
+                    }
+                    writer.writeRaw('\n');
+                    writer.writePhone(phone);
+                    first = false;
+                }
+                writer.writeRaw('\n');
+                writer.writeRaw(']');
+                writer.flush();
+                channel.force(true);
+            }
+            Files.move(tempPath, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempPath);
+            throw e;
+        }
+    }
+
+    /**
+     * Ghi một object điện thoại
+     * @param phone Điện thoại cần ghi
+     * @throws IOException Nếu lỗi ghi
+     */
+    public void writePhone(Phone phone) throws IOException {
+        writeRaw('{');
+        writeField("name");
+        writeString(phone.getName());
+        writeRaw(',');
+        writeField("link");
+        writeString(phone.getLink());
+
+        String imageUrl = phone.getImageUrl();
+        if (imageUrl != null && !imageUrl.isEmpty()) {
+            writeRaw(',');
+            writeField("imgURL");
+            writeString(imageUrl);
+        }
+
+        writeRaw(',');
+        writeField("price");
+        writeNumber(phone.getPrice());
+        writeRaw(',');
+        writeField("viewCount");
+        writeAscii(Integer.toString(phone.getViewCount()));
+
+        writeRaw(',');
+        writeField("description");
+        writeRaw('{');
+        PhoneDescription description = phone.getDescription();
+        if (description != null) {
+            boolean first = true;
+            for (Map.Entry<String, String> entry : description.getAllAttributes().entrySet()) {
+                if (!first) {
+                    writeRaw(',');
+                }
+                writeString(entry.getKey());
+                writeRaw(':');
+                writeString(entry.getValue());
+                first = false;
+            }
+        }
+        writeRaw('}');
+        writeRaw('}');
+    }
+
+    /**
+     * Đẩy toàn bộ dữ liệu còn trong buffer xuống channel
+     * @throws IOException Nếu lỗi ghi
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // ==================== Mã hóa ====================
+
+    private void writeField(String name) throws IOException {
+        writeString(name);
+        writeRaw(':');
+    }
+
+    private void writeNumber(double value) throws IOException {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            writeAscii(Long.toString((long) value)); // Giá tiền thường là số nguyên
+        } else if (Double.isNaN(value) || Double.isInfinite(value)) {
+            writeAscii("0");
+        } else {
+            writeAscii(Double.toString(value));
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeAscii("null");
+            return;
+        }
+
+        writeRaw('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                writeRaw('\\');
+                writeRaw(c);
+            } else if (c < 0x20) {
+                writeControl(c);
+            } else if (c < 0x80) {
+                writeRaw(c);
+            } else if (c < 0x800) {
+                writeRaw(0xC0 | (c >> 6));
+                writeRaw(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                writeRaw(0xF0 | (codePoint >> 18));
+                writeRaw(0x80 | ((codePoint >> 12) & 0x3F));
+                writeRaw(0x80 | ((codePoint >> 6) & 0x3F));
+                writeRaw(0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                writeRaw('?'); // Surrogate lẻ không mã hóa được
+            } else {
+                writeRaw(0xE0 | (c >> 12));
+                writeRaw(0x80 | ((c >> 6) & 0x3F));
+                writeRaw(0x80 | (c & 0x3F));
+            }
+        }
+        writeRaw('"');
+    }
+
+    private void writeControl(char c) throws IOException {
+        writeRaw('\\');
+        switch (c) {
+            case '\n': writeRaw('n'); break;
+            case '\r': writeRaw('r'); break;
+            case '\t': writeRaw('t'); break;
+            case '\b': writeRaw('b'); break;
+            case '\f': writeRaw('f'); break;
+            default:
+                writeRaw('u');
+                writeRaw('0');
+                writeRaw('0');
+                writeRaw(HEX[c >> 4]);
+                writeRaw(HEX[c & 0xF]);
+        }
+    }
+
+    private void writeAscii(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            writeRaw(text.charAt(i));
+        }
+    }
+
+    private void writeRaw(int b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put((byte) b);
+    }
+}
@@ -2,7 +2,9 @@ package com.phonerecommend.service.chatbot;
 
 import com.phonerecommend.model.Phone;
 import com.phonerecommend.repository.PhoneRepository;
+import com.phonerecommend.repository.catalog.AttributeIndex;
 import com.phonerecommend.service.chatbot.ChatbotService;
+import com.phonerecommend.service.search.SynonymDictionary;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -36,6 +38,9 @@ public class LocalAIChatbotService implements ChatbotService {
                 return false;
             }
 
+            // Chỉ mục theo từ của tên để lọc theo hãng không phải quét toàn bộ danh mục
+            phoneRepository.createIndex(AttributeIndex.NAME_KEY, AttributeIndex.Normalization.TOKENS);
+
             System.out.println("✅ Đã load " + allPhones.size() + " điện thoại");
             System.out.println("🧠 Local AI ready với intelligent matching");
 
@@ -132,15 +137,8 @@ public class LocalAIChatbotService implements ChatbotService {
      * Extract brands from question
      */
     private List<String> extractBrands(String question) {
-        List<String> brands = new ArrayList<>();
-        if (question.contains("iphone") || question.contains("apple")) brands.add("Apple");
-        if (question.contains("samsung") || question.contains("galaxy")) brands.add("Samsung");
-        if (question.contains("xiaomi") || question.contains("redmi")) brands.add("Xiaomi");
-        if (question.contains("oppo")) brands.add("Oppo");
-        if (question.contains("vivo")) brands.add("Vivo");
-        if (question.contains("huawei")) brands.add("Huawei");
-        if (question.contains("realme")) brands.add("Realme");
-        return brands;
+        // Tên gọi khác và viết tắt ("ss", "ip", "redmi"...) lấy từ từ điển dùng chung
+        return SynonymDictionary.getDefault().brandsOf(question);
     }
 
     /**
@@ -210,15 +208,8 @@ public class LocalAIChatbotService implements ChatbotService {
 
         // Sort by battery (extract from description)
         List<Phone> batteryPhones = phones.stream()
-                .filter(p -> {
-                    String battery = p.getDescription().getAttribute("Pin");
-                    return battery != null && !battery.isEmpty();
-                })
-                .sorted((p1, p2) -> {
-                    int battery1 = extractBatteryCapacity(p1.getDescription().getAttribute("Pin"));
-                    int battery2 = extractBatteryCapacity(p2.getDescription().getAttribute("Pin"));
-                    return Integer.compare(battery2, battery1);
-                })
+                .filter(p -> p.getSpecs().getBatteryMah() > 0)
+                .sorted((p1, p2) -> Integer.compare(p2.getSpecs().getBatteryMah(), p1.getSpecs().getBatteryMah()))
                 .limit(3)
                 .collect(Collectors.toList());
 
@@ -392,7 +383,24 @@ public class LocalAIChatbotService implements ChatbotService {
 
     // Helper methods
     private List<Phone> filterPhones(PriceRange priceRange, List<String> brands, List<String> features) {
-        return allPhones.stream()
+        // Filter by brands: lấy ứng viên từ chỉ mục tên thay vì quét toàn bộ
+        List<Phone> candidates = allPhones;
+        if (brands != null && !brands.isEmpty()) {
+            candidates = new ArrayList<>();
+            Set<Phone> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (String brand : brands) {
+                List<String> aliases = SynonymDictionary.getDefault().aliasesOf(brand);
+                for (String alias : aliases.isEmpty() ? Collections.singletonList(brand) : aliases) {
+                    for (Phone phone : phoneRepository.findByAttribute(AttributeIndex.NAME_KEY, AttributeIndex.Normalization.TOKENS, alias)) {
+                        if (seen.add(phone)) {
+                            candidates.add(phone);
+                        }
+                    }
+                }
+            }
+        }
+
+        return candidates.stream()
                 .filter(phone -> {
                     // Filter by price
                     if (priceRange != null) {
@@ -401,39 +409,20 @@ public class LocalAIChatbotService implements ChatbotService {
                             return false;
                         }
                     }
-
-                    // Filter by brands
-                    if (brands != null && !brands.isEmpty()) {
-                        String phoneName = phone.getName().toLowerCase();
-                        boolean matchesBrand = brands.stream()
-                                .anyMatch(brand -> phoneName.contains(brand.toLowerCase()));
-                        if (!matchesBrand) {
-                            return false;
-                        }
-                    }
-
                     return true;
                 })
                 .collect(Collectors.toList());
     }
 
-    private int extractBatteryCapacity(String batteryInfo) {
-        if (batteryInfo == null) return 0;
-        try {
-            String numericPart = batteryInfo.replaceAll("[^0-9]", "");
-            return numericPart.isEmpty() ? 0 : Integer.parseInt(numericPart);
-        } catch (NumberFormatException e) {
-            return 0;
-        }
-    }
-
     private int calculateCameraScore(Phone phone) {
         int score = 0;
+        double megapixels = phone.getSpecs().getRearCameraMp();
+        if (megapixels >= 108) score += 50;
+        else if (megapixels >= 64) score += 35;
+        else if (megapixels >= 48) score += 30;
+
         String camera = phone.getDescription().getRearCamera();
         if (camera != null) {
-            if (camera.contains("48") || camera.contains("50")) score += 30;
-            if (camera.contains("64")) score += 35;
-            if (camera.contains("108") || camera.contains("200")) score += 50;
             if (camera.toLowerCase().contains("leica")) score += 20;
             if (camera.toLowerCase().contains("ultra")) score += 15;
         }
@@ -450,17 +439,14 @@ public class LocalAIChatbotService implements ChatbotService {
         int score = 0;
 
         // RAM score
-        String ram = phone.getDescription().getRam();
-        if (ram != null) {
-            if (ram.contains("12") || ram.contains("16")) score += 40;
-            else if (ram.contains("8")) score += 30;
-            else if (ram.contains("6")) score += 20;
-        }
+        double ram = phone.getSpecs().getRamGb();
+        if (ram >= 12) score += 40;
+        else if (ram >= 8) score += 30;
+        else if (ram >= 6) score += 20;
 
         // Chip score
-        String chip = phone.getDescription().getChipset();
-        if (chip != null) {
-            chip = chip.toLowerCase();
+        String chip = phone.getSpecs().getChipset();
+        if (!chip.isEmpty()) {
             if (chip.contains("snapdragon 8") || chip.contains("a17") || chip.contains("a18")) score += 50;
             else if (chip.contains("snapdragon 7") || chip.contains("a15") || chip.contains("a16")) score += 40;
             else if (chip.contains("dimensity 9") || chip.contains("snapdragon 888")) score += 35;
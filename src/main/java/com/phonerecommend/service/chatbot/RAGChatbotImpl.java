@@ -4,6 +4,7 @@ import com.phonerecommend.model.Phone;
 import com.phonerecommend.repository.PhoneRepository;
 import com.phonerecommend.service.chatbot.ChatbotService;
 import com.phonerecommend.service.chatbot.PhoneDataEmbedding;
+import com.phonerecommend.service.search.SynonymDictionary;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -193,31 +194,8 @@ public class RAGChatbotImpl implements ChatbotService {
      * @return Tên hãng
      */
     private String extractBrand(String phoneName) {
-        phoneName = phoneName.toLowerCase();
-
-        if (phoneName.contains("iphone") || phoneName.contains("apple")) {
-            return "Apple";
-        } else if (phoneName.contains("samsung") || phoneName.contains("galaxy")) {
-            return "Samsung";
-        } else if (phoneName.contains("xiaomi") || phoneName.contains("redmi") || phoneName.contains("poco")) {
-            return "Xiaomi";
-        } else if (phoneName.contains("oppo")) {
-            return "Oppo";
-        } else if (phoneName.contains("vivo")) {
-            return "Vivo";
-        } else if (phoneName.contains("huawei")) {
-            return "Huawei";
-        } else if (phoneName.contains("realme")) {
-            return "Realme";
-        } else if (phoneName.contains("nokia")) {
-            return "Nokia";
-        } else if (phoneName.contains("sony")) {
-            return "Sony";
-        } else if (phoneName.contains("asus") || phoneName.contains("rog")) {
-            return "Asus";
-        }
-
-        return "Khác";
+        List<String> brands = SynonymDictionary.getDefault().brandsOf(phoneName);
+        return brands.isEmpty() ? "Khác" : brands.get(0);
     }
 
     /**
@@ -306,16 +284,8 @@ public class RAGChatbotImpl implements ChatbotService {
 
         List<Phone> phones = relevantDocs.stream()
                 .map(PhoneDataEmbedding::getPhone)
-                .sorted((p1, p2) -> {
-                    // So sánh dung lượng pin
-                    String battery1 = p1.getDescription().getAttribute("Pin");
-                    String battery2 = p2.getDescription().getAttribute("Pin");
-
-                    int cap1 = extractBatteryCapacity(battery1);
-                    int cap2 = extractBatteryCapacity(battery2);
-
-                    return Integer.compare(cap2, cap1); // Giảm dần
-                })
+                // So sánh dung lượng pin, giảm dần
+                .sorted((p1, p2) -> Integer.compare(p2.getSpecs().getBatteryMah(), p1.getSpecs().getBatteryMah()))
                 .limit(3)
                 .collect(Collectors.toList());
 
@@ -331,23 +301,6 @@ public class RAGChatbotImpl implements ChatbotService {
         return answer.toString();
     }
 
-    /**
-     * Trích xuất dung lượng pin từ chuỗi
-     */
-    private int extractBatteryCapacity(String batteryInfo) {
-        if (batteryInfo == null || batteryInfo.isEmpty()) {
-            return 0;
-        }
-
-        try {
-            // Trích xuất số từ chuỗi (ví dụ: "5000 mAh" -> 5000)
-            String numericPart = batteryInfo.replaceAll("[^0-9]", "");
-            return Integer.parseInt(numericPart);
-        } catch (NumberFormatException e) {
-            return 0;
-        }
-    }
-
     /**
      * Tạo câu trả lời về gaming
      */
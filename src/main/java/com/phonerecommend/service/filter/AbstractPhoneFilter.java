@@ -28,6 +28,11 @@ public abstract class AbstractPhoneFilter implements PhoneFilter {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public boolean matches(Phone phone) {
+        return isPhoneMatched(phone);
+    }
+
     /**
      * Kiểm tra điện thoại có thỏa mãn tiêu chí lọc không
      * @param phone Điện thoại cần kiểm tra
@@ -0,0 +1,20 @@
+package com.phonerecommend.service.filter;
+
+import com.phonerecommend.repository.catalog.FeatureIndex;
+
+import java.util.BitSet;
+
+/**
+ * Bộ lọc có thể tính kết quả dưới dạng bitmap trên số thứ tự điện thoại của FeatureIndex
+ * CompositeFilter kết hợp các bitmap này bằng phép AND/OR thay vì lọc lại từng danh sách
+ */
+public interface BitmapFilter extends PhoneFilter {
+    /**
+     * Tập điện thoại của chỉ mục thỏa mãn bộ lọc
+     * Kết quả phải giống filter() trên cùng các điện thoại
+     * @param index Chỉ mục của snapshot chứa các điện thoại cần lọc
+     * @return Bitmap theo số thứ tự của chỉ mục (người gọi được phép sửa),
+     *         null nếu bộ lọc không tính được theo cách này
+     */
+    BitSet select(FeatureIndex index);
+}
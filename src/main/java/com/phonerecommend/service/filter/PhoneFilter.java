@@ -1,6 +1,7 @@
 package com.phonerecommend.service.filter;
 
 import com.phonerecommend.model.Phone;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -14,6 +15,17 @@ public interface PhoneFilter {
      */
     List<Phone> filter(List<Phone> phones);
 
+    /**
+     * Kiểm tra một điện thoại có thỏa mãn bộ lọc không, kết quả phải giống filter()
+     * Mặc định lọc danh sách một phần tử; bộ lọc có điều kiện trên từng điện thoại nên ghi đè
+     * để tránh tạo danh sách cho mỗi lần kiểm tra
+     * @param phone Điện thoại cần kiểm tra
+     * @return true nếu thỏa mãn
+     */
+    default boolean matches(Phone phone) {
+        return !filter(Collections.singletonList(phone)).isEmpty();
+    }
+
     /**
      * Mô tả tiêu chí lọc
      * @return Mô tả dạng chuỗi
@@ -1,37 +1,122 @@
 package com.phonerecommend.service.filter.impl;
 
 import com.phonerecommend.model.Phone;
+import com.phonerecommend.repository.PhoneRepository;
+import com.phonerecommend.repository.catalog.AttributeIndex;
+import com.phonerecommend.repository.catalog.FeatureIndex;
 import com.phonerecommend.service.filter.AbstractPhoneFilter;
+import com.phonerecommend.service.filter.BitmapFilter;
+import com.phonerecommend.service.search.SynonymDictionary;
 
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Bộ lọc điện thoại theo hãng - Fixed version
+ * Tên hãng và tên gọi khác ("galaxy", "redmi", "ss"...) được quy về hãng chuẩn qua SynonymDictionary,
+ * điện thoại thỏa mãn khi tên có một tên gọi bất kỳ của hãng đó dưới dạng từ nguyên vẹn
+ * ("vivo" không khớp "vivobook"); lọc qua chỉ mục, qua bitmap hay từng điện thoại đều theo quy tắc này
  */
-public class BrandFilter extends AbstractPhoneFilter {
+public class BrandFilter extends AbstractPhoneFilter implements BitmapFilter {
     private final List<String> brandNames;
+    private final PhoneRepository repository;
+    // Hãng chuẩn ứng với các tên hãng truyền vào
+    private final Set<String> brands;
+    // Từ cần tìm trong tên điện thoại: mọi tên gọi của các hãng trên, cùng các tên không có trong từ điển
+    private final Set<String> nameKeywords;
+    private final Set<String> unknownBrandNames;
 
     /**
      * Constructor với danh sách tên hãng
      * @param brandNames Tên các hãng cần lọc
      */
     public BrandFilter(String... brandNames) {
+        this(null, brandNames);
+    }
+
+    /**
+     * Constructor dùng chỉ mục theo từ của tên điện thoại thay vì quét tên từng điện thoại
+     * @param repository Repository chứa các điện thoại cần lọc (null = quét trực tiếp)
+     * @param brandNames Tên các hãng cần lọc
+     */
+    public BrandFilter(PhoneRepository repository, String... brandNames) {
         super("brand", "Lọc theo hãng: " + String.join(", ", brandNames));
         this.brandNames = Arrays.asList(brandNames);
+        this.repository = repository;
+        this.brands = new LinkedHashSet<>();
+        this.nameKeywords = new LinkedHashSet<>();
+        this.unknownBrandNames = new LinkedHashSet<>();
+
+        SynonymDictionary dictionary = SynonymDictionary.getDefault();
+        for (String brandName : brandNames) {
+            String brand = dictionary.canonicalBrand(brandName);
+            if (brand != null) {
+                brands.add(brand);
+                nameKeywords.addAll(dictionary.aliasesOf(brand));
+            } else {
+                nameKeywords.add(brandName.toLowerCase());
+                unknownBrandNames.add(brandName.toLowerCase());
+            }
+        }
     }
 
+    /**
+     * Hợp các bitmap theo hãng; mỗi hãng trong từ điển là một điều kiện trong FeatureIndex,
+     * dùng chung giữa các bộ lọc cùng hãng. Tên không có trong từ điển do người dùng nhập nên
+     * được tính trực tiếp, không đăng ký để danh sách điều kiện không tăng theo dữ liệu nhập
+     */
     @Override
-    protected boolean isPhoneMatched(Phone phone) {
-        String phoneName = phone.getName();
-        if (phoneName == null) return false;
+    public BitSet select(FeatureIndex index) {
+        BitSet selection = new BitSet(index.size());
+        SynonymDictionary dictionary = SynonymDictionary.getDefault();
+        for (String brand : brands) {
+            List<String> aliases = dictionary.aliasesOf(brand);
+            selection.or(index.get(FeatureIndex.define("brand:" + brand, phone -> nameMatches(phone, aliases))));
+        }
+        if (!unknownBrandNames.isEmpty()) {
+            selection.or(index.evaluate(phone -> nameMatches(phone, unknownBrandNames)));
+        }
+        return selection;
+    }
 
-        // Convert to lowercase để so sánh không phân biệt chữ hoa/thường
-        phoneName = phoneName.toLowerCase();
+    /**
+     * Lọc qua chỉ mục: mỗi tên gọi của hãng là một lần tra chỉ mục theo từ của tên điện thoại,
+     * giữ nguyên thứ tự danh sách
+     */
+    @Override
+    public List<Phone> filter(List<Phone> phones) {
+        if (repository == null) {
+            return super.filter(phones);
+        }
+
+        repository.createIndex(AttributeIndex.NAME_KEY, AttributeIndex.Normalization.TOKENS);
+        Set<Phone> matched = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (String keyword : nameKeywords) {
+            matched.addAll(repository.findByAttribute(AttributeIndex.NAME_KEY, AttributeIndex.Normalization.TOKENS, keyword));
+        }
+        return phones.stream()
+                .filter(matched::contains)
+                .collect(Collectors.toList());
+    }
 
-        for (String brand : brandNames) {
-            // Cả brand name cũng convert lowercase
-            if (phoneName.contains(brand.toLowerCase())) {
+    @Override
+    protected boolean isPhoneMatched(Phone phone) {
+        return nameMatches(phone, nameKeywords);
+    }
+
+    /**
+     * Tên điện thoại chứa một trong các từ khóa dưới dạng từ nguyên vẹn, giống tra cứu chỉ mục TOKENS
+     */
+    private static boolean nameMatches(Phone phone, Collection<String> keywords) {
+        for (String keyword : keywords) {
+            if (AttributeIndex.matches(phone, AttributeIndex.NAME_KEY, AttributeIndex.Normalization.TOKENS, keyword)) {
                 return true;
             }
         }
@@ -1,15 +1,18 @@
 package com.phonerecommend.service.filter.impl;
 
 import com.phonerecommend.model.Phone;
+import com.phonerecommend.repository.catalog.FeatureIndex;
 import com.phonerecommend.service.filter.AbstractPhoneFilter;
+import com.phonerecommend.service.filter.BitmapFilter;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 
 /**
  * Bộ lọc điện thoại theo tính năng camera với debug logging
  */
-public class CameraFeatureFilter extends AbstractPhoneFilter {
+public class CameraFeatureFilter extends AbstractPhoneFilter implements BitmapFilter {
 
     public enum CameraFeature {
         PORTRAIT("Chụp xóa phông", "xoa phong", "bokeh", "portrait", "xóa phông", "blur", "portrait mode"),
@@ -37,11 +40,25 @@ public class CameraFeatureFilter extends AbstractPhoneFilter {
         public List<String> getKeywords() {
             return keywords;
         }
+
+        /**
+         * Khóa bitmap của tính năng trong FeatureIndex
+         */
+        private String featureKey() {
+            return "camera:" + name();
+        }
     }
 
     private final List<CameraFeature> features;
     private static final boolean DEBUG_MODE = true; // Bật/tắt debug
 
+    // Bitmap tính một lần cho cả danh mục nên không in debug
+    static {
+        for (CameraFeature feature : CameraFeature.values()) {
+            FeatureIndex.define(feature.featureKey(), phone -> hasFeature(buildCameraInfo(phone, false), feature, false));
+        }
+    }
+
     public CameraFeatureFilter(CameraFeature... features) {
         super("camera_features", buildDescription(features));
         this.features = Arrays.asList(features);
@@ -71,13 +88,28 @@ public class CameraFeatureFilter extends AbstractPhoneFilter {
         return sb.toString();
     }
 
+    /**
+     * Giao các bitmap của từng tính năng đã chọn (phải có tất cả)
+     */
+    @Override
+    public BitSet select(FeatureIndex index) {
+        if (features.isEmpty()) {
+            return null;
+        }
+        BitSet selection = index.get(features.get(0).featureKey());
+        for (int i = 1; i < features.size(); i++) {
+            selection.and(index.get(features.get(i).featureKey()));
+        }
+        return selection;
+    }
+
     @Override
     protected boolean isPhoneMatched(Phone phone) {
         if (DEBUG_MODE) {
             System.out.println("\n--- KIỂM TRA: " + phone.getName() + " ---");
         }
 
-        String cameraInfo = buildCameraInfo(phone);
+        String cameraInfo = buildCameraInfo(phone, DEBUG_MODE);
 
         if (DEBUG_MODE) {
             System.out.println("Thông tin camera đã chuẩn hóa: " + cameraInfo);
@@ -85,7 +117,7 @@ public class CameraFeatureFilter extends AbstractPhoneFilter {
 
         // Phải thỏa mãn TẤT CẢ các tính năng được chọn
         for (CameraFeature feature : features) {
-            boolean hasFeature = hasFeature(cameraInfo, feature);
+            boolean hasFeature = hasFeature(cameraInfo, feature, DEBUG_MODE);
 
             if (DEBUG_MODE) {
                 System.out.println("Tính năng '" + feature.getDescription() + "': " +
@@ -109,14 +141,14 @@ public class CameraFeatureFilter extends AbstractPhoneFilter {
     /**
      * Kết hợp tất cả thông tin camera thành một chuỗi để tìm kiếm
      */
-    private String buildCameraInfo(Phone phone) {
+    private static String buildCameraInfo(Phone phone, boolean debug) {
         StringBuilder cameraInfo = new StringBuilder();
 
         // Thêm thông tin camera sau
         String rearCamera = phone.getDescription().getRearCamera();
         if (rearCamera != null && !rearCamera.trim().isEmpty()) {
             cameraInfo.append(rearCamera).append(" ");
-            if (DEBUG_MODE) {
+            if (debug) {
                 System.out.println("Camera sau: " + rearCamera);
             }
         }
@@ -125,7 +157,7 @@ public class CameraFeatureFilter extends AbstractPhoneFilter {
         String cameraFeatures = phone.getDescription().getCameraFeatures();
         if (cameraFeatures != null && !cameraFeatures.trim().isEmpty()) {
             cameraInfo.append(cameraFeatures).append(" ");
-            if (DEBUG_MODE) {
+            if (debug) {
                 System.out.println("Tính năng camera: " + cameraFeatures);
             }
         }
@@ -134,7 +166,7 @@ public class CameraFeatureFilter extends AbstractPhoneFilter {
         String videoInfo = phone.getDescription().getAttribute("Quay video");
         if (videoInfo != null && !videoInfo.trim().isEmpty()) {
             cameraInfo.append(videoInfo).append(" ");
-            if (DEBUG_MODE) {
+            if (debug) {
                 System.out.println("Quay video: " + videoInfo);
             }
         }
@@ -143,7 +175,7 @@ public class CameraFeatureFilter extends AbstractPhoneFilter {
         String frontCamera = phone.getDescription().getFrontCamera();
         if (frontCamera != null && !frontCamera.trim().isEmpty()) {
             cameraInfo.append(frontCamera).append(" ");
-            if (DEBUG_MODE) {
+            if (debug) {
                 System.out.println("Camera trước: " + frontCamera);
             }
         }
@@ -152,7 +184,7 @@ public class CameraFeatureFilter extends AbstractPhoneFilter {
         String tinhNangDacBiet = phone.getDescription().getSpecialFeatures();
         if (tinhNangDacBiet != null && !tinhNangDacBiet.trim().isEmpty()) {
             cameraInfo.append(tinhNangDacBiet).append(" ");
-            if (DEBUG_MODE) {
+            if (debug) {
                 System.out.println("Tính năng đặc biệt: " + tinhNangDacBiet);
             }
         }
@@ -163,7 +195,7 @@ public class CameraFeatureFilter extends AbstractPhoneFilter {
     /**
      * Chuẩn hóa text để tìm kiếm dễ dàng hơn
      */
-    private String normalizeText(String text) {
+    private static String normalizeText(String text) {
         if (text == null || text.trim().isEmpty()) return "";
 
         String normalized = text.toLowerCase()
@@ -188,27 +220,27 @@ public class CameraFeatureFilter extends AbstractPhoneFilter {
     /**
      * Kiểm tra xem có tính năng camera trong thông tin không
      */
-    private boolean hasFeature(String cameraInfo, CameraFeature feature) {
-        if (DEBUG_MODE) {
+    private static boolean hasFeature(String cameraInfo, CameraFeature feature, boolean debug) {
+        if (debug) {
             System.out.println("  Đang tìm keywords cho '" + feature.getDescription() + "':");
         }
 
         for (String keyword : feature.getKeywords()) {
             String normalizedKeyword = normalizeText(keyword);
 
-            if (DEBUG_MODE) {
+            if (debug) {
                 System.out.println("    - Tìm '" + keyword + "' (chuẩn hóa: '" + normalizedKeyword + "')");
             }
 
             if (cameraInfo.contains(normalizedKeyword)) {
-                if (DEBUG_MODE) {
+                if (debug) {
                     System.out.println("      → ✓ TÌM THẤY!");
                 }
                 return true;
             }
         }
 
-        if (DEBUG_MODE) {
+        if (debug) {
             System.out.println("      → ✗ Không tìm thấy keyword nào");
         }
         return false;
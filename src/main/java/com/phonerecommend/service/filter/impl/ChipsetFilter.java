@@ -1,15 +1,25 @@
 package com.phonerecommend.service.filter.impl;
 
 import com.phonerecommend.model.Phone;
+import com.phonerecommend.repository.PhoneRepository;
+import com.phonerecommend.repository.catalog.AttributeIndex;
+import com.phonerecommend.repository.catalog.FeatureIndex;
 import com.phonerecommend.service.filter.AbstractPhoneFilter;
+import com.phonerecommend.service.filter.BitmapFilter;
 
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Bộ lọc điện thoại theo loại chipset
  */
-public class ChipsetFilter extends AbstractPhoneFilter {
+public class ChipsetFilter extends AbstractPhoneFilter implements BitmapFilter {
+    private static final String CHIPSET_KEY = "Chipset";
 
     public enum ChipsetType {
         SNAPDRAGON("Snapdragon", "snapdragon"),
@@ -33,17 +43,41 @@ public class ChipsetFilter extends AbstractPhoneFilter {
         public List<String> getKeywords() {
             return keywords;
         }
+
+        /**
+         * Khóa bitmap của loại chipset trong FeatureIndex
+         */
+        private String featureKey() {
+            return "chipset:" + name();
+        }
+    }
+
+    static {
+        for (ChipsetType chipsetType : ChipsetType.values()) {
+            FeatureIndex.define(chipsetType.featureKey(), phone -> matchesType(phone, chipsetType));
+        }
     }
 
     private final List<ChipsetType> chipsetTypes;
+    private final PhoneRepository repository;
 
     /**
      * Constructor với danh sách loại chipset
      * @param chipsets Các loại chipset cần lọc
      */
     public ChipsetFilter(ChipsetType... chipsets) {
+        this(null, chipsets);
+    }
+
+    /**
+     * Constructor dùng chỉ mục chipset của repository thay vì quét mô tả từng điện thoại
+     * @param repository Repository chứa các điện thoại cần lọc (null = quét trực tiếp)
+     * @param chipsets Các loại chipset cần lọc
+     */
+    public ChipsetFilter(PhoneRepository repository, ChipsetType... chipsets) {
         super("chipset", buildDescription(chipsets));
         this.chipsetTypes = Arrays.asList(chipsets);
+        this.repository = repository;
     }
 
     private static String buildDescription(ChipsetType[] chipsets) {
@@ -61,27 +95,66 @@ public class ChipsetFilter extends AbstractPhoneFilter {
         return sb.toString();
     }
 
+    /**
+     * Lọc qua chỉ mục: mỗi từ khóa là một lần tra chỉ mục theo từ của chipset,
+     * sau đó giữ lại các điện thoại trong danh sách nằm trong kết quả (giữ nguyên thứ tự).
+     * Cùng quy tắc khớp với matches()/select(): từ khóa phải là một từ nguyên vẹn của chipset
+     */
     @Override
-    protected boolean isPhoneMatched(Phone phone) {
-        String chipsetInfo = phone.getDescription().getChipset();
-        if (chipsetInfo == null || chipsetInfo.isEmpty()) {
-            return false;
+    public List<Phone> filter(List<Phone> phones) {
+        if (repository == null) {
+            return super.filter(phones);
         }
 
-        chipsetInfo = chipsetInfo.toLowerCase();
+        repository.createIndex(CHIPSET_KEY, AttributeIndex.Normalization.TOKENS);
+        Set<Phone> matched = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (ChipsetType chipsetType : chipsetTypes) {
+            for (String keyword : chipsetType.getKeywords()) {
+                matched.addAll(repository.findByAttribute(CHIPSET_KEY, AttributeIndex.Normalization.TOKENS, keyword));
+            }
+        }
+        return phones.stream()
+                .filter(matched::contains)
+                .collect(Collectors.toList());
+    }
 
+    /**
+     * Hợp các bitmap của từng loại chipset đã chọn
+     */
+    @Override
+    public BitSet select(FeatureIndex index) {
+        BitSet selection = new BitSet(index.size());
+        for (ChipsetType chipsetType : chipsetTypes) {
+            selection.or(index.get(chipsetType.featureKey()));
+        }
+        return selection;
+    }
+
+    @Override
+    protected boolean isPhoneMatched(Phone phone) {
         // Kiểm tra xem chipset có khớp với bất kỳ loại nào đã chọn không
         for (ChipsetType chipsetType : chipsetTypes) {
-            for (String keyword : chipsetType.getKeywords()) {
-                if (chipsetInfo.contains(keyword.toLowerCase())) {
-                    return true;
-                }
+            if (matchesType(phone, chipsetType)) {
+                return true;
             }
         }
 
         return false;
     }
 
+    /**
+     * Chipset có chứa một từ khóa của loại chipset dưới dạng từ nguyên vẹn
+     * ("a15" khớp "Apple A15 Bionic" nhưng không khớp "A155"), giống tra cứu chỉ mục TOKENS
+     */
+    private static boolean matchesType(Phone phone, ChipsetType chipsetType) {
+        for (String keyword : chipsetType.getKeywords()) {
+            if (AttributeIndex.matches(phone, CHIPSET_KEY, AttributeIndex.Normalization.TOKENS, keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Tạo bộ lọc Snapdragon
      */
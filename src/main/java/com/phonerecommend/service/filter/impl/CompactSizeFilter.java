@@ -1,12 +1,19 @@
 package com.phonerecommend.service.filter.impl;
 
 import com.phonerecommend.model.Phone;
+import com.phonerecommend.model.PhoneSpecs;
+import com.phonerecommend.repository.catalog.ColumnarCatalog;
+import com.phonerecommend.repository.catalog.FeatureIndex;
 import com.phonerecommend.service.filter.AbstractPhoneFilter;
+import com.phonerecommend.service.filter.BitmapFilter;
+
+import java.util.BitSet;
+import java.util.List;
 
 /**
  * Lọc điện thoại nhỏ gọn, dễ cầm
  */
-public class CompactSizeFilter extends AbstractPhoneFilter {
+public class CompactSizeFilter extends AbstractPhoneFilter implements BitmapFilter {
     private static final double MAX_SCREEN_SIZE = 6.0; // inch
     private static final int MAX_WEIGHT = 200; // gram
 
@@ -15,39 +22,40 @@ public class CompactSizeFilter extends AbstractPhoneFilter {
     }
 
     @Override
-    protected boolean isPhoneMatched(Phone phone) {
-        return hasSmallScreen(phone) && hasLightWeight(phone);
+    public List<Phone> filter(List<Phone> phones) {
+        ColumnarCatalog catalog = ColumnarCatalog.forPhones(phones);
+        if (catalog == null) {
+            return super.filter(phones);
+        }
+        return catalog.retain(phones, select(catalog));
     }
 
-    private boolean hasSmallScreen(Phone phone) {
-        String screenSizeInfo = phone.getDescription().getScreenSize();
-        if (screenSizeInfo == null || screenSizeInfo.isEmpty()) {
-            return false;
-        }
+    @Override
+    public BitSet select(FeatureIndex index) {
+        return select(index.getColumns());
+    }
 
-        try {
-            // Trích xuất kích thước màn hình từ chuỗi (vd: "6.1 inches")
-            String numericPart = screenSizeInfo.replaceAll("[^0-9.]", "");
-            double screenSize = Double.parseDouble(numericPart);
-            return screenSize <= MAX_SCREEN_SIZE;
-        } catch (NumberFormatException e) {
-            return false;
-        }
+    private static BitSet select(ColumnarCatalog catalog) {
+        BitSet selection = catalog.selectScreenAtMost(MAX_SCREEN_SIZE);
+        selection.and(catalog.selectWeightAtMost(MAX_WEIGHT));
+        return selection;
     }
 
-    private boolean hasLightWeight(Phone phone) {
-        String weightInfo = phone.getDescription().getAttribute("Trọng lượng");
-        if (weightInfo == null || weightInfo.isEmpty()) {
-            return false;
-        }
+    @Override
+    protected boolean isPhoneMatched(Phone phone) {
+        PhoneSpecs specs = phone.getSpecs();
+        return hasSmallScreen(specs) && hasLightWeight(specs);
+    }
 
-        try {
-            // Trích xuất trọng lượng từ chuỗi (vd: "180 gram")
-            String numericPart = weightInfo.replaceAll("[^0-9]", "");
-            int weight = Integer.parseInt(numericPart);
-            return weight <= MAX_WEIGHT;
-        } catch (NumberFormatException e) {
-            return false;
-        }
+    private boolean hasSmallScreen(PhoneSpecs specs) {
+        // Kích thước màn hình đã được phân tích sẵn (vd: "6.1 inches" -> 6.1)
+        double screenSize = specs.getScreenInches();
+        return screenSize > 0 && screenSize <= MAX_SCREEN_SIZE;
+    }
+
+    private boolean hasLightWeight(PhoneSpecs specs) {
+        // Trọng lượng đã được phân tích sẵn (vd: "180 g" -> 180)
+        double weight = specs.getWeightGrams();
+        return weight > 0 && weight <= MAX_WEIGHT;
     }
 }
\ No newline at end of file
@@ -1,22 +1,39 @@
 package com.phonerecommend.service.filter.impl;
 
 import com.phonerecommend.model.Phone;
-import com.phonerecommend.service.filter.AbstractPhoneFilter;
+import com.phonerecommend.repository.catalog.ColumnarCatalog;
+import com.phonerecommend.repository.catalog.FeatureIndex;
+import com.phonerecommend.service.filter.BitmapFilter;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
-import java.util.Collections;
 import com.phonerecommend.service.filter.PhoneFilter;
 
 /**
  * Bộ lọc tổng hợp kết hợp nhiều bộ lọc khác
+ * Khi danh sách nằm trong một snapshot của catalog, các bộ lọc con tính được bitmap được kết hợp
+ * bằng phép AND/OR trên bitmap thay vì lọc lại danh sách qua từng bộ lọc
+ * Các bộ lọc con còn lại được kiểm tra trên từng điện thoại trong một lượt, dừng sớm khi đã có kết quả,
+ * theo thứ tự được sắp xếp lại liên tục dựa trên chi phí và tỉ lệ thỏa mãn đo được
  */
-public class CompositeFilter implements PhoneFilter {
+public class CompositeFilter implements BitmapFilter {
+    // Số lần kiểm tra qua matches() giữa hai lần sắp xếp lại thứ tự đánh giá
+    private static final int REORDER_INTERVAL = 256;
+    // Đo thời gian 1 trên 16 lần kiểm tra của mỗi bộ lọc con để giảm chi phí gọi System.nanoTime()
+    private static final int TIMING_SAMPLE_MASK = 15;
+
     private final List<PhoneFilter> filters;
     private final boolean requireAllFilters; // True: AND, False: OR
     private final String filterId;
     private final String description;
+    // Thứ tự đánh giá các bộ lọc con (filters giữ thứ tự thêm vào cho phần mô tả)
+    private volatile List<FilterStats> evaluationOrder = new ArrayList<>();
+    private int evaluationsSinceReorder;
 
     /**
      * Constructor với chế độ kết hợp
@@ -36,6 +53,9 @@ public class CompositeFilter implements PhoneFilter {
      */
     public CompositeFilter addFilter(PhoneFilter filter) {
         filters.add(filter);
+        List<FilterStats> order = new ArrayList<>(evaluationOrder);
+        order.add(new FilterStats(filter));
+        evaluationOrder = order;
         return this;
     }
 
@@ -45,7 +65,16 @@ public class CompositeFilter implements PhoneFilter {
      * @return Chính đối tượng này (để sử dụng method chaining)
      */
     public CompositeFilter removeFilter(PhoneFilter filter) {
-        filters.remove(filter);
+        if (filters.remove(filter)) {
+            List<FilterStats> order = new ArrayList<>(evaluationOrder);
+            for (int i = 0; i < order.size(); i++) {
+                if (order.get(i).filter.equals(filter)) {
+                    order.remove(i);
+                    break;
+                }
+            }
+            evaluationOrder = order;
+        }
         return this;
     }
 
@@ -55,6 +84,7 @@ public class CompositeFilter implements PhoneFilter {
      */
     public CompositeFilter clearFilters() {
         filters.clear();
+        evaluationOrder = new ArrayList<>();
         return this;
     }
 
@@ -72,22 +102,144 @@ public class CompositeFilter implements PhoneFilter {
             return phones; // Nếu không có bộ lọc nào, trả về danh sách gốc
         }
 
-        if (requireAllFilters) {
-            // Thực hiện lọc AND (thỏa mãn tất cả điều kiện)
-            List<Phone> result = new ArrayList<>(phones);
+        FeatureIndex index = FeatureIndex.forPhones(phones);
+        if (index != null) {
+            List<Phone> result = filterWithBitmaps(index, phones);
+            if (result != null) {
+                return result;
+            }
+        }
+
+        // Một lượt qua danh sách, mỗi điện thoại dừng ở bộ lọc con đầu tiên quyết định được kết quả
+        List<FilterStats> order = evaluationOrder;
+        List<Phone> result = new ArrayList<>();
+        for (Phone phone : phones) {
+            if (matchesInOrder(phone, order)) {
+                result.add(phone);
+            }
+        }
+        reorder();
+        return result;
+    }
+
+    /**
+     * Lọc bằng bitmap của các bộ lọc con
+     * AND: giao bitmap của các bộ lọc con tính được bitmap, các bộ lọc còn lại chỉ kiểm tra các điện thoại trong giao
+     * OR: điện thoại nằm trong hợp các bitmap được giữ ngay, các bộ lọc còn lại chỉ kiểm tra các điện thoại ngoài hợp
+     * @return Kết quả, null nếu không bộ lọc con nào tính được bitmap
+     */
+    private List<Phone> filterWithBitmaps(FeatureIndex index, List<Phone> phones) {
+        BitSet selection = null;
+        List<PhoneFilter> remaining = new ArrayList<>();
+        for (PhoneFilter filter : filters) {
+            BitSet bitmap = filter instanceof BitmapFilter ? ((BitmapFilter) filter).select(index) : null;
+            if (bitmap == null) {
+                remaining.add(filter);
+            } else if (selection == null) {
+                selection = bitmap;
+            } else if (requireAllFilters) {
+                selection.and(bitmap);
+            } else {
+                selection.or(bitmap);
+            }
+        }
+        if (selection == null) {
+            return null;
+        }
+        if (remaining.isEmpty()) {
+            return index.retain(phones, selection);
+        }
+
+        List<FilterStats> order = new ArrayList<>(remaining.size());
+        for (FilterStats stats : evaluationOrder) {
+            if (remaining.contains(stats.filter)) {
+                order.add(stats);
+            }
+        }
+        ColumnarCatalog columns = index.getColumns();
+        List<Phone> result = new ArrayList<>();
+        for (Phone phone : phones) {
+            int ordinal = columns.ordinalOf(phone);
+            boolean selected = ordinal >= 0 && selection.get(ordinal);
+            if (requireAllFilters ? selected && matchesInOrder(phone, order)
+                    : selected || matchesInOrder(phone, order)) {
+                result.add(phone);
+            }
+        }
+        reorder();
+        return result;
+    }
+
+    /**
+     * Kiểm tra một điện thoại qua các bộ lọc con theo thứ tự đánh giá hiện tại, dừng sớm khi đã có kết quả
+     */
+    @Override
+    public boolean matches(Phone phone) {
+        if (filters.isEmpty()) {
+            return true;
+        }
+        boolean matched = matchesInOrder(phone, evaluationOrder);
+        if (++evaluationsSinceReorder >= REORDER_INTERVAL) {
+            reorder();
+        }
+        return matched;
+    }
 
-            for (PhoneFilter filter : filters) {
-                result = filter.filter(result);
+    private boolean matchesInOrder(Phone phone, List<FilterStats> order) {
+        for (FilterStats stats : order) {
+            // AND dừng ở bộ lọc đầu tiên không thỏa mãn, OR dừng ở bộ lọc đầu tiên thỏa mãn
+            if (stats.test(phone) != requireAllFilters) {
+                return !requireAllFilters;
             }
+        }
+        return requireAllFilters;
+    }
 
-            return result;
-        } else {
-            // Thực hiện lọc OR (thỏa mãn ít nhất một điều kiện)
-            return phones.stream()
-                    .filter(phone -> filters.stream().anyMatch(filter -> !filter.filter(Collections.singletonList(phone)).isEmpty()))
-                    .distinct()
-                    .collect(Collectors.toList());
+    /**
+     * Sắp xếp lại thứ tự đánh giá theo thống kê đo được
+     * AND: bộ lọc rẻ và loại được nhiều điện thoại chạy trước (chi phí / tỉ lệ loại)
+     * OR: bộ lọc rẻ và giữ được nhiều điện thoại chạy trước (chi phí / tỉ lệ giữ)
+     * Thứ tự chỉ ảnh hưởng tốc độ, không ảnh hưởng kết quả
+     */
+    private void reorder() {
+        evaluationsSinceReorder = 0;
+        List<FilterStats> order = new ArrayList<>(evaluationOrder);
+        if (order.size() < 2) {
+            return;
+        }
+        // Tính hạng trước khi sắp xếp vì thống kê có thể thay đổi trong lúc sắp xếp
+        Map<FilterStats, Double> ranks = new IdentityHashMap<>();
+        for (FilterStats stats : order) {
+            ranks.put(stats, stats.rank(requireAllFilters));
         }
+        order.sort(Comparator.comparing(ranks::get));
+        evaluationOrder = order;
+    }
+
+    /**
+     * Kết hợp bitmap của các bộ lọc con, null nếu có bộ lọc con không tính được bitmap
+     */
+    @Override
+    public BitSet select(FeatureIndex index) {
+        if (filters.isEmpty()) {
+            return null;
+        }
+
+        BitSet selection = null;
+        for (PhoneFilter filter : filters) {
+            BitSet bitmap = filter instanceof BitmapFilter ? ((BitmapFilter) filter).select(index) : null;
+            if (bitmap == null) {
+                return null;
+            }
+            if (selection == null) {
+                selection = bitmap;
+            } else if (requireAllFilters) {
+                selection.and(bitmap);
+            } else {
+                selection.or(bitmap);
+            }
+        }
+        return selection;
     }
 
     @Override
@@ -108,4 +260,47 @@ public class CompositeFilter implements PhoneFilter {
     public String getFilterId() {
         return filterId;
     }
-}
\ No newline at end of file
+
+    /**
+     * Thống kê kiểm tra của một bộ lọc con
+     * Không đồng bộ hóa: sai lệch khi nhiều luồng cùng lọc chỉ ảnh hưởng thứ tự đánh giá
+     */
+    private static final class FilterStats {
+        private final PhoneFilter filter;
+        private long evaluations;
+        private long matches;
+        private long sampledNanos;
+        private long samples;
+
+        FilterStats(PhoneFilter filter) {
+            this.filter = filter;
+        }
+
+        boolean test(Phone phone) {
+            boolean matched;
+            if ((evaluations & TIMING_SAMPLE_MASK) == 0) {
+                long start = System.nanoTime();
+                matched = filter.matches(phone);
+                sampledNanos += System.nanoTime() - start;
+                samples++;
+            } else {
+                matched = filter.matches(phone);
+            }
+            evaluations++;
+            if (matched) {
+                matches++;
+            }
+            return matched;
+        }
+
+        /**
+         * Hạng của bộ lọc, nhỏ hơn thì chạy trước
+         */
+        double rank(boolean requireAll) {
+            // Làm trơn để bộ lọc chưa được kiểm tra lần nào có tỉ lệ 1/2
+            double matchRate = (matches + 1.0) / (evaluations + 2.0);
+            double cost = samples > 0 ? (double) sampledNanos / samples : 1.0;
+            return requireAll ? cost / (1 - matchRate) : cost / matchRate;
+        }
+    }
+}
@@ -1,22 +1,36 @@
 package com.phonerecommend.service.filter.impl;
 
 import com.phonerecommend.model.Phone;
+import com.phonerecommend.repository.catalog.FeatureIndex;
 import com.phonerecommend.service.filter.AbstractPhoneFilter;
+import com.phonerecommend.service.filter.BitmapFilter;
+
+import java.util.BitSet;
 
 /**
  * Lọc điện thoại theo nhu cầu chơi game
  */
-public class GamingFilter extends AbstractPhoneFilter {
+public class GamingFilter extends AbstractPhoneFilter implements BitmapFilter {
+    private static final String FEATURE_KEY = FeatureIndex.define("preset:gaming", GamingFilter::isGamingPhone);
 
     public GamingFilter() {
         super("gaming", "Điện thoại phù hợp chơi game");
     }
 
+    @Override
+    public BitSet select(FeatureIndex index) {
+        return index.get(FEATURE_KEY);
+    }
+
     @Override
     protected boolean isPhoneMatched(Phone phone) {
+        return isGamingPhone(phone);
+    }
+
+    private static boolean isGamingPhone(Phone phone) {
         // Kiểm tra tính năng tối ưu game
         String techFeatures = phone.getDescription().getTechnologiesAndUtilities();
         return techFeatures != null &&
                 (techFeatures.contains("Tối ưu game") || techFeatures.contains("Game Booster"));
     }
-}
\ No newline at end of file
+}
@@ -1,12 +1,18 @@
 package com.phonerecommend.service.filter.impl;
 
 import com.phonerecommend.model.Phone;
+import com.phonerecommend.repository.catalog.ColumnarCatalog;
+import com.phonerecommend.repository.catalog.FeatureIndex;
 import com.phonerecommend.service.filter.AbstractPhoneFilter;
+import com.phonerecommend.service.filter.BitmapFilter;
+
+import java.util.BitSet;
+import java.util.List;
 
 /**
  * Lọc điện thoại theo pin trâu (>= 4000mAh)
  */
-public class LongBatteryFilter extends AbstractPhoneFilter {
+public class LongBatteryFilter extends AbstractPhoneFilter implements BitmapFilter {
     private static final int MIN_BATTERY_CAPACITY = 4000;
 
     public LongBatteryFilter() {
@@ -14,19 +20,22 @@ public class LongBatteryFilter extends AbstractPhoneFilter {
     }
 
     @Override
-    protected boolean isPhoneMatched(Phone phone) {
-        String batteryInfo = phone.getDescription().getAttribute("Pin");
-        if (batteryInfo == null || batteryInfo.isEmpty()) {
-            return false;
+    public List<Phone> filter(List<Phone> phones) {
+        ColumnarCatalog catalog = ColumnarCatalog.forPhones(phones);
+        if (catalog == null) {
+            return super.filter(phones);
         }
+        return catalog.retain(phones, catalog.selectBatteryAtLeast(MIN_BATTERY_CAPACITY));
+    }
 
-        try {
-            // Trích xuất dung lượng pin từ chuỗi (vd: "5000 mAh")
-            String numericPart = batteryInfo.replaceAll("[^0-9]", "");
-            int capacity = Integer.parseInt(numericPart);
-            return capacity >= MIN_BATTERY_CAPACITY;
-        } catch (NumberFormatException e) {
-            return false;
-        }
+    @Override
+    public BitSet select(FeatureIndex index) {
+        return index.getColumns().selectBatteryAtLeast(MIN_BATTERY_CAPACITY);
+    }
+
+    @Override
+    protected boolean isPhoneMatched(Phone phone) {
+        // Dung lượng pin đã được phân tích sẵn (vd: "5000 mAh" -> 5000)
+        return phone.getSpecs().getBatteryMah() >= MIN_BATTERY_CAPACITY;
     }
 }
\ No newline at end of file
@@ -1,12 +1,18 @@
 package com.phonerecommend.service.filter.impl;
 
 import com.phonerecommend.model.Phone;
+import com.phonerecommend.repository.catalog.ColumnarCatalog;
+import com.phonerecommend.repository.catalog.FeatureIndex;
 import com.phonerecommend.service.filter.AbstractPhoneFilter;
+import com.phonerecommend.service.filter.BitmapFilter;
+
+import java.util.BitSet;
+import java.util.List;
 
 /**
  * Bộ lọc theo dung lượng RAM - Fixed version
  */
-public class RamCapacityFilter extends AbstractPhoneFilter {
+public class RamCapacityFilter extends AbstractPhoneFilter implements BitmapFilter {
     private final int minRam;
     private final int maxRam;
 
@@ -32,35 +38,31 @@ public class RamCapacityFilter extends AbstractPhoneFilter {
     }
 
     @Override
-    protected boolean isPhoneMatched(Phone phone) {
-        // FIXED: Sử dụng key chính xác từ JSON
-        String ramInfo = phone.getDescription().getAttribute("Dung lượng RAM");
-        if (ramInfo == null || ramInfo.isEmpty()) {
-            System.out.println("DEBUG: " + phone.getName() + " - RAM info not found");
-            return false;
+    public List<Phone> filter(List<Phone> phones) {
+        ColumnarCatalog catalog = ColumnarCatalog.forPhones(phones);
+        if (catalog == null) {
+            return super.filter(phones);
         }
+        return catalog.retain(phones, catalog.selectRamRange(minRam, maxRam));
+    }
 
-        try {
-            // Debug: In ra giá trị RAM
-            System.out.println("DEBUG: " + phone.getName() + " - RAM: " + ramInfo);
-
-            // Trích xuất dung lượng RAM từ chuỗi (vd: "6 GB", "12 GB")
-            String numericPart = ramInfo.replaceAll("[^0-9]", "");
-            if (numericPart.isEmpty()) {
-                return false;
-            }
-
-            int ram = Integer.parseInt(numericPart);
-            System.out.println("DEBUG: Parsed RAM: " + ram + "GB");
-
-            boolean satisfiesMinRam = ram >= minRam;
-            boolean satisfiesMaxRam = maxRam <= 0 || ram <= maxRam;
+    @Override
+    public BitSet select(FeatureIndex index) {
+        return index.getColumns().selectRamRange(minRam, maxRam);
+    }
 
-            return satisfiesMinRam && satisfiesMaxRam;
-        } catch (NumberFormatException e) {
-            System.out.println("DEBUG: Error parsing RAM for " + phone.getName() + ": " + ramInfo);
+    @Override
+    protected boolean isPhoneMatched(Phone phone) {
+        // Dung lượng RAM đã được phân tích sẵn (vd: "6 GB" -> 6, "64MB" -> 0.0625)
+        double ram = phone.getSpecs().getRamGb();
+        if (ram <= 0) {
             return false;
         }
+
+        boolean satisfiesMinRam = ram >= minRam;
+        boolean satisfiesMaxRam = maxRam <= 0 || ram <= maxRam;
+
+        return satisfiesMinRam && satisfiesMaxRam;
     }
 
     /**
@@ -1,15 +1,18 @@
 package com.phonerecommend.service.filter.impl;
 
 import com.phonerecommend.model.Phone;
+import com.phonerecommend.repository.catalog.FeatureIndex;
 import com.phonerecommend.service.filter.AbstractPhoneFilter;
+import com.phonerecommend.service.filter.BitmapFilter;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 
 /**
  * Bộ lọc điện thoại theo tính năng đặc biệt - Fixed version
  */
-public class SpecialFeatureFilter extends AbstractPhoneFilter {
+public class SpecialFeatureFilter extends AbstractPhoneFilter implements BitmapFilter {
 
     public enum SpecialFeature {
         SUPPORT_5G("Hỗ trợ 5G", "5g", "5G"),
@@ -36,6 +39,22 @@ public class SpecialFeatureFilter extends AbstractPhoneFilter {
         public List<String> getKeywords() {
             return keywords;
         }
+
+        /**
+         * Khóa bitmap của tính năng trong FeatureIndex
+         */
+        private String featureKey() {
+            return "special:" + name();
+        }
+    }
+
+    static {
+        for (SpecialFeature feature : SpecialFeature.values()) {
+            FeatureIndex.define(feature.featureKey(), phone -> {
+                String featuresText = featuresTextOf(phone);
+                return !featuresText.isEmpty() && findKeyword(featuresText, feature) != null;
+            });
+        }
     }
 
     private final List<SpecialFeature> features;
@@ -64,8 +83,49 @@ public class SpecialFeatureFilter extends AbstractPhoneFilter {
         return sb.toString();
     }
 
+    /**
+     * Giao các bitmap của từng tính năng đã chọn (phải có tất cả)
+     */
+    @Override
+    public BitSet select(FeatureIndex index) {
+        if (features.isEmpty()) {
+            return null;
+        }
+        BitSet selection = index.get(features.get(0).featureKey());
+        for (int i = 1; i < features.size(); i++) {
+            selection.and(index.get(features.get(i).featureKey()));
+        }
+        return selection;
+    }
+
     @Override
     protected boolean isPhoneMatched(Phone phone) {
+        String featuresText = featuresTextOf(phone);
+        if (featuresText.isEmpty()) {
+            System.out.println("DEBUG: " + phone.getName() + " - No special features found");
+            return false;
+        }
+
+        System.out.println("DEBUG: " + phone.getName() + " - Features: " + featuresText.substring(0, Math.min(100, featuresText.length())));
+
+        // Phải thỏa mãn TẤT CẢ các tính năng được chọn
+        for (SpecialFeature feature : features) {
+            String keyword = findKeyword(featuresText, feature);
+            if (keyword == null) {
+                System.out.println("DEBUG: " + phone.getName() + " missing feature: " + feature.getDisplayName());
+                return false; // Nếu không có một tính năng nào đó, trả về false
+            }
+            System.out.println("DEBUG: Found keyword '" + keyword + "' for " + feature.getDisplayName());
+        }
+
+        return true; // Có tất cả các tính năng
+    }
+
+    /**
+     * Gộp các thuộc tính có thể chứa tính năng đặc biệt, dạng chữ thường
+     * @return Chuỗi gộp, rỗng nếu điện thoại không có thuộc tính nào
+     */
+    private static String featuresTextOf(Phone phone) {
         // FIXED: Kiểm tra trong nhiều attributes
         String specialFeatures = phone.getDescription().getAttribute("Tính năng đặc biệt");
         String techFeatures = phone.getDescription().getAttribute("Công nghệ - Tiện ích");
@@ -81,33 +141,19 @@ public class SpecialFeatureFilter extends AbstractPhoneFilter {
         if (waterDustRating != null) allFeatures.append(waterDustRating).append(" ");
         if (chargingTech != null) allFeatures.append(chargingTech).append(" ");
 
-        if (allFeatures.length() == 0) {
-            System.out.println("DEBUG: " + phone.getName() + " - No special features found");
-            return false;
-        }
-
-        String featuresText = allFeatures.toString().toLowerCase();
-        System.out.println("DEBUG: " + phone.getName() + " - Features: " + featuresText.substring(0, Math.min(100, featuresText.length())));
-
-        // Phải thỏa mãn TẤT CẢ các tính năng được chọn
-        for (SpecialFeature feature : features) {
-            boolean hasFeature = false;
-
-            for (String keyword : feature.getKeywords()) {
-                if (featuresText.contains(keyword.toLowerCase())) {
-                    hasFeature = true;
-                    System.out.println("DEBUG: Found keyword '" + keyword + "' for " + feature.getDisplayName());
-                    break;
-                }
-            }
+        return allFeatures.toString().toLowerCase();
+    }
 
-            if (!hasFeature) {
-                System.out.println("DEBUG: " + phone.getName() + " missing feature: " + feature.getDisplayName());
-                return false; // Nếu không có một tính năng nào đó, trả về false
+    /**
+     * Từ khóa đầu tiên của tính năng có trong chuỗi gộp, null nếu không có
+     */
+    private static String findKeyword(String featuresText, SpecialFeature feature) {
+        for (String keyword : feature.getKeywords()) {
+            if (featuresText.contains(keyword.toLowerCase())) {
+                return keyword;
             }
         }
-
-        return true; // Có tất cả các tính năng
+        return null;
     }
 
     /**
@@ -0,0 +1,775 @@
+package com.phonerecommend.service.search;
+
+import com.phonerecommend.model.Phone;
+import com.phonerecommend.repository.catalog.CatalogSnapshot;
+import com.phonerecommend.repository.catalog.ColumnarCatalog;
+import com.phonerecommend.repository.catalog.KeywordIndex;
+import com.phonerecommend.repository.catalog.TextTokenizer;
+import com.phonerecommend.repository.catalog.TrigramIndex;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Truy vấn có cấu trúc cho ô tìm kiếm và API
+ * Ví dụ: chipset:snapdragon ram>=8 price<15tr -iphone "chống nước"
+ *
+ * Cú pháp:
+ * - Từ đơn: tên hoặc mô tả có từ đó (không phân biệt dấu, so theo tiền tố), viết tắt như "ss" được viết lại
+ * - "cụm từ": tên hoặc một giá trị mô tả chứa nguyên văn cụm từ
+ * - trường:giá trị: name, brand, chipset, os, camera, screen_type... (vd: brand:samsung, chipset:"dimensity 9300")
+ * - trường số với >=, <=, >, <, = hoặc trường:a..b: price, ram, rom, battery, screen, weight, hz, year, views
+ *   (giá hiểu đơn vị "tr"/"triệu"/"m" và "k": price<15tr)
+ * - Các điều kiện cạnh nhau là AND, "OR" hoặc "|" là OR, "-" hoặc "NOT" là phủ định, có thể dùng ngoặc
+ *
+ * Truy vấn được phân tích thành cây cú pháp một lần, khi chạy mỗi nút là một phép trên chỉ mục
+ * (giao/hợp posting list, quét khoảng trên cột số, phủ định bitmap). Nút AND chạy các điều kiện rẻ trước
+ * và truyền bitmap kết quả xuống làm phạm vi cho điều kiện sau, nên điều kiện đắt chỉ kiểm tra trên
+ * số ít điện thoại còn lại
+ */
+public final class PhoneQuery {
+    private static final Pattern FIELD_TERM = Pattern.compile("^([\\p{L}_]+)(>=|<=|>|<|=|:)(.*)$");
+    private static final Pattern GROUPED_NUMBER = Pattern.compile("^\\d{1,3}([.,]\\d{3})+$");
+
+    // Chi phí ước lượng để sắp thứ tự điều kiện trong AND
+    private static final int COST_POSTINGS = 1;
+    private static final int COST_RANGE_SCAN = 2;
+    private static final int COST_SUBSTRING = 3;
+    private static final int COST_VERIFY = 5;
+
+    private static final Map<String, ColumnarCatalog.Column> NUMERIC_FIELDS = new HashMap<>();
+    private static final Map<String, String> ATTRIBUTE_FIELDS = new HashMap<>();
+    static {
+        NUMERIC_FIELDS.put("price", ColumnarCatalog.Column.PRICE);
+        NUMERIC_FIELDS.put("gia", ColumnarCatalog.Column.PRICE);
+        NUMERIC_FIELDS.put("ram", ColumnarCatalog.Column.RAM);
+        NUMERIC_FIELDS.put("rom", ColumnarCatalog.Column.STORAGE);
+        NUMERIC_FIELDS.put("storage", ColumnarCatalog.Column.STORAGE);
+        NUMERIC_FIELDS.put("battery", ColumnarCatalog.Column.BATTERY);
+        NUMERIC_FIELDS.put("pin", ColumnarCatalog.Column.BATTERY);
+        NUMERIC_FIELDS.put("screen", ColumnarCatalog.Column.SCREEN);
+        NUMERIC_FIELDS.put("weight", ColumnarCatalog.Column.WEIGHT);
+        NUMERIC_FIELDS.put("hz", ColumnarCatalog.Column.REFRESH_RATE);
+        NUMERIC_FIELDS.put("refresh", ColumnarCatalog.Column.REFRESH_RATE);
+        NUMERIC_FIELDS.put("year", ColumnarCatalog.Column.RELEASED);
+        NUMERIC_FIELDS.put("views", ColumnarCatalog.Column.VIEWS);
+
+        ATTRIBUTE_FIELDS.put("chipset", "Chipset");
+        ATTRIBUTE_FIELDS.put("chip", "Chipset");
+        ATTRIBUTE_FIELDS.put("cpu", "Loại CPU");
+        ATTRIBUTE_FIELDS.put("gpu", "GPU");
+        ATTRIBUTE_FIELDS.put("os", "Hệ điều hành");
+        ATTRIBUTE_FIELDS.put("camera", "Camera sau");
+        ATTRIBUTE_FIELDS.put("selfie", "Camera trước");
+        ATTRIBUTE_FIELDS.put("screen_type", "Công nghệ màn hình");
+        ATTRIBUTE_FIELDS.put("charging", "Công nghệ sạc");
+        ATTRIBUTE_FIELDS.put("network", "Hỗ trợ mạng");
+        ATTRIBUTE_FIELDS.put("nfc", "Công nghệ NFC");
+        ATTRIBUTE_FIELDS.put("sim", "Thẻ SIM");
+    }
+
+    private final String source;
+    private final Node root;
+
+    private PhoneQuery(String source, Node root) {
+        this.source = source;
+        this.root = root;
+    }
+
+    /**
+     * Phân tích truy vấn
+     * @param text Truy vấn
+     * @return Truy vấn đã phân tích, dùng lại được cho nhiều lần chạy
+     * @throws IllegalArgumentException nếu truy vấn sai cú pháp (trường không hỗ trợ, số sai, thiếu ngoặc)
+     */
+    public static PhoneQuery parse(String text) {
+        Parser parser = new Parser(lex(text == null ? "" : text));
+        if (!parser.hasNext()) {
+            return new PhoneQuery(text, new AndNode(new ArrayList<>())); // Truy vấn rỗng khớp mọi điện thoại
+        }
+        Node root = parser.parseOr();
+        if (parser.hasNext()) {
+            throw new IllegalArgumentException("Thừa dấu ')' trong truy vấn");
+        }
+        return new PhoneQuery(text, root);
+    }
+
+    /**
+     * Kiểm tra chuỗi có dùng cú pháp truy vấn không (trường, so sánh, phủ định, cụm từ, OR, ngoặc)
+     * Chuỗi chỉ gồm các từ thông thường thì tìm kiếm theo từ khóa như cũ
+     */
+    public static boolean isStructured(String text) {
+        if (text == null) {
+            return false;
+        }
+        for (Token token : lex(text)) {
+            if (token.type != TokenType.WORD) {
+                return true;
+            }
+            Matcher matcher = FIELD_TERM.matcher(token.text);
+            if (matcher.matches() && isField(TextTokenizer.fold(matcher.group(1)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isField(String field) {
+        return NUMERIC_FIELDS.containsKey(field) || ATTRIBUTE_FIELDS.containsKey(field)
+                || field.equals("name") || field.equals("ten") || field.equals("brand") || field.equals("hang");
+    }
+
+    /**
+     * Chạy truy vấn trên danh sách điện thoại
+     * @param phones Danh sách điện thoại
+     * @return Các điện thoại thỏa mãn, giữ nguyên thứ tự của danh sách
+     */
+    public List<Phone> execute(List<Phone> phones) {
+        Context context = new Context(phones);
+        BitSet all = new BitSet(context.size());
+        all.set(0, context.size());
+        BitSet selection = root.evaluate(context, all);
+
+        List<Phone> result = new ArrayList<>(selection.cardinality());
+        for (int i = selection.nextSetBit(0); i >= 0; i = selection.nextSetBit(i + 1)) {
+            result.add(context.phones.get(i));
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return root.toString();
+    }
+
+    /**
+     * Truy vấn gốc
+     */
+    public String getSource() {
+        return source;
+    }
+
+    // ==================== Ngữ cảnh chạy ====================
+
+    /**
+     * Các chỉ mục trên cùng một danh sách (cùng cách đánh số thứ tự), chỉ lấy khi truy vấn cần
+     * Danh sách của snapshot dùng chỉ mục có sẵn của snapshot, danh sách khác tạo chỉ mục riêng
+     */
+    private static final class Context {
+        private final List<Phone> phones;
+        private final CatalogSnapshot snapshot;
+        private ColumnarCatalog columns;
+        private KeywordIndex keywords;
+        private TrigramIndex trigrams;
+
+        Context(List<Phone> phones) {
+            this.snapshot = CatalogSnapshot.ownerOf(phones);
+            this.phones = snapshot != null ? phones : new ArrayList<>(phones);
+        }
+
+        int size() {
+            return phones.size();
+        }
+
+        ColumnarCatalog columns() {
+            if (columns == null) {
+                columns = snapshot != null ? snapshot.getColumns() : new ColumnarCatalog(phones);
+            }
+            return columns;
+        }
+
+        KeywordIndex keywords() {
+            if (keywords == null) {
+                keywords = snapshot != null ? snapshot.getKeywordIndex() : new KeywordIndex(phones);
+            }
+            return keywords;
+        }
+
+        TrigramIndex trigrams() {
+            if (trigrams == null) {
+                trigrams = snapshot != null ? snapshot.getTrigramIndex() : new TrigramIndex(phones);
+            }
+            return trigrams;
+        }
+    }
+
+    private static BitSet toBitSet(int[] ids, BitSet scope) {
+        BitSet result = new BitSet(scope.length());
+        for (int id : ids) {
+            if (scope.get(id)) {
+                result.set(id);
+            }
+        }
+        return result;
+    }
+
+    // ==================== Cây cú pháp ====================
+
+    private interface Node {
+        /**
+         * Các điện thoại trong phạm vi thỏa mãn nút (kết quả luôn là tập con của scope)
+         */
+        BitSet evaluate(Context context, BitSet scope);
+
+        int cost();
+    }
+
+    private static final class AndNode implements Node {
+        private final List<Node> children;
+
+        AndNode(List<Node> children) {
+            // Điều kiện rẻ chạy trước, phủ định để cuối vì chỉ loại bớt trên phạm vi đã thu hẹp
+            this.children = new ArrayList<>(children);
+            this.children.sort(Comparator.comparingInt(Node::cost));
+        }
+
+        @Override
+        public BitSet evaluate(Context context, BitSet scope) {
+            BitSet result = scope;
+            for (Node child : children) {
+                if (result.isEmpty()) {
+                    break;
+                }
+                result = child.evaluate(context, result);
+            }
+            return result == scope ? (BitSet) scope.clone() : result;
+        }
+
+        @Override
+        public int cost() {
+            return children.stream().mapToInt(Node::cost).max().orElse(0);
+        }
+
+        @Override
+        public String toString() {
+            return "AND" + children;
+        }
+    }
+
+    private static final class OrNode implements Node {
+        private final List<Node> children;
+
+        OrNode(List<Node> children) {
+            this.children = children;
+        }
+
+        @Override
+        public BitSet evaluate(Context context, BitSet scope) {
+            BitSet result = new BitSet(scope.length());
+            BitSet remaining = (BitSet) scope.clone();
+            for (Node child : children) {
+                if (remaining.isEmpty()) {
+                    break;
+                }
+                // Điện thoại đã khớp một nhánh không cần kiểm tra ở các nhánh sau
+                BitSet matched = child.evaluate(context, remaining);
+                result.or(matched);
+                remaining.andNot(matched);
+            }
+            return result;
+        }
+
+        @Override
+        public int cost() {
+            return children.stream().mapToInt(Node::cost).max().orElse(0);
+        }
+
+        @Override
+        public String toString() {
+            return "OR" + children;
+        }
+    }
+
+    private static final class NotNode implements Node {
+        private final Node child;
+
+        NotNode(Node child) {
+            this.child = child;
+        }
+
+        @Override
+        public BitSet evaluate(Context context, BitSet scope) {
+            BitSet result = (BitSet) scope.clone();
+            result.andNot(child.evaluate(context, scope));
+            return result;
+        }
+
+        @Override
+        public int cost() {
+            return child.cost() + COST_VERIFY;
+        }
+
+        @Override
+        public String toString() {
+            return "NOT(" + child + ")";
+        }
+    }
+
+    /**
+     * Từ khóa trên tên và mô tả, hoặc chỉ trên tên (posting list của chỉ mục từ khóa)
+     */
+    private static final class KeywordNode implements Node {
+        private final String keyword;
+        private final boolean namesOnly;
+
+        KeywordNode(String keyword, boolean namesOnly) {
+            this.keyword = keyword;
+            this.namesOnly = namesOnly;
+        }
+
+        @Override
+        public BitSet evaluate(Context context, BitSet scope) {
+            KeywordIndex index = context.keywords();
+            return toBitSet(namesOnly ? index.searchNames(keyword) : index.search(keyword), scope);
+        }
+
+        @Override
+        public int cost() {
+            return COST_POSTINGS;
+        }
+
+        @Override
+        public String toString() {
+            return (namesOnly ? "name:" : "") + keyword;
+        }
+    }
+
+    /**
+     * Hãng: hợp posting list các tên gọi của hãng trong tên điện thoại
+     */
+    private static final class BrandNode implements Node {
+        private final String brand;
+        private final List<String> aliases;
+
+        BrandNode(String brand, List<String> aliases) {
+            this.brand = brand;
+            this.aliases = aliases;
+        }
+
+        @Override
+        public BitSet evaluate(Context context, BitSet scope) {
+            BitSet result = new BitSet(scope.length());
+            for (String alias : aliases) {
+                result.or(toBitSet(context.keywords().searchNames(alias), scope));
+            }
+            return result;
+        }
+
+        @Override
+        public int cost() {
+            return COST_POSTINGS;
+        }
+
+        @Override
+        public String toString() {
+            return "brand:" + brand;
+        }
+    }
+
+    /**
+     * Cụm từ nguyên văn trên tên hoặc mô tả (chỉ mục trigram)
+     */
+    private static final class PhraseNode implements Node {
+        private final String phrase;
+
+        PhraseNode(String phrase) {
+            this.phrase = phrase;
+        }
+
+        @Override
+        public BitSet evaluate(Context context, BitSet scope) {
+            BitSet result = context.trigrams().search(phrase);
+            result.and(scope);
+            return result;
+        }
+
+        @Override
+        public int cost() {
+            return COST_SUBSTRING;
+        }
+
+        @Override
+        public String toString() {
+            return "\"" + phrase + "\"";
+        }
+    }
+
+    /**
+     * Giá trị của một thuộc tính chứa các từ (không phân biệt dấu)
+     * Ứng viên lấy từ posting list của các từ, sau đó kiểm tra đúng thuộc tính trên từng ứng viên
+     */
+    private static final class AttributeNode implements Node {
+        private final String field;
+        private final String attributeKey;
+        private final String value;
+        private final List<String> tokens;
+
+        AttributeNode(String field, String attributeKey, String value) {
+            this.field = field;
+            this.attributeKey = attributeKey;
+            this.value = value;
+            this.tokens = TextTokenizer.tokenize(value);
+        }
+
+        @Override
+        public BitSet evaluate(Context context, BitSet scope) {
+            BitSet result = toBitSet(context.keywords().search(value), scope);
+            for (int id = result.nextSetBit(0); id >= 0; id = result.nextSetBit(id + 1)) {
+                if (!matches(context.phones.get(id))) {
+                    result.clear(id);
+                }
+            }
+            return result;
+        }
+
+        private boolean matches(Phone phone) {
+            if (phone.getDescription() == null) {
+                return false;
+            }
+            List<String> words = TextTokenizer.tokenize(phone.getDescription().getAttribute(attributeKey));
+            for (int i = 0; i < tokens.size(); i++) {
+                String token = tokens.get(i);
+                boolean last = i == tokens.size() - 1;
+                boolean found = false;
+                for (String word : words) {
+                    if (last ? word.startsWith(token) : word.equals(token)) {
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int cost() {
+            return COST_VERIFY;
+        }
+
+        @Override
+        public String toString() {
+            return field + ":" + value;
+        }
+    }
+
+    /**
+     * Khoảng giá trị trên một cột số (quét catalog dạng cột)
+     */
+    private static final class RangeNode implements Node {
+        private final ColumnarCatalog.Column column;
+        private final double min;
+        private final double max;
+
+        RangeNode(ColumnarCatalog.Column column, double min, double max) {
+            this.column = column;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public BitSet evaluate(Context context, BitSet scope) {
+            BitSet result = context.columns().select(column, min, max);
+            result.and(scope);
+            return result;
+        }
+
+        @Override
+        public int cost() {
+            return COST_RANGE_SCAN;
+        }
+
+        @Override
+        public String toString() {
+            return column + "[" + min + ".." + max + "]";
+        }
+    }
+
+    // ==================== Phân tích cú pháp ====================
+
+    private enum TokenType {
+        WORD, PHRASE, FIELD_PHRASE, OR, NOT, LEFT, RIGHT
+    }
+
+    private static final class Token {
+        private final TokenType type;
+        private final String text;
+        // Chỉ dùng cho FIELD_PHRASE: trường và cụm từ trong ngoặc kép
+        private final String field;
+
+        Token(TokenType type, String text, String field) {
+            this.type = type;
+            this.text = text;
+            this.field = field;
+        }
+    }
+
+    private static List<Token> lex(String text) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        int n = text.length();
+        while (i < n) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(') {
+                tokens.add(new Token(TokenType.LEFT, "(", null));
+                i++;
+            } else if (c == ')') {
+                tokens.add(new Token(TokenType.RIGHT, ")", null));
+                i++;
+            } else if (c == '-' && i + 1 < n && !Character.isWhitespace(text.charAt(i + 1))) {
+                tokens.add(new Token(TokenType.NOT, "-", null));
+                i++;
+            } else if (c == '"') {
+                int end = text.indexOf('"', i + 1);
+                end = end < 0 ? n : end;
+                tokens.add(new Token(TokenType.PHRASE, text.substring(i + 1, end), null));
+                i = end + 1;
+            } else {
+                int start = i;
+                while (i < n && !Character.isWhitespace(text.charAt(i))
+                        && text.charAt(i) != '(' && text.charAt(i) != ')' && text.charAt(i) != '"') {
+                    i++;
+                }
+                String word = text.substring(start, i);
+                if (word.endsWith(":") && i < n && text.charAt(i) == '"') {
+                    // trường:"cụm từ"
+                    int end = text.indexOf('"', i + 1);
+                    end = end < 0 ? n : end;
+                    tokens.add(new Token(TokenType.FIELD_PHRASE, text.substring(i + 1, end),
+                            word.substring(0, word.length() - 1)));
+                    i = end + 1;
+                } else if (word.equals("OR") || word.equals("|")) {
+                    tokens.add(new Token(TokenType.OR, word, null));
+                } else if (word.equals("NOT")) {
+                    tokens.add(new Token(TokenType.NOT, word, null));
+                } else if (!word.equals("AND") && !word.isEmpty()) {
+                    tokens.add(new Token(TokenType.WORD, word, null));
+                }
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Phân tích đệ quy xuống:
+     * or := and ("OR" and)*; and := unary+; unary := ("-" | "NOT") unary | "(" or ")" | điều kiện
+     */
+    private static final class Parser {
+        private final List<Token> tokens;
+        private int position;
+
+        Parser(List<Token> tokens) {
+            this.tokens = tokens;
+        }
+
+        boolean hasNext() {
+            return position < tokens.size();
+        }
+
+        private TokenType peek() {
+            return hasNext() ? tokens.get(position).type : null;
+        }
+
+        Node parseOr() {
+            List<Node> children = new ArrayList<>();
+            children.add(parseAnd());
+            while (peek() == TokenType.OR) {
+                position++;
+                children.add(parseAnd());
+            }
+            return children.size() == 1 ? children.get(0) : new OrNode(children);
+        }
+
+        private Node parseAnd() {
+            List<Node> children = new ArrayList<>();
+            while (hasNext() && peek() != TokenType.OR && peek() != TokenType.RIGHT) {
+                children.add(parseUnary());
+            }
+            if (children.isEmpty()) {
+                // "iphone OR", "()", "(ram>=8 OR )": nhóm rỗng không được hiểu là mọi điện thoại
+                throw new IllegalArgumentException(hasNext()
+                        ? "Thiếu điều kiện trước '" + tokens.get(position).text + "'"
+                        : "Thiếu điều kiện ở cuối truy vấn");
+            }
+            return children.size() == 1 ? children.get(0) : new AndNode(children);
+        }
+
+        private Node parseUnary() {
+            Token token = tokens.get(position++);
+            switch (token.type) {
+                case NOT:
+                    if (!hasNext()) {
+                        throw new IllegalArgumentException("Thiếu điều kiện sau '" + token.text + "'");
+                    }
+                    return new NotNode(parseUnary());
+                case LEFT:
+                    Node inner = parseOr();
+                    if (peek() != TokenType.RIGHT) {
+                        throw new IllegalArgumentException("Thiếu dấu ')' trong truy vấn");
+                    }
+                    position++;
+                    return inner;
+                case PHRASE:
+                    return new PhraseNode(token.text);
+                case FIELD_PHRASE:
+                    return fieldNode(TextTokenizer.fold(token.field), ":", token.text);
+                case WORD:
+                    return wordNode(token.text);
+                default:
+                    throw new IllegalArgumentException("Không mong đợi '" + token.text + "' trong truy vấn");
+            }
+        }
+
+        private Node wordNode(String word) {
+            Matcher matcher = FIELD_TERM.matcher(word);
+            if (matcher.matches()) {
+                String field = TextTokenizer.fold(matcher.group(1));
+                if (isField(field)) {
+                    return fieldNode(field, matcher.group(2), matcher.group(3));
+                }
+            }
+            return new KeywordNode(SynonymDictionary.getDefault().rewrite(word), false);
+        }
+
+        private Node fieldNode(String field, String operator, String value) {
+            if (value.isEmpty()) {
+                throw new IllegalArgumentException("Thiếu giá trị cho trường '" + field + "'");
+            }
+
+            ColumnarCatalog.Column column = NUMERIC_FIELDS.get(field);
+            if (column != null) {
+                return rangeNode(field, column, operator, value);
+            }
+            if (!operator.equals(":")) {
+                throw new IllegalArgumentException("Trường '" + field + "' không so sánh được với '" + operator + "'");
+            }
+            if (field.equals("name") || field.equals("ten")) {
+                return new KeywordNode(value, true);
+            }
+            if (field.equals("brand") || field.equals("hang")) {
+                SynonymDictionary dictionary = SynonymDictionary.getDefault();
+                String brand = dictionary.canonicalBrand(value);
+                List<String> aliases = brand != null ? dictionary.aliasesOf(brand) : List.of(value);
+                return new BrandNode(brand != null ? brand : value, aliases);
+            }
+            String attributeKey = ATTRIBUTE_FIELDS.get(field);
+            if (attributeKey == null) {
+                throw new IllegalArgumentException("Không hỗ trợ trường '" + field + "'");
+            }
+            return new AttributeNode(field, attributeKey, value);
+        }
+
+        private Node rangeNode(String field, ColumnarCatalog.Column column, String operator, String value) {
+            double min = Double.NEGATIVE_INFINITY;
+            double max = Double.POSITIVE_INFINITY;
+            int rangeSeparator = value.indexOf("..");
+            if (operator.equals(":") && rangeSeparator >= 0) {
+                // trường:a..b, bỏ trống một đầu để không giới hạn
+                String from = value.substring(0, rangeSeparator);
+                String to = value.substring(rangeSeparator + 2);
+                // Đơn vị chỉ viết ở một đầu áp dụng cho cả khoảng: "10..15tr" = 10tr..15tr
+                String fromUnit = unitSuffix(from);
+                String toUnit = unitSuffix(to);
+                if (fromUnit.isEmpty() && !from.isEmpty()) {
+                    from = from + toUnit;
+                }
+                if (toUnit.isEmpty() && !to.isEmpty()) {
+                    to = to + fromUnit;
+                }
+                if (!from.isEmpty()) {
+                    min = lowerBound(column, parseNumber(field, column, from));
+                }
+                if (!to.isEmpty()) {
+                    max = upperBound(column, parseNumber(field, column, to));
+                }
+                return new RangeNode(column, min, max);
+            }
+
+            double number = parseNumber(field, column, value);
+            switch (operator) {
+                case ">=":
+                    min = lowerBound(column, number);
+                    break;
+                case ">":
+                    min = Math.nextUp(upperBound(column, number));
+                    break;
+                case "<=":
+                    max = upperBound(column, number);
+                    break;
+                case "<":
+                    max = Math.nextDown(lowerBound(column, number));
+                    break;
+                default:
+                    min = lowerBound(column, number);
+                    max = upperBound(column, number);
+                    break;
+            }
+            return new RangeNode(column, min, max);
+        }
+
+        /**
+         * Phần chữ ở cuối giá trị (đơn vị: tr, k, gb, mah...), đã bỏ dấu và viết thường
+         */
+        private static String unitSuffix(String text) {
+            String value = TextTokenizer.fold(text).trim();
+            int end = value.length();
+            while (end > 0 && Character.isLetter(value.charAt(end - 1))) {
+                end--;
+            }
+            return value.substring(end);
+        }
+
+        // Năm viết dạng yyyy được hiểu là cả năm trên cột yyyyMM: yyyy00 (chỉ biết năm) đến yyyy12
+        private static double lowerBound(ColumnarCatalog.Column column, double value) {
+            return column == ColumnarCatalog.Column.RELEASED && value < 10000 ? value * 100 : value;
+        }
+
+        private static double upperBound(ColumnarCatalog.Column column, double value) {
+            return column == ColumnarCatalog.Column.RELEASED && value < 10000 ? value * 100 + 12 : value;
+        }
+
+        private static double parseNumber(String field, ColumnarCatalog.Column column, String text) {
+            String value = TextTokenizer.fold(text).trim();
+            double multiplier = 1;
+            if (column == ColumnarCatalog.Column.PRICE) {
+                if (value.endsWith("trieu")) {
+                    multiplier = 1_000_000;
+                    value = value.substring(0, value.length() - 5);
+                } else if (value.endsWith("tr") || value.endsWith("m")) {
+                    multiplier = 1_000_000;
+                    value = value.substring(0, value.length() - (value.endsWith("tr") ? 2 : 1));
+                } else if (value.endsWith("k")) {
+                    multiplier = 1_000;
+                    value = value.substring(0, value.length() - 1);
+                }
+            }
+            // Bỏ đơn vị phía sau (gb, mah, hz, inch, g, d...)
+            int end = value.length();
+            while (end > 0 && Character.isLetter(value.charAt(end - 1))) {
+                end--;
+            }
+            value = value.substring(0, end).trim();
+
+            if (GROUPED_NUMBER.matcher(value).matches()) {
+                value = value.replace(".", "").replace(",", "");
+            } else {
+                value = value.replace(',', '.');
+            }
+            try {
+                return Double.parseDouble(value) * multiplier;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Giá trị số không hợp lệ cho trường '" + field + "': " + text);
+            }
+        }
+    }
+}
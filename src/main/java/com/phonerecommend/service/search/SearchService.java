@@ -1,6 +1,13 @@
 package com.phonerecommend.service.search;
 
 import com.phonerecommend.model.Phone;
+import com.phonerecommend.repository.catalog.Bm25Index;
+import com.phonerecommend.repository.catalog.ColumnarCatalog;
+import com.phonerecommend.repository.catalog.KeywordIndex;
+import com.phonerecommend.repository.catalog.TrigramIndex;
+import com.phonerecommend.repository.catalog.TypeaheadIndex;
+
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -9,9 +16,17 @@ import java.util.stream.Collectors;
  * Dịch vụ tìm kiếm điện thoại
  */
 public class SearchService {
+    private final SynonymDictionary synonyms = SynonymDictionary.getDefault();
 
     /**
      * Tìm kiếm điện thoại theo từ khóa
+     * Điện thoại thỏa mãn khi tên hoặc một giá trị mô tả chứa nguyên văn từ khóa (không phân biệt
+     * hoa thường). Danh sách đủ lớn dùng chỉ mục trigram để chỉ kiểm tra các điện thoại ứng viên.
+     * Từ viết tắt được viết lại trước khi tra chỉ mục ("ss s24" -> "samsung s24"). Nếu không có kết quả
+     * và từ khóa nhắc tới một nhu cầu ("pin trâu", "sạc nhanh") thì lấy các điện thoại đáp ứng nhu cầu
+     * (vd: pin >= 4000 mAh) và khớp phần còn lại của từ khóa; cuối cùng mới tìm gần đúng theo tên
+     * (chấp nhận gõ sai 1-2 ký tự mỗi từ)
+     * Từ khóa dùng cú pháp truy vấn (vd: "chipset:snapdragon ram>=8 -iphone") được chạy như PhoneQuery
      * @param phones Danh sách điện thoại để tìm kiếm
      * @param keyword Từ khóa tìm kiếm
      * @return Danh sách điện thoại thỏa mãn từ khóa
@@ -21,6 +36,76 @@ public class SearchService {
             return phones;
         }
 
+        if (PhoneQuery.isStructured(keyword)) {
+            try {
+                return searchByQuery(phones, keyword);
+            } catch (IllegalArgumentException e) {
+                // Sai cú pháp: tìm như từ khóa thông thường
+                System.err.println("Lỗi cú pháp truy vấn: " + e.getMessage());
+            }
+        }
+
+        SynonymDictionary.Analysis analysis = synonyms.analyze(keyword);
+        List<Phone> exact = searchExactKeyword(phones, analysis.getQuery());
+        if (!exact.isEmpty()) {
+            return exact;
+        }
+        if (!analysis.getNeeds().isEmpty()) {
+            List<Phone> byNeeds = searchByNeeds(phones, analysis);
+            if (!byNeeds.isEmpty()) {
+                return byNeeds;
+            }
+        }
+        return searchSimilarNames(phones, analysis.getQuery());
+    }
+
+    /**
+     * Tìm kiếm bằng truy vấn có cấu trúc, vd: chipset:snapdragon ram>=8 price<15tr -iphone "chống nước"
+     * @param phones Danh sách điện thoại để tìm kiếm
+     * @param query Truy vấn (cú pháp xem PhoneQuery)
+     * @return Danh sách điện thoại thỏa mãn, giữ nguyên thứ tự
+     * @throws IllegalArgumentException nếu truy vấn sai cú pháp
+     */
+    public List<Phone> searchByQuery(List<Phone> phones, String query) {
+        return PhoneQuery.parse(query).execute(phones);
+    }
+
+    private List<Phone> searchByNeeds(List<Phone> phones, SynonymDictionary.Analysis analysis) {
+        List<Phone> candidates = analysis.getRemainingQuery().isEmpty()
+                ? phones
+                : searchExactKeyword(phones, analysis.getRemainingQuery());
+        return candidates.stream()
+                .filter(phone -> {
+                    for (Predicate<Phone> need : analysis.getNeeds().values()) {
+                        if (!need.test(phone)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Tìm gần đúng theo tên điện thoại, dùng cây BK trên các từ của tên thay vì so từng tên
+     * @param phones Danh sách điện thoại để tìm kiếm
+     * @param keyword Từ khóa (có thể gõ sai chính tả, vd: "samsng galaxy s24")
+     * @return Danh sách điện thoại có tên khớp gần đúng
+     */
+    public List<Phone> searchSimilarNames(List<Phone> phones, String keyword) {
+        KeywordIndex index = KeywordIndex.forPhones(phones);
+        if (index == null) {
+            index = new KeywordIndex(phones);
+        }
+        return index.retain(phones, index.searchNamesFuzzy(keyword));
+    }
+
+    private List<Phone> searchExactKeyword(List<Phone> phones, String keyword) {
+        TrigramIndex index = TrigramIndex.forPhones(phones);
+        if (index != null) {
+            return index.retain(phones, index.search(keyword));
+        }
+
         String lowercaseKeyword = keyword.toLowerCase();
 
         return phones.stream()
@@ -42,6 +127,63 @@ public class SearchService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Tìm kiếm có xếp hạng theo BM25: điện thoại chứa càng nhiều từ của từ khóa, từ càng hiếm và
+     * nằm trong tên (rồi đến tính năng camera) thì xếp càng cao. Chỉ trả về limit kết quả tốt nhất
+     * @param phones Danh sách điện thoại để tìm kiếm
+     * @param keyword Từ khóa tìm kiếm
+     * @param limit Số kết quả tối đa
+     * @return Danh sách điện thoại theo mức độ liên quan giảm dần
+     */
+    public List<Phone> searchRanked(List<Phone> phones, String keyword, int limit) {
+        return searchRanked(phones, phones, keyword, limit);
+    }
+
+    /**
+     * Tìm kiếm có xếp hạng BM25 trên toàn danh mục nhưng chỉ trả về các điện thoại ứng viên
+     * (vd: kết quả sau khi lọc). Độ hiếm của từ được tính trên cả danh mục và dùng chỉ mục của snapshot,
+     * không phải tạo chỉ mục riêng cho tập đã lọc
+     * @param catalog Danh mục dùng để xếp hạng (nên là repository.getAllPhones())
+     * @param candidates Các điện thoại được phép trả về, thuộc danh mục
+     * @param keyword Từ khóa tìm kiếm
+     * @param limit Số kết quả tối đa
+     * @return Danh sách điện thoại theo mức độ liên quan giảm dần
+     */
+    public List<Phone> searchRanked(List<Phone> catalog, List<Phone> candidates, String keyword, int limit) {
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return new ArrayList<>(candidates.subList(0, Math.min(limit, candidates.size())));
+        }
+
+        Bm25Index index = Bm25Index.forPhones(catalog);
+        if (index == null) {
+            index = new Bm25Index(catalog);
+        }
+        return index.topK(synonyms.rewrite(keyword), candidates, limit);
+    }
+
+    /**
+     * Gợi ý khi người dùng đang gõ: tên điện thoại, hãng và từ phổ biến trong tên model
+     * có tiền tố khớp chuỗi đã gõ (không phân biệt dấu), xếp theo lượt xem giảm dần
+     * @param phones Danh sách điện thoại để gợi ý
+     * @param prefix Chuỗi đã gõ
+     * @param limit Số gợi ý tối đa
+     * @return Danh sách gợi ý
+     */
+    public List<TypeaheadIndex.Suggestion> suggest(List<Phone> phones, String prefix, int limit) {
+        if (prefix == null || prefix.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        return TypeaheadIndex.forPhones(phones).suggest(prefix, limit);
+    }
+
+    /**
+     * Tạo trước chỉ mục gợi ý của danh sách (chạy ở luồng nền) để lần gõ đầu tiên không phải chờ
+     * @param phones Danh sách điện thoại để gợi ý
+     */
+    public void prepareSuggestions(List<Phone> phones) {
+        TypeaheadIndex.forPhones(phones);
+    }
+
     /**
      * Tìm kiếm điện thoại theo khoảng giá
      * @param phones Danh sách điện thoại để tìm kiếm
@@ -50,6 +192,12 @@ public class SearchService {
      * @return Danh sách điện thoại thỏa mãn khoảng giá
      */
     public List<Phone> searchByPriceRange(List<Phone> phones, double minPrice, double maxPrice) {
+        // Danh sách đủ lớn: quét cột giá của catalog dạng cột
+        ColumnarCatalog catalog = ColumnarCatalog.forPhones(phones);
+        if (catalog != null) {
+            return catalog.retain(phones, catalog.selectPriceRange(minPrice, maxPrice));
+        }
+
         Predicate<Phone> priceCriteria = phone -> {
             double price = phone.getPrice();
             boolean meetsMinPrice = minPrice < 0 || price >= minPrice;
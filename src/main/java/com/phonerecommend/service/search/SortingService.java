@@ -80,22 +80,12 @@ public class SortingService {
 
     /**
      * Sắp xếp theo thời gian ra mắt mới nhất
-     * Lưu ý: Đơn giản hóa bằng cách sử dụng thông tin "Thời điểm ra mắt" từ mô tả
+     * Dùng "Thời điểm ra mắt" đã được phân tích sẵn thành yyyyMM trong PhoneSpecs
      */
     private List<Phone> sortByNewest(List<Phone> phones) {
+        // Điện thoại không có thông tin ngày (0) tự nằm ở cuối
         return phones.stream()
-                .sorted((p1, p2) -> {
-                    String date1 = p1.getDescription().getAttribute("Thời điểm ra mắt");
-                    String date2 = p2.getDescription().getAttribute("Thời điểm ra mắt");
-
-                    // Nếu không có thông tin ngày, đặt ở cuối
-                    if (date1 == null || date1.isEmpty()) return 1;
-                    if (date2 == null || date2.isEmpty()) return -1;
-
-                    // Giả định định dạng MM-yyyy hoặc MM/yyyy
-                    // Trong thực tế cần xử lý chuyển đổi chuỗi ngày tháng phức tạp hơn
-                    return date2.compareTo(date1); // Sắp xếp giảm dần (mới nhất lên đầu)
-                })
+                .sorted(Comparator.comparingInt((Phone p) -> p.getSpecs().getReleaseYearMonth()).reversed())
                 .collect(Collectors.toList());
     }
 }
\ No newline at end of file
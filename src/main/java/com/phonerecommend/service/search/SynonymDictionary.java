@@ -0,0 +1,431 @@
+package com.phonerecommend.service.search;
+
+import com.phonerecommend.model.Phone;
+import com.phonerecommend.model.PhoneDescription;
+import com.phonerecommend.repository.catalog.TextTokenizer;
+import com.phonerecommend.service.filter.impl.CameraFeatureFilter.CameraFeature;
+import com.phonerecommend.service.filter.impl.LongBatteryFilter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Từ điển từ đồng nghĩa và tên gọi khác cho truy vấn tìm kiếm
+ * Mỗi cụm từ (đã bỏ dấu, so theo từ nguyên vẹn) có thể:
+ * - Viết lại thành từ chuẩn: "ss" -> "samsung", "ip" -> "iphone", "xiaomi redmi" -> "redmi"
+ * - Chỉ ra một hãng: "galaxy" -> Samsung, "redmi" -> Xiaomi
+ * - Chỉ ra một nhu cầu kèm điều kiện thật trên điện thoại: "pin trâu" -> pin >= 4000 mAh,
+ *   "sạc nhanh" -> "Công nghệ sạc" có chữ "nhanh", "chống nước" -> chuẩn IPx7/IPx8
+ *
+ * Các cụm từ được biên dịch một lần thành cây tiền tố theo từ; phân tích truy vấn là một lượt duyệt
+ * từ trái sang phải, tại mỗi vị trí lấy cụm dài nhất khớp được
+ */
+public final class SynonymDictionary {
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    // Chuẩn kháng nước đã bỏ dấu, viết thường: "ip68", "ipx7" -> chữ số thứ hai là mức kháng nước
+    private static final Pattern IP_RATING = Pattern.compile("ip[0-9x]([0-9])");
+    private static final int MIN_SMOOTH_REFRESH_HZ = 90;
+    private static final SynonymDictionary DEFAULT = createDefault();
+
+    private final Node root;
+    private final Map<String, List<String>> brandAliases;
+
+    private SynonymDictionary(Builder builder) {
+        Map<String, List<String>> aliases = new HashMap<>();
+        for (Map.Entry<String, List<String>> brand : builder.brandAliases.entrySet()) {
+            aliases.put(brand.getKey(), new ArrayList<>(brand.getValue()));
+        }
+
+        this.root = new Node();
+        for (Entry entry : builder.entries) {
+            Node node = root;
+            for (String token : entry.phrase) {
+                node = node.children.computeIfAbsent(token, t -> new Node());
+            }
+            node.entries.add(entry);
+        }
+
+        // Từ viết lại kế thừa hãng/thuộc tính của từ chuẩn ("ss" -> "samsung" cũng là hãng Samsung)
+        for (Entry entry : builder.entries) {
+            if (entry.kind == Kind.TERM) {
+                Node target = find(TextTokenizer.tokenize(entry.canonical));
+                Node source = find(entry.phrase);
+                if (target != null && target != source) {
+                    for (Entry inherited : target.entries) {
+                        if (inherited.kind == Kind.TERM) {
+                            continue;
+                        }
+                        source.entries.add(new Entry(entry.phrase, inherited.kind, inherited.canonical, inherited.condition));
+                        if (inherited.kind == Kind.BRAND) {
+                            // Tên viết sai cũng có thể nằm trong tên điện thoại ("Xiaomii")
+                            aliases.get(inherited.canonical).add(String.join(" ", entry.phrase));
+                        }
+                    }
+                }
+            }
+        }
+
+        this.brandAliases = new HashMap<>();
+        for (Map.Entry<String, List<String>> brand : aliases.entrySet()) {
+            brandAliases.put(brand.getKey(), Collections.unmodifiableList(brand.getValue()));
+        }
+    }
+
+    /**
+     * Từ điển mặc định của ứng dụng
+     */
+    public static SynonymDictionary getDefault() {
+        return DEFAULT;
+    }
+
+    private static SynonymDictionary createDefault() {
+        return new Builder()
+                // Hãng và các dòng máy mang tên riêng
+                .brand("Apple", "apple", "iphone")
+                .brand("Samsung", "samsung", "galaxy")
+                .brand("Xiaomi", "xiaomi", "redmi", "poco")
+                .brand("Oppo", "oppo")
+                .brand("Vivo", "vivo", "iqoo")
+                .brand("Huawei", "huawei")
+                .brand("Realme", "realme")
+                .brand("Nokia", "nokia")
+                .brand("Sony", "sony", "xperia")
+                .brand("Asus", "asus", "rog", "zenfone")
+                .brand("Motorola", "motorola", "moto")
+                // Cách viết tắt, viết sai thường gặp
+                .term("samsung", "ss", "sam sung")
+                .term("iphone", "ip", "ifone", "ai phôn")
+                .term("xiaomi", "xiaomii", "xiomi", "xaomi")
+                .term("redmi", "xiaomi redmi")
+                .term("poco", "xiaomi poco")
+                .term("oppo", "op pô")
+                .term("philips", "phillips")
+                // Nhu cầu -> điều kiện trên thông số hoặc từ khóa trong thuộc tính mô tả
+                .need("Sạc nhanh", attributeContains("Công nghệ sạc", "nhanh", "fast"), "sạc nhanh", "fast charging")
+                .need("Sạc không dây", attributeContains("Công nghệ sạc", "không dây", "wireless"),
+                        "sạc không dây", "wireless")
+                .need("Pin trâu", new LongBatteryFilter()::matches, "pin trâu", "pin khỏe", "pin lâu", "pin to")
+                .need("Kháng nước", waterResistance(7), "kháng nước", "chống nước", "ip67")
+                .need("IP68", waterResistance(8), "ip68")
+                .need("Cảm biến vân tay", attributeContains("Cảm biến vân tay", "vân tay"), "vân tay")
+                .need("Chống rung", cameraFeature(CameraFeature.STABILIZATION), "chống rung")
+                .need("Chụp đêm", cameraFeature(CameraFeature.NIGHT_MODE), "chụp đêm")
+                .need("Xóa phông", cameraFeature(CameraFeature.PORTRAIT), "xóa phông")
+                .need("Màn hình mượt", phone -> phone.getSpecs().getRefreshHz() >= MIN_SMOOTH_REFRESH_HZ,
+                        "màn hình mượt", "tần số quét")
+                .build();
+    }
+
+    /**
+     * Điều kiện: giá trị thuộc tính mô tả chứa một trong các từ khóa (không phân biệt hoa thường và dấu)
+     */
+    public static Predicate<Phone> attributeContains(String attributeKey, String... keywords) {
+        List<String> folded = new ArrayList<>(keywords.length);
+        for (String keyword : keywords) {
+            folded.add(TextTokenizer.fold(keyword));
+        }
+        return phone -> {
+            String value = attributeOf(phone, attributeKey);
+            if (value.isEmpty()) {
+                return false;
+            }
+            String foldedValue = TextTokenizer.fold(value);
+            for (String keyword : folded) {
+                if (foldedValue.contains(keyword)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    /**
+     * Điều kiện: chuẩn IP trong "Chỉ số kháng nước, bụi" có mức kháng nước (chữ số thứ hai) từ minLevel
+     */
+    private static Predicate<Phone> waterResistance(int minLevel) {
+        return phone -> {
+            Matcher matcher = IP_RATING.matcher(TextTokenizer.fold(attributeOf(phone, "Chỉ số kháng nước, bụi")));
+            while (matcher.find()) {
+                if (matcher.group(1).charAt(0) - '0' >= minLevel) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    /**
+     * Điều kiện: "Tính năng camera" có một từ khóa của tính năng
+     */
+    private static Predicate<Phone> cameraFeature(CameraFeature feature) {
+        return attributeContains("Tính năng camera", feature.getKeywords().toArray(new String[0]));
+    }
+
+    private static String attributeOf(Phone phone, String attributeKey) {
+        PhoneDescription description = phone.getDescription();
+        return description != null ? description.getAttribute(attributeKey) : "";
+    }
+
+    private Node find(List<String> phrase) {
+        Node node = root;
+        for (String token : phrase) {
+            node = node.children.get(token);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    // ==================== Phân tích truy vấn ====================
+
+    /**
+     * Phân tích truy vấn trong một lượt: viết lại các cụm từ viết tắt, nhận diện hãng và thuộc tính
+     * Phần văn bản không khớp cụm nào được giữ nguyên (kể cả dấu tiếng Việt)
+     * @param query Truy vấn của người dùng
+     * @return Kết quả phân tích
+     */
+    public Analysis analyze(String query) {
+        if (query == null) {
+            return new Analysis("", "", new LinkedHashSet<>(), new LinkedHashMap<>());
+        }
+
+        // Vị trí các từ trong văn bản gốc, để giữ nguyên phần không bị viết lại
+        List<int[]> spans = new ArrayList<>();
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= query.length(); i++) {
+            if (i == query.length() || !Character.isLetterOrDigit(query.charAt(i))) {
+                if (start >= 0) {
+                    spans.add(new int[]{start, i});
+                    tokens.add(TextTokenizer.fold(query.substring(start, i)));
+                    start = -1;
+                }
+            } else if (start < 0) {
+                start = i;
+            }
+        }
+
+        StringBuilder rewritten = new StringBuilder(query.length());
+        StringBuilder remaining = new StringBuilder(query.length());
+        Set<String> brands = new LinkedHashSet<>();
+        Map<String, Predicate<Phone>> needs = new LinkedHashMap<>();
+        int copied = 0;
+        int i = 0;
+        while (i < tokens.size()) {
+            // Cụm dài nhất bắt đầu từ từ thứ i
+            Node node = root;
+            Node matched = null;
+            int matchedEnd = i;
+            for (int j = i; j < tokens.size(); j++) {
+                node = node.children.get(tokens.get(j));
+                if (node == null) {
+                    break;
+                }
+                if (!node.entries.isEmpty()) {
+                    matched = node;
+                    matchedEnd = j + 1;
+                }
+            }
+            if (matched == null) {
+                i++;
+                continue;
+            }
+
+            int from = spans.get(i)[0];
+            int to = spans.get(matchedEnd - 1)[1];
+            String replacement = query.substring(from, to);
+            boolean isNeed = false;
+            for (Entry entry : matched.entries) {
+                switch (entry.kind) {
+                    case TERM:
+                        replacement = entry.canonical;
+                        break;
+                    case BRAND:
+                        brands.add(entry.canonical);
+                        break;
+                    case NEED:
+                        needs.put(entry.canonical, entry.condition);
+                        isNeed = true;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            rewritten.append(query, copied, from).append(replacement);
+            remaining.append(query, copied, from).append(isNeed ? "" : replacement);
+            copied = to;
+            i = matchedEnd;
+        }
+        rewritten.append(query, copied, query.length());
+        remaining.append(query, copied, query.length());
+
+        return new Analysis(rewritten.toString(), WHITESPACE.matcher(remaining.toString().trim()).replaceAll(" "),
+                brands, needs);
+    }
+
+    /**
+     * Viết lại truy vấn về các từ chuẩn ("ss s24" -> "samsung s24")
+     */
+    public String rewrite(String query) {
+        return analyze(query).getQuery();
+    }
+
+    /**
+     * Các hãng được nhắc tới trong văn bản (tên điện thoại hoặc câu hỏi), theo thứ tự xuất hiện
+     */
+    public List<String> brandsOf(String text) {
+        return new ArrayList<>(analyze(text).getBrands());
+    }
+
+    /**
+     * Tên chuẩn của hãng ứng với một tên gọi ("galaxy" -> "Samsung", "ss" -> "Samsung")
+     * @return Tên hãng, null nếu không phải tên gọi của hãng nào
+     */
+    public String canonicalBrand(String alias) {
+        Node node = find(TextTokenizer.tokenize(alias));
+        if (node != null) {
+            for (Entry entry : node.entries) {
+                if (entry.kind == Kind.BRAND) {
+                    return entry.canonical;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Các tên gọi của hãng có thể xuất hiện trong tên điện thoại ("Apple" -> "apple", "iphone", "ip"...)
+     * @param brand Tên chuẩn của hãng
+     * @return Danh sách tên gọi, rỗng nếu không có trong từ điển
+     */
+    public List<String> aliasesOf(String brand) {
+        return brandAliases.getOrDefault(brand, Collections.emptyList());
+    }
+
+    /**
+     * Kết quả phân tích một truy vấn
+     */
+    public static final class Analysis {
+        private final String query;
+        private final String remainingQuery;
+        private final Set<String> brands;
+        private final Map<String, Predicate<Phone>> needs;
+
+        private Analysis(String query, String remainingQuery, Set<String> brands, Map<String, Predicate<Phone>> needs) {
+            this.query = query;
+            this.remainingQuery = remainingQuery;
+            this.brands = Collections.unmodifiableSet(brands);
+            this.needs = Collections.unmodifiableMap(needs);
+        }
+
+        /**
+         * Truy vấn đã viết lại về các từ chuẩn
+         */
+        public String getQuery() {
+            return query;
+        }
+
+        /**
+         * Truy vấn đã viết lại và bỏ các cụm chỉ nhu cầu ("ss pin trâu" -> "samsung")
+         */
+        public String getRemainingQuery() {
+            return remainingQuery;
+        }
+
+        /**
+         * Các hãng được nhắc tới, theo thứ tự xuất hiện
+         */
+        public Set<String> getBrands() {
+            return brands;
+        }
+
+        /**
+         * Các nhu cầu được nhắc tới (tên nhu cầu -> điều kiện), theo thứ tự xuất hiện
+         */
+        public Map<String, Predicate<Phone>> getNeeds() {
+            return needs;
+        }
+    }
+
+    // ==================== Xây dựng từ điển ====================
+
+    private enum Kind {
+        TERM, BRAND, NEED
+    }
+
+    private static final class Entry {
+        private final List<String> phrase;
+        private final Kind kind;
+        private final String canonical;
+        private final Predicate<Phone> condition; // Chỉ có với NEED
+
+        Entry(List<String> phrase, Kind kind, String canonical, Predicate<Phone> condition) {
+            this.phrase = phrase;
+            this.kind = kind;
+            this.canonical = canonical;
+            this.condition = condition;
+        }
+    }
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>(4);
+        private final List<Entry> entries = new ArrayList<>(1);
+    }
+
+    /**
+     * Builder cho từ điển
+     */
+    public static final class Builder {
+        private final List<Entry> entries = new ArrayList<>();
+        private final Map<String, List<String>> brandAliases = new LinkedHashMap<>();
+
+        /**
+         * Các cụm từ được viết lại thành từ chuẩn
+         */
+        public Builder term(String canonical, String... aliases) {
+            return add(Kind.TERM, canonical, null, aliases);
+        }
+
+        /**
+         * Các tên gọi của một hãng (nên là từ có trong tên điện thoại)
+         */
+        public Builder brand(String brand, String... aliases) {
+            brandAliases.computeIfAbsent(brand, b -> new ArrayList<>()).addAll(List.of(aliases));
+            return add(Kind.BRAND, brand, null, aliases);
+        }
+
+        /**
+         * Các cụm từ chỉ một nhu cầu; điều kiện phải chọn đúng điện thoại đáp ứng nhu cầu,
+         * không chỉ là có thông tin về thuộc tính liên quan
+         * @param need Tên nhu cầu
+         * @param condition Điều kiện trên điện thoại
+         */
+        public Builder need(String need, Predicate<Phone> condition, String... aliases) {
+            return add(Kind.NEED, need, condition, aliases);
+        }
+
+        private Builder add(Kind kind, String canonical, Predicate<Phone> condition, String... aliases) {
+            for (String alias : aliases) {
+                List<String> phrase = TextTokenizer.tokenize(alias);
+                if (!phrase.isEmpty()) {
+                    entries.add(new Entry(phrase, kind, canonical, condition));
+                }
+            }
+            return this;
+        }
+
+        public SynonymDictionary build() {
+            return new SynonymDictionary(this);
+        }
+    }
+}
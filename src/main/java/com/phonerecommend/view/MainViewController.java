@@ -4,11 +4,15 @@ import com.phonerecommend.controller.ChatbotController;
 import com.phonerecommend.controller.PhoneDetailController;
 import com.phonerecommend.controller.PhoneSearchController;
 import com.phonerecommend.model.Phone;
+import com.phonerecommend.repository.RepositoryFactory;
+import com.phonerecommend.repository.catalog.FeatureIndex;
+import com.phonerecommend.service.filter.BitmapFilter;
 import com.phonerecommend.service.filter.PhoneFilter;
 import com.phonerecommend.service.filter.impl.*;
 import com.phonerecommend.service.filter.impl.CameraFeatureFilter.CameraFeature;
 import com.phonerecommend.service.filter.impl.ChipsetFilter.ChipsetType;
 import com.phonerecommend.service.filter.impl.SpecialFeatureFilter.SpecialFeature;
+import com.phonerecommend.service.search.SearchService;
 import com.phonerecommend.service.search.SortingService.SortCriteria;
 import com.phonerecommend.model.PhoneDescription;
 
@@ -19,6 +23,7 @@ import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.geometry.Side;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
@@ -32,16 +37,17 @@ import javafx.scene.text.TextFlow;
 import java.net.URL;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
 import java.util.ResourceBundle;
 import java.util.Map;
 /**
  * Controller cho giao diện chính
  */
 public class MainViewController implements Initializable {
+    private static final int MAX_SEARCH_SUGGESTIONS = 8;
 
     // Controllers
     private PhoneSearchController searchController;
@@ -119,6 +125,11 @@ public class MainViewController implements Initializable {
     // Current state
     private List<Phone> currentPhones = new ArrayList<>();
     private CompositeFilter compositeFilter;
+    private final SearchService searchService = new SearchService();
+    private final ContextMenu suggestionMenu = new ContextMenu();
+    private boolean applyingSuggestion = false;
+    // Số thứ tự lần tra gợi ý gần nhất, kết quả của lần tra cũ hơn bị bỏ qua (chỉ dùng trên luồng giao diện)
+    private long suggestionRequest;
     private NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(new Locale("vi", "VN"));
 
     @Override
@@ -135,6 +146,7 @@ public class MainViewController implements Initializable {
         setupSortComboBox();
         setupPriceToggleGroup();
         setupSuggestedQuestions();
+        setupSearchSuggestions();
 
         // Tải dữ liệu ban đầu
         loadInitialData();
@@ -182,11 +194,76 @@ public class MainViewController implements Initializable {
         }
     }
 
+    private void setupSearchSuggestions() {
+        // Gợi ý khi gõ: tra chỉ mục gợi ý mỗi lần nội dung ô tìm kiếm thay đổi
+        searchField.textProperty().addListener((observable, oldText, newText) -> {
+            if (!applyingSuggestion) {
+                showSearchSuggestions(newText);
+            }
+        });
+        searchField.focusedProperty().addListener((observable, wasFocused, focused) -> {
+            if (!focused) {
+                suggestionMenu.hide();
+            }
+        });
+    }
+
+    private void showSearchSuggestions(String text) {
+        long request = ++suggestionRequest;
+        if (text == null || text.trim().isEmpty()) {
+            suggestionMenu.hide();
+            return;
+        }
+
+        // Tra gợi ý ở luồng nền (có thể phải tạo chỉ mục), chỉ hiển thị kết quả của lần gõ mới nhất
+        CompletableFuture.supplyAsync(() -> searchController.getSuggestions(text, MAX_SEARCH_SUGGESTIONS))
+                .whenComplete((suggestions, error) -> {
+                    if (error != null) {
+                        System.err.println("Không lấy được gợi ý: " + error.getMessage());
+                        return;
+                    }
+                    Platform.runLater(() -> {
+                        if (request == suggestionRequest) {
+                            applySearchSuggestions(suggestions);
+                        }
+                    });
+                });
+    }
+
+    private void applySearchSuggestions(List<String> suggestions) {
+        if (suggestions.isEmpty()) {
+            suggestionMenu.hide();
+            return;
+        }
+
+        List<MenuItem> items = new ArrayList<>();
+        for (String suggestion : suggestions) {
+            MenuItem item = new MenuItem(suggestion);
+            item.setOnAction(e -> {
+                suggestionRequest++; // Bỏ các gợi ý đang tra cho nội dung cũ
+                applyingSuggestion = true;
+                searchField.setText(suggestion);
+                searchField.positionCaret(suggestion.length());
+                applyingSuggestion = false;
+                suggestionMenu.hide();
+                handleSearch(e);
+            });
+            items.add(item);
+        }
+        suggestionMenu.getItems().setAll(items);
+        if (!suggestionMenu.isShowing()) {
+            suggestionMenu.show(searchField, Side.BOTTOM, 0, 0);
+        }
+    }
+
     private void loadInitialData() {
         // Tải tất cả điện thoại
         currentPhones = searchController.getAllPhones();
         updatePhoneGridPane(currentPhones);
         updateResultCount(currentPhones.size());
+
+        // Tạo trước chỉ mục gợi ý ở luồng nền để lần gõ đầu tiên không phải chờ
+        CompletableFuture.runAsync(searchController::prepareSuggestions);
     }
 
     @FXML
@@ -350,7 +427,8 @@ public class MainViewController implements Initializable {
         if (xiaomiCheckbox != null && xiaomiCheckbox.isSelected()) selectedBrands.add("xiaomi");
 
         if (!selectedBrands.isEmpty()) {
-            compositeFilter.addFilter(new BrandFilter(selectedBrands.toArray(new String[0])));
+            compositeFilter.addFilter(new BrandFilter(RepositoryFactory.getPhoneRepository(),
+                    selectedBrands.toArray(new String[0])));
         }
 
         // Bộ lọc khoảng giá
@@ -380,17 +458,23 @@ public class MainViewController implements Initializable {
                 final double finalMinPrice = minPrice;
                 final double finalMaxPrice = maxPrice;
 
-                PhoneFilter priceFilter = new PhoneFilter() {
+                PhoneFilter priceFilter = new BitmapFilter() {
                     @Override
                     public List<Phone> filter(List<Phone> phones) {
-                        return phones.stream()
-                                .filter(phone -> {
-                                    double price = phone.getPrice();
-                                    boolean meetsMinPrice = finalMinPrice < 0 || price >= finalMinPrice;
-                                    boolean meetsMaxPrice = finalMaxPrice < 0 || price <= finalMaxPrice;
-                                    return meetsMinPrice && meetsMaxPrice;
-                                })
-                                .collect(Collectors.toList());
+                        // Quét cột giá của catalog thay vì duyệt từng object
+                        return searchService.searchByPriceRange(phones, finalMinPrice, finalMaxPrice);
+                    }
+
+                    @Override
+                    public boolean matches(Phone phone) {
+                        double price = phone.getPrice();
+                        return (finalMinPrice < 0 || price >= finalMinPrice)
+                                && (finalMaxPrice < 0 || price <= finalMaxPrice);
+                    }
+
+                    @Override
+                    public BitSet select(FeatureIndex index) {
+                        return index.getColumns().selectPriceRange(finalMinPrice, finalMaxPrice);
                     }
 
                     @Override
@@ -473,7 +557,7 @@ public class MainViewController implements Initializable {
         if (mediatekDimensityCheckbox != null && mediatekDimensityCheckbox.isSelected()) chipsetTypes.add(ChipsetType.MEDIATEK_DIMENSITY);
 
         if (!chipsetTypes.isEmpty()) {
-            compositeFilter.addFilter(new ChipsetFilter(
+            compositeFilter.addFilter(new ChipsetFilter(RepositoryFactory.getPhoneRepository(),
                     chipsetTypes.toArray(new ChipsetType[0])
             ));
         }